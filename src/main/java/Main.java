@@ -1,7 +1,50 @@
 import gov.ismonnet.bootstrap.swing.DaggerSwingBootstrapComponent;
+import gov.ismonnet.netty.NetProtocol;
+import gov.ismonnet.netty.NetTransport;
+import gov.ismonnet.netty.client.ClientComponent;
+import gov.ismonnet.rooms.DaggerRoomsComponent;
+import gov.ismonnet.rooms.DaggerSpectatorComponent;
+import gov.ismonnet.rooms.RoomServer;
+import gov.ismonnet.rooms.RoomsComponent;
+import gov.ismonnet.rooms.Spectator;
+import gov.ismonnet.util.SneakyThrow;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
 
 public class Main {
     public static void main(String[] args) throws Exception {
+        if(args.length > 0 && args[0].equals("--rooms")) {
+            final RoomsComponent rooms = DaggerRoomsComponent.builder()
+                    .injectPort(args.length > 1 ? Integer.parseInt(args[1]) : 3121)
+                    .injectTransport(NetTransport.preferred())
+                    .build();
+
+            final RoomServer server = rooms.server();
+            rooms.lifeCycle().start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> SneakyThrow.runUnchecked(rooms.lifeCycle()::stop)));
+            server.closeFuture().sync();
+            return;
+        }
+
+        if(args.length > 3 && args[0].equals("--spectate")) {
+            final ClientComponent client = DaggerSpectatorComponent.create().client()
+                    .injectAddress(new InetSocketAddress(args[1], Integer.parseInt(args[2])))
+                    .injectProtocol(NetProtocol.TCP)
+                    .injectTransport(NetTransport.preferred())
+                    .build();
+
+            final Spectator spectator = new Spectator(client.netService());
+            final CountDownLatch stopped = new CountDownLatch(1);
+            client.lifeCycle().afterStop(stopped::countDown);
+
+            client.lifeCycle().start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> SneakyThrow.runUnchecked(client.lifeCycle()::stop)));
+            spectator.watch(Integer.parseInt(args[3]));
+            stopped.await();
+            return;
+        }
+
         DaggerSwingBootstrapComponent.create()
                 .bootstrap()
                 .start();
@@ -5,6 +5,8 @@ import dagger.Provides;
 import gov.ismonnet.game.GameComponent;
 import gov.ismonnet.lifecycle.LifeCycleManager;
 import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.NetProtocol;
+import gov.ismonnet.netty.NetTransport;
 import gov.ismonnet.netty.client.ClientComponent;
 import gov.ismonnet.netty.server.ServerComponent;
 import gov.ismonnet.resource.ResourceModule;
@@ -28,4 +30,18 @@ public abstract class BootstrapModule {
     static int defaultPort() {
         return 3121;
     }
+
+    // Both sides have to use the same one, can be changed with -Dnet.protocol=udp or =shared_memory
+    @Provides @DefaultProtocol
+    static NetProtocol defaultProtocol() {
+        return NetProtocol.valueOf(System.getProperty("net.protocol", NetProtocol.TCP.name()).toUpperCase());
+    }
+
+    // Epoll when available, can be changed with -Dnet.transport=nio
+    // or with -Dnet.transport=local to run both sides in the same JVM
+    @Provides @DefaultTransport
+    static NetTransport defaultTransport() {
+        final String transport = System.getProperty("net.transport");
+        return transport != null ? NetTransport.valueOf(transport.toUpperCase()) : NetTransport.preferred();
+    }
 }
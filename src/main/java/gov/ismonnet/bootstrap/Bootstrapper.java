@@ -1,11 +1,17 @@
 package gov.ismonnet.bootstrap;
 
+import gov.ismonnet.event.EventListener;
+import gov.ismonnet.event.listeners.SyncListener;
 import gov.ismonnet.game.GameComponent;
 import gov.ismonnet.game.renderer.RenderService;
 import gov.ismonnet.lifecycle.EagerInit;
 import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.NetProtocol;
+import gov.ismonnet.netty.NetStats;
+import gov.ismonnet.netty.NetTransport;
 import gov.ismonnet.netty.client.ClientComponent;
 import gov.ismonnet.netty.core.NetService;
+import gov.ismonnet.netty.packets.MatchFoundPacket;
 import gov.ismonnet.netty.server.ServerComponent;
 import gov.ismonnet.util.SneakyThrow;
 import org.apache.logging.log4j.LogManager;
@@ -14,6 +20,7 @@ import org.apache.logging.log4j.Logger;
 import javax.inject.Inject;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -26,6 +33,8 @@ public class Bootstrapper {
     private final BootstrapService bootstrapService;
     private final ServerBootstrapService serverBootstrapService;
     private final ClientBootstrapService clientBootstrapService;
+    private final NetProtocol netProtocol;
+    private final NetTransport netTransport;
 
     private final ServerComponent.Builder serverBuilder;
     private final ClientComponent.Builder clientBuilder;
@@ -37,15 +46,22 @@ public class Bootstrapper {
                  BootstrapService bootstrapService,
                  ServerBootstrapService serverBootstrapService,
                  ClientBootstrapService clientBootstrapService,
+                 @DefaultProtocol NetProtocol netProtocol,
+                 @DefaultTransport NetTransport netTransport,
                  ServerComponent.Builder serverBuilder,
                  ClientComponent.Builder clientBuilder,
                  GameComponent.Builder gameBuilder) {
 
+        // Both come from the command line, fail before asking anything to the user
+        netProtocol.checkTransport(netTransport);
+
         this.bootstrapLifeCycle = bootstrapLifeCycle;
 
         this.bootstrapService = bootstrapService;
         this.serverBootstrapService = serverBootstrapService;
         this.clientBootstrapService = clientBootstrapService;
+        this.netProtocol = netProtocol;
+        this.netTransport = netTransport;
 
         this.serverBuilder = serverBuilder;
         this.clientBuilder = clientBuilder;
@@ -82,19 +98,24 @@ public class Bootstrapper {
 
     private void start0() throws Exception {
 
-        final RenderService.Side side;
-        final boolean spawnPuck;
+        final CompletableFuture<MatchFoundPacket> matchFuture = new CompletableFuture<>();
+        final EventListener<MatchFoundPacket> onMatchFound = new SyncListener<>(packet -> matchFuture.complete(packet));
+
         final NetService netService;
+        final NetStats netStats;
         final LifeCycleService netLifeCycle;
 
         switch (bootstrapService.chooseNetSide()) {
             case SERVER:
                 final ServerComponent serverComponent = serverBuilder
                         .injectPort(serverBootstrapService.choosePort())
+                        .injectProtocol(netProtocol)
+                        .injectTransport(netTransport)
                         .build();
-                side = RenderService.Side.LEFT;
-                spawnPuck = true;
+                // The host always serves
+                matchFuture.complete(new MatchFoundPacket(true));
                 netService = serverComponent.netService();
+                netStats = serverComponent.netStats();
                 netLifeCycle = serverComponent.lifeCycle();
 
                 serverBootstrapService.startWaiting(netLifeCycle);
@@ -104,12 +125,17 @@ public class Bootstrapper {
             case CLIENT:
                 final ClientComponent clientComponent = clientBuilder
                         .injectAddress(clientBootstrapService.chooseAddress())
+                        .injectProtocol(netProtocol)
+                        .injectTransport(netTransport)
                         .build();
-                side = RenderService.Side.RIGHT;
-                spawnPuck = false;
                 netService = clientComponent.netService();
+                netStats = clientComponent.netStats();
                 netLifeCycle = clientComponent.lifeCycle();
 
+                // Whoever accepted the connection decides the side,
+                // which could also be a matchmaking server still looking for an opponent
+                netService.register(onMatchFound);
+
                 clientBootstrapService.startWaiting(netLifeCycle);
                 netLifeCycle.afterStop(clientBootstrapService::stopWaiting);
 
@@ -122,6 +148,7 @@ public class Bootstrapper {
         // keep a reference to the netLifeCycle and, when it gets stopped, null it
         final AtomicReference<LifeCycleService> netLifeCycleReference = new AtomicReference<>(netLifeCycle);
         netLifeCycle.afterStop(() -> netLifeCycleReference.set(null));
+        netLifeCycle.afterStop(() -> matchFuture.cancel(false));
         bootstrapLifeCycle.beforeStop(() -> {
             if(netLifeCycleReference.get() != null)
                 SneakyThrow.runUnchecked(netLifeCycleReference.get()::stop);
@@ -140,8 +167,22 @@ public class Bootstrapper {
             return;
         }
 
+        final MatchFoundPacket match;
+        try {
+            match = matchFuture.get();
+        } catch (CancellationException ex) {
+            // Disconnected before finding a match
+            return;
+        } finally {
+            netService.unregister(onMatchFound);
+        }
+
+        final boolean spawnPuck = match.isSpawnPuck();
+        final RenderService.Side side = spawnPuck ? RenderService.Side.LEFT : RenderService.Side.RIGHT;
+
         final GameComponent gameComponent = gameBuilder
                 .injectNetService(netService)
+                .injectNetStats(netStats)
                 .injectSide(side)
                 .injectSpawnPuck(spawnPuck)
                 .build();
@@ -163,5 +204,7 @@ public class Bootstrapper {
         final CountDownLatch latch = new CountDownLatch(1);
         mergedGameLifeCycle.afterStop(latch::countDown);
         latch.await();
+
+        LOGGER.info("Match over, link: {}", netStats);
     }
 }
@@ -5,6 +5,7 @@ import dagger.Subcomponent;
 import gov.ismonnet.game.renderer.RenderService;
 import gov.ismonnet.lifecycle.EagerInit;
 import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.NetStats;
 import gov.ismonnet.netty.core.NetService;
 
 import javax.inject.Named;
@@ -30,6 +31,9 @@ public interface GameComponent {
         @BindsInstance
         Builder injectNetService(NetService netService);
 
+        @BindsInstance
+        Builder injectNetStats(NetStats netStats);
+
         GameComponent build();
     }
 }
@@ -0,0 +1,111 @@
+package gov.ismonnet.game.headless;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Aggregated results of a batch of matches
+ */
+public class BatchResult {
+
+    private int matches;
+
+    private long leftGoals;
+    private long rightGoals;
+
+    private long ticks;
+    private long collisions;
+
+    private float maxPuckSpeed;
+    private double puckSpeedSum;
+
+    // Worker thread name -> { ticks, nanos }
+    private final Map<String, long[]> workers = new HashMap<>();
+
+    void add(MatchResult result) {
+        matches++;
+
+        leftGoals += result.getLeftGoals();
+        rightGoals += result.getRightGoals();
+
+        ticks += result.getTicks();
+        collisions += result.getCollisions();
+
+        maxPuckSpeed = Math.max(maxPuckSpeed, result.getMaxPuckSpeed());
+        puckSpeedSum += (double) result.getAvgPuckSpeed() * result.getTicks();
+
+        final long[] worker = workers.computeIfAbsent(Thread.currentThread().getName(), k -> new long[2]);
+        worker[0] += result.getTicks();
+        worker[1] += result.getNanos();
+    }
+
+    BatchResult merge(BatchResult other) {
+        matches += other.matches;
+
+        leftGoals += other.leftGoals;
+        rightGoals += other.rightGoals;
+
+        ticks += other.ticks;
+        collisions += other.collisions;
+
+        maxPuckSpeed = Math.max(maxPuckSpeed, other.maxPuckSpeed);
+        puckSpeedSum += other.puckSpeedSum;
+
+        other.workers.forEach((name, stats) -> {
+            final long[] worker = workers.computeIfAbsent(name, k -> new long[2]);
+            worker[0] += stats[0];
+            worker[1] += stats[1];
+        });
+        return this;
+    }
+
+    public int getMatches() {
+        return matches;
+    }
+
+    public long getLeftGoals() {
+        return leftGoals;
+    }
+
+    public long getRightGoals() {
+        return rightGoals;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getCollisions() {
+        return collisions;
+    }
+
+    public float getMaxPuckSpeed() {
+        return maxPuckSpeed;
+    }
+
+    public float getAvgPuckSpeed() {
+        return ticks == 0 ? 0 : (float) (puckSpeedSum / ticks);
+    }
+
+    // Ticks of both sides of a match count as one
+    public Map<String, Double> getTicksPerSecondPerWorker() {
+        final Map<String, Double> res = new HashMap<>();
+        workers.forEach((name, stats) -> res.put(name, stats[1] == 0 ? 0 : stats[0] * 1e9 / stats[1]));
+        return Collections.unmodifiableMap(res);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "matches=" + matches +
+                ", leftGoals=" + leftGoals +
+                ", rightGoals=" + rightGoals +
+                ", ticks=" + ticks +
+                ", collisions=" + collisions +
+                ", maxPuckSpeed=" + maxPuckSpeed +
+                ", avgPuckSpeed=" + getAvgPuckSpeed() +
+                ", ticksPerSecondPerWorker=" + getTicksPerSecondPerWorker() +
+                '}';
+    }
+}
@@ -0,0 +1,93 @@
+package gov.ismonnet.game.headless;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Plays independent matches in parallel on a fork/join pool and aggregates their results
+ *
+ * Each match owns its simulations, so nothing is shared between workers
+ * besides the results, which are merged while joining.
+ */
+public class BatchSimulator {
+
+    // Matches played sequentially by a single task
+    private static final int MATCHES_PER_TASK = 4;
+
+    private final ForkJoinPool pool;
+
+    public BatchSimulator() {
+        this(new ForkJoinPool(Runtime.getRuntime().availableProcessors()));
+    }
+
+    public BatchSimulator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Plays the given number of matches
+     *
+     * @param matches number of matches to play
+     * @param maxTicks max number of ticks of a single match
+     * @param goalLimit goals after which a match ends
+     * @param leftBots creates the bot of the serving side of each match
+     * @param rightBots creates the bot of the other side of each match
+     * @return aggregated results
+     */
+    public BatchResult run(int matches,
+                           long maxTicks,
+                           int goalLimit,
+                           Supplier<MatchBot> leftBots,
+                           Supplier<MatchBot> rightBots) {
+        return pool.invoke(new MatchesTask(0, matches, maxTicks, goalLimit, leftBots, rightBots));
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static final class MatchesTask extends RecursiveTask<BatchResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        private final long maxTicks;
+        private final int goalLimit;
+
+        private final Supplier<MatchBot> leftBots;
+        private final Supplier<MatchBot> rightBots;
+
+        MatchesTask(int from, int to,
+                    long maxTicks, int goalLimit,
+                    Supplier<MatchBot> leftBots, Supplier<MatchBot> rightBots) {
+            this.from = from;
+            this.to = to;
+            this.maxTicks = maxTicks;
+            this.goalLimit = goalLimit;
+            this.leftBots = leftBots;
+            this.rightBots = rightBots;
+        }
+
+        @Override
+        protected BatchResult compute() {
+            if(to - from > MATCHES_PER_TASK) {
+                final int middle = (from + to) >>> 1;
+                final MatchesTask first = new MatchesTask(from, middle, maxTicks, goalLimit, leftBots, rightBots);
+                final MatchesTask second = new MatchesTask(middle, to, maxTicks, goalLimit, leftBots, rightBots);
+
+                first.fork();
+                return second.compute().merge(first.join());
+            }
+
+            final BatchResult result = new BatchResult();
+            for(int i = from; i < to; i++)
+                try(Match match = new Match(leftBots.get(), rightBots.get())) {
+                    result.add(match.play(maxTicks, goalLimit));
+                }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package gov.ismonnet.game.headless;
+
+import gov.ismonnet.game.physics.entity.PaddleEntity;
+import gov.ismonnet.game.physics.entity.PuckEntity;
+import gov.ismonnet.game.physics.table.Table;
+
+import java.util.Random;
+
+/**
+ * Bot which hits the puck towards the opponent while it's on its side
+ * and goes back in front of its goal otherwise
+ *
+ * Every time the puck comes to its side, it picks a random point of the
+ * middle line to shoot at so that shots have different angles.
+ * After hitting the puck it backs off for a bit, otherwise it would keep pushing it and
+ * pin it against the walls.
+ */
+public class ChasingBot implements MatchBot {
+
+    private static final int BACK_OFF_TICKS = 16;
+
+    private final float maxSpeed;
+    private final Random random;
+
+    private boolean hasPuck;
+    private float aimY;
+
+    private int backOffTicks;
+
+    public ChasingBot(float maxSpeed, long seed) {
+        this.maxSpeed = maxSpeed;
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void control(Simulation simulation) {
+        final Table table = simulation.getTable();
+        final PuckEntity puck = simulation.getPuck();
+        final PaddleEntity paddle = simulation.getPaddle();
+
+        float targetX = table.getWidth() / 3F;
+        float targetY = table.getHeight() / 2F;
+        // The puck is parked past the middle line while it's on the other side
+        final boolean hasPuck = puck.getPosX() < table.getWidth();
+        if(hasPuck && !this.hasPuck)
+            aimY = table.getHeight() * (0.25F + random.nextFloat() * 0.5F);
+        this.hasPuck = hasPuck;
+
+        final float distX = puck.getPosX() - paddle.getPosX();
+        final float distY = puck.getPosY() - paddle.getPosY();
+        final float touchDist = puck.getRadius() + paddle.getRadius() + 1;
+        if(hasPuck && backOffTicks == 0 && distX * distX + distY * distY <= touchDist * touchDist)
+            backOffTicks = BACK_OFF_TICKS;
+
+        if(backOffTicks > 0) {
+            backOffTicks--;
+        } else if(hasPuck) {
+            // Get behind the puck on the line which goes to the aimed point of the middle line,
+            // so that it's pushed there even when it's stuck in a corner
+            final float diffX = table.getWidth() - puck.getPosX();
+            final float diffY = aimY - puck.getPosY();
+            final float dist = (float) Math.sqrt(diffX * diffX + diffY * diffY);
+
+            targetX = puck.getPosX() - diffX / dist * puck.getRadius();
+            targetY = puck.getPosY() - diffY / dist * puck.getRadius();
+        }
+
+        float motionX = targetX - paddle.getPosX();
+        float motionY = targetY - paddle.getPosY();
+
+        final float motion = (float) Math.sqrt(motionX * motionX + motionY * motionY);
+        if(motion > maxSpeed) {
+            motionX = motionX * maxSpeed / motion;
+            motionY = motionY * maxSpeed / motion;
+        }
+        simulation.movePaddle(motionX, motionY);
+    }
+}
@@ -0,0 +1,29 @@
+package gov.ismonnet.game.headless;
+
+import dagger.BindsInstance;
+import dagger.Component;
+import gov.ismonnet.game.GameSession;
+import gov.ismonnet.lifecycle.LifeCycleService;
+
+import javax.inject.Named;
+
+@GameSession
+@Component(modules = HeadlessModule.class)
+interface HeadlessComponent {
+
+    Simulation simulation();
+
+    LifeCycleService lifeCycle();
+
+    @Component.Builder
+    interface Builder {
+
+        @BindsInstance
+        Builder injectSpawnPuck(@Named("spawn_puck") boolean spawnPuck);
+
+        @BindsInstance
+        Builder injectListener(SimulationListener listener);
+
+        HeadlessComponent build();
+    }
+}
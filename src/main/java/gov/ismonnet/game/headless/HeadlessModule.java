@@ -0,0 +1,28 @@
+package gov.ismonnet.game.headless;
+
+import dagger.Binds;
+import dagger.Module;
+import dagger.Provides;
+import gov.ismonnet.game.GameSession;
+import gov.ismonnet.game.physics.PhysicsModule;
+import gov.ismonnet.game.physics.table.TableModule;
+import gov.ismonnet.lifecycle.LifeCycleManager;
+import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.core.NetService;
+
+@Module(includes = {
+        PhysicsModule.class,
+        TableModule.class })
+abstract class HeadlessModule {
+
+    @Provides @GameSession
+    static LifeCycleService lifeCycleService() {
+        return new LifeCycleManager("headless");
+    }
+
+    @Binds @GameSession
+    abstract NetService netService(HeadlessNetService netService);
+
+    @Binds @GameSession
+    abstract Simulation simulation(SimulationImpl simulation);
+}
@@ -0,0 +1,86 @@
+package gov.ismonnet.game.headless;
+
+import gov.ismonnet.event.EventListener;
+import gov.ismonnet.event.bus.BaseBus;
+import gov.ismonnet.event.bus.WeakBus;
+import gov.ismonnet.netty.core.NetService;
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.packets.GoalPacket;
+import gov.ismonnet.netty.packets.PuckStatePacket;
+
+import javax.inject.Inject;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Net service which hands what gets sent to a listener instead of the network
+ */
+class HeadlessNetService implements NetService {
+
+    private final SimulationListener listener;
+    private final BaseBus<Packet> delegateBus;
+
+    @Inject HeadlessNetService(SimulationListener listener) {
+        this.listener = listener;
+        this.delegateBus = new WeakBus<>();
+    }
+
+    @Override
+    public CompletableFuture<Void> sendPacket(Packet packet) {
+        if(packet instanceof GoalPacket) {
+            listener.onGoal();
+        } else if(packet instanceof PuckStatePacket) {
+            listener.onPuckHandoff((PuckStatePacket) packet);
+        } else {
+            listener.onPacket(packet);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Nothing to bundle, the listener gets them right away
+
+    @Override
+    public void queuePacket(Packet packet) {
+        sendPacket(packet);
+    }
+
+    @Override
+    public void flushPackets() {
+    }
+
+    // Delegate event bus
+
+    @Override
+    public void register(EventListener<? extends Packet> listener) {
+        delegateBus.register(listener);
+    }
+
+    @Override
+    public void registerObj(Object obj) {
+        delegateBus.registerObj(obj);
+    }
+
+    @Override
+    public void registerObj(Object obj, Class<? extends Packet>... events) {
+        delegateBus.registerObj(obj, events);
+    }
+
+    @Override
+    public void unregister(EventListener<? extends Packet> listener) {
+        delegateBus.unregister(listener);
+    }
+
+    @Override
+    public void unregisterObj(Object obj) {
+        delegateBus.unregisterObj(obj);
+    }
+
+    @Override
+    public void unregisterObj(Object obj, Class<? extends Packet>... events) {
+        delegateBus.unregisterObj(obj, events);
+    }
+
+    @Override
+    public Packet post(Packet event) {
+        return delegateBus.post(event);
+    }
+}
@@ -0,0 +1,112 @@
+package gov.ismonnet.game.headless;
+
+import gov.ismonnet.game.physics.entity.PuckEntity;
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.packets.GoalPacket;
+import gov.ismonnet.netty.packets.PuckStatePacket;
+
+/**
+ * Two headless simulations wired together as if they were connected,
+ * the left one serves first like the hosting side does
+ */
+public class Match implements AutoCloseable {
+
+    private final MatchBot leftBot;
+    private final MatchBot rightBot;
+
+    private final Simulation left;
+    private final Simulation right;
+
+    private int leftGoals;
+    private int rightGoals;
+
+    private float maxPuckSpeed;
+    private double puckSpeedSum;
+
+    public Match(MatchBot leftBot, MatchBot rightBot) {
+        this.leftBot = leftBot;
+        this.rightBot = rightBot;
+
+        this.left = Simulation.create(true, new SimulationListener() {
+            @Override
+            public void onGoal() {
+                rightGoals++;
+                right.receivePacket(new GoalPacket());
+            }
+
+            @Override
+            public void onPuckHandoff(PuckStatePacket packet) {
+                right.receivePacket(packet);
+            }
+
+            @Override
+            public void onPacket(Packet packet) {
+                right.receivePacket(packet);
+            }
+        });
+        this.right = Simulation.create(false, new SimulationListener() {
+            @Override
+            public void onGoal() {
+                leftGoals++;
+                left.receivePacket(new GoalPacket());
+            }
+
+            @Override
+            public void onPuckHandoff(PuckStatePacket packet) {
+                left.receivePacket(packet);
+            }
+
+            @Override
+            public void onPacket(Packet packet) {
+                left.receivePacket(packet);
+            }
+        });
+    }
+
+    /**
+     * Plays until either side reaches the goal limit or the ticks run out
+     */
+    public MatchResult play(long maxTicks, int goalLimit) {
+        final long start = System.nanoTime();
+
+        long ticks = 0;
+        while(ticks < maxTicks && leftGoals < goalLimit && rightGoals < goalLimit) {
+            leftBot.control(left);
+            rightBot.control(right);
+
+            left.tick();
+            right.tick();
+            ticks++;
+
+            sampleSpeed(left);
+            sampleSpeed(right);
+        }
+
+        return new MatchResult(
+                leftGoals, rightGoals,
+                ticks,
+                System.nanoTime() - start,
+                left.getPuck().getCollisions() + right.getPuck().getCollisions(),
+                maxPuckSpeed,
+                ticks == 0 ? 0 : (float) (puckSpeedSum / ticks));
+    }
+
+    private void sampleSpeed(Simulation simulation) {
+        final PuckEntity puck = simulation.getPuck();
+        // Only the side the puck is on is moving it
+        if(puck.getPosX() >= simulation.getTable().getWidth())
+            return;
+
+        final float speed = (float) Math.sqrt(
+                puck.getMotionX() * puck.getMotionX() +
+                puck.getMotionY() * puck.getMotionY());
+        maxPuckSpeed = Math.max(maxPuckSpeed, speed);
+        puckSpeedSum += speed;
+    }
+
+    @Override
+    public void close() {
+        left.close();
+        right.close();
+    }
+}
@@ -0,0 +1,9 @@
+package gov.ismonnet.game.headless;
+
+/**
+ * Moves the paddle of one side of a match, called once before every tick
+ */
+public interface MatchBot {
+
+    void control(Simulation simulation);
+}
@@ -0,0 +1,69 @@
+package gov.ismonnet.game.headless;
+
+public class MatchResult {
+
+    private final int leftGoals;
+    private final int rightGoals;
+
+    private final long ticks;
+    private final long nanos;
+
+    private final long collisions;
+
+    private final float maxPuckSpeed;
+    private final float avgPuckSpeed;
+
+    MatchResult(int leftGoals, int rightGoals,
+                long ticks, long nanos,
+                long collisions,
+                float maxPuckSpeed, float avgPuckSpeed) {
+        this.leftGoals = leftGoals;
+        this.rightGoals = rightGoals;
+        this.ticks = ticks;
+        this.nanos = nanos;
+        this.collisions = collisions;
+        this.maxPuckSpeed = maxPuckSpeed;
+        this.avgPuckSpeed = avgPuckSpeed;
+    }
+
+    public int getLeftGoals() {
+        return leftGoals;
+    }
+
+    public int getRightGoals() {
+        return rightGoals;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getCollisions() {
+        return collisions;
+    }
+
+    public float getMaxPuckSpeed() {
+        return maxPuckSpeed;
+    }
+
+    public float getAvgPuckSpeed() {
+        return avgPuckSpeed;
+    }
+
+    @Override
+    public String toString() {
+        return "MatchResult{" +
+                "leftGoals=" + leftGoals +
+                ", rightGoals=" + rightGoals +
+                ", ticks=" + ticks +
+                ", nanos=" + nanos +
+                ", collisions=" + collisions +
+                ", maxPuckSpeed=" + maxPuckSpeed +
+                ", avgPuckSpeed=" + avgPuckSpeed +
+                '}';
+    }
+}
@@ -0,0 +1,25 @@
+package gov.ismonnet.game.headless;
+
+/**
+ * Bot which replays recorded paddle movements, one pair of motions per tick,
+ * and stands still once they are over
+ */
+public class RecordedInputBot implements MatchBot {
+
+    private final float[] motions;
+    private int index;
+
+    public RecordedInputBot(float[] motions) {
+        if(motions.length % 2 != 0)
+            throw new IllegalArgumentException("Motions have to be in x, y pairs");
+        this.motions = motions;
+    }
+
+    @Override
+    public void control(Simulation simulation) {
+        if(index >= motions.length)
+            return;
+        simulation.movePaddle(motions[index], motions[index + 1]);
+        index += 2;
+    }
+}
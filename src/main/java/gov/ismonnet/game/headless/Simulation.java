@@ -0,0 +1,54 @@
+package gov.ismonnet.game.headless;
+
+import gov.ismonnet.game.physics.PhysicsService;
+import gov.ismonnet.game.physics.entity.PaddleEntity;
+import gov.ismonnet.game.physics.entity.PuckEntity;
+import gov.ismonnet.game.physics.table.Table;
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.util.SneakyThrow;
+
+/**
+ * Half of a table simulated without rendering nor networking
+ *
+ * Ticks are stepped manually as fast as the caller wants and what would have been
+ * sent to the opponent is reported to a {@link SimulationListener}.
+ * Not thread safe, a simulation has to be used by a single thread at a time.
+ */
+public interface Simulation extends AutoCloseable {
+
+    static Simulation create(boolean spawnPuck, SimulationListener listener) {
+        final HeadlessComponent component = DaggerHeadlessComponent.builder()
+                .injectSpawnPuck(spawnPuck)
+                .injectListener(listener)
+                .build();
+        // Build the graph first, so that everything registers in the lifecycle
+        final Simulation simulation = component.simulation();
+        SneakyThrow.runUnchecked(component.lifeCycle()::start);
+        return simulation;
+    }
+
+    void tick();
+
+    void tick(int ticks);
+
+    long getTicks();
+
+    // Ticks per second the simulation is meant to be stepped at
+    int getTickRate();
+
+    // Handles a packet as if it was received from the opponent
+    void receivePacket(Packet packet);
+
+    void movePaddle(float motionX, float motionY);
+
+    PhysicsService getPhysicsService();
+
+    PuckEntity getPuck();
+
+    PaddleEntity getPaddle();
+
+    Table getTable();
+
+    @Override
+    void close();
+}
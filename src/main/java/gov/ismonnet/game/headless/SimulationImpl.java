@@ -0,0 +1,101 @@
+package gov.ismonnet.game.headless;
+
+import gov.ismonnet.game.physics.PhysicsService;
+import gov.ismonnet.game.physics.TickRate;
+import gov.ismonnet.game.physics.entity.PaddleEntity;
+import gov.ismonnet.game.physics.entity.PuckEntity;
+import gov.ismonnet.game.physics.table.Table;
+import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.core.NetService;
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.util.SneakyThrow;
+
+import javax.inject.Inject;
+
+class SimulationImpl implements Simulation {
+
+    private final PhysicsService physicsService;
+    private final NetService netService;
+    private final LifeCycleService lifeCycleService;
+
+    private final PuckEntity puck;
+    private final PaddleEntity paddle;
+    private final Table table;
+
+    private final int tickRate;
+    private long ticks;
+
+    @Inject SimulationImpl(PhysicsService physicsService,
+                           NetService netService,
+                           LifeCycleService lifeCycleService,
+                           PuckEntity puck,
+                           PaddleEntity paddle,
+                           Table table,
+                           @TickRate int tickRate) {
+        this.physicsService = physicsService;
+        this.netService = netService;
+        this.lifeCycleService = lifeCycleService;
+
+        this.puck = puck;
+        this.paddle = paddle;
+        this.table = table;
+        this.tickRate = tickRate;
+    }
+
+    @Override
+    public void tick() {
+        physicsService.tick();
+        ticks++;
+    }
+
+    @Override
+    public void tick(int ticks) {
+        for(int i = 0; i < ticks; i++)
+            tick();
+    }
+
+    @Override
+    public long getTicks() {
+        return ticks;
+    }
+
+    @Override
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    @Override
+    public void receivePacket(Packet packet) {
+        netService.post(packet);
+    }
+
+    @Override
+    public void movePaddle(float motionX, float motionY) {
+        physicsService.handleMouse(motionX, motionY);
+    }
+
+    @Override
+    public PhysicsService getPhysicsService() {
+        return physicsService;
+    }
+
+    @Override
+    public PuckEntity getPuck() {
+        return puck;
+    }
+
+    @Override
+    public PaddleEntity getPaddle() {
+        return paddle;
+    }
+
+    @Override
+    public Table getTable() {
+        return table;
+    }
+
+    @Override
+    public void close() {
+        SneakyThrow.runUnchecked(lifeCycleService::stop);
+    }
+}
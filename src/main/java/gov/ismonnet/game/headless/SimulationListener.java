@@ -0,0 +1,21 @@
+package gov.ismonnet.game.headless;
+
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.packets.PuckStatePacket;
+
+/**
+ * Receives what a headless simulation would have sent to the opponent
+ */
+public interface SimulationListener {
+
+    default void onGoal() {
+    }
+
+    // The puck crossed the middle line, coordinates are already in the opponent's space
+    default void onPuckHandoff(PuckStatePacket packet) {
+    }
+
+    // Anything else, like the paddle inputs and their acknowledgements
+    default void onPacket(Packet packet) {
+    }
+}
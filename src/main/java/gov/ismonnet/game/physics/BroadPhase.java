@@ -0,0 +1,24 @@
+package gov.ismonnet.game.physics;
+
+import gov.ismonnet.game.physics.entity.Entity;
+
+import java.util.List;
+
+/**
+ * Spatial index of the colliding entities, used to only run the narrow phase
+ * against the entities whose bounds overlap the area being tested
+ *
+ * Only meant to be used from the physics thread
+ */
+public interface BroadPhase {
+
+    void add(Entity entity);
+
+    void remove(Entity entity);
+
+    // Has to be called every time an added entity moves
+    void update(Entity entity);
+
+    // Adds to the list every entity whose bounds overlap the given area, without duplicates
+    void query(float minX, float minY, float maxX, float maxY, List<Entity> out);
+}
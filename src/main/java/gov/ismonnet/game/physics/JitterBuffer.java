@@ -0,0 +1,160 @@
+package gov.ismonnet.game.physics;
+
+/**
+ * Buffers positions received from the opponent and plays them back
+ * a fixed number of ticks late, so that packets arriving unevenly
+ * still produce an even movement
+ *
+ * Samples are timestamped with the tick of the sender. The smallest difference
+ * seen between the local tick and the sender one is taken as the base delay,
+ * slowly relaxed so that it can follow the sender falling behind.
+ * When there are no samples to interpolate, the last movement is extrapolated
+ * for a bounded number of ticks before the position is held.
+ *
+ * Only meant to be used by the physics thread.
+ */
+public class JitterBuffer {
+
+    // Ticks the base delay is allowed to grow per tick
+    private static final float BASE_DELAY_RELAX = 0.01F;
+
+    private final int capacity;
+    private final int delay;
+    private final int maxExtrapolation;
+
+    // Ring of the samples, sorted by tick
+    private final long[] ticks;
+    private final float[] posXs;
+    private final float[] posYs;
+    private int head, size;
+
+    private boolean hasBaseDelay;
+    private float baseDelay;
+    private long lastAddedTick;
+
+    private float posX, posY;
+
+    public JitterBuffer(int capacity, int delay, int maxExtrapolation) {
+        this.capacity = capacity;
+        this.delay = delay;
+        this.maxExtrapolation = maxExtrapolation;
+
+        this.ticks = new long[capacity];
+        this.posXs = new float[capacity];
+        this.posYs = new float[capacity];
+    }
+
+    public void clear() {
+        this.head = this.size = 0;
+        this.hasBaseDelay = false;
+    }
+
+    public void add(long remoteTick, long localTick, float posX, float posY) {
+        final float sampleDelay = localTick - remoteTick;
+        if(!hasBaseDelay) {
+            baseDelay = sampleDelay;
+            hasBaseDelay = true;
+        } else {
+            baseDelay = Math.min(sampleDelay, baseDelay + (localTick - lastAddedTick) * BASE_DELAY_RELAX);
+        }
+        lastAddedTick = localTick;
+
+        // Usually in order, so search from the newest one
+        int insertAt = size;
+        while(insertAt > 0 && ticks[index(insertAt - 1)] >= remoteTick) {
+            if(ticks[index(insertAt - 1)] == remoteTick) {
+                posXs[index(insertAt - 1)] = posX;
+                posYs[index(insertAt - 1)] = posY;
+                return;
+            }
+            insertAt--;
+        }
+
+        if(size == capacity) {
+            // Older than everything that is buffered
+            if(insertAt == 0)
+                return;
+            head = index(1);
+            size--;
+            insertAt--;
+        }
+
+        for(int i = size; i > insertAt; i--) {
+            ticks[index(i)] = ticks[index(i - 1)];
+            posXs[index(i)] = posXs[index(i - 1)];
+            posYs[index(i)] = posYs[index(i - 1)];
+        }
+        ticks[index(insertAt)] = remoteTick;
+        posXs[index(insertAt)] = posX;
+        posYs[index(insertAt)] = posY;
+        size++;
+    }
+
+    /**
+     * Computes the position to show at the given local tick,
+     * which can then be retrieved with {@link #getPosX()} and {@link #getPosY()}
+     *
+     * @param localTick current local tick
+     * @return false if there are no samples yet
+     */
+    public boolean sample(long localTick) {
+        if(size == 0)
+            return false;
+
+        final float time = localTick - baseDelay - delay;
+
+        // Samples older than the previous one are not needed anymore
+        while(size > 2 && ticks[index(1)] <= time) {
+            head = index(1);
+            size--;
+        }
+
+        final int first = head;
+        if(time <= ticks[first] || size == 1) {
+            posX = posXs[first];
+            posY = posYs[first];
+            return true;
+        }
+
+        final int second = index(1);
+        float progress = (time - ticks[first]) / (ticks[second] - ticks[first]);
+        // Ran out of samples, keep going for a bit
+        if(progress > 1)
+            progress = Math.min(progress, 1 + (float) maxExtrapolation / (ticks[second] - ticks[first]));
+
+        posX = posXs[first] + (posXs[second] - posXs[first]) * progress;
+        posY = posYs[first] + (posYs[second] - posYs[first]) * progress;
+        return true;
+    }
+
+    private int index(int i) {
+        return (head + i) % capacity;
+    }
+
+    public float getPosX() {
+        return posX;
+    }
+
+    public float getPosY() {
+        return posY;
+    }
+
+    public int getDelay() {
+        return delay;
+    }
+
+    public float getBaseDelay() {
+        return baseDelay;
+    }
+
+    @Override
+    public String toString() {
+        return "JitterBuffer{" +
+                "size=" + size +
+                ", delay=" + delay +
+                ", baseDelay=" + baseDelay +
+                ", posX=" + posX +
+                ", posY=" + posY +
+                '}';
+    }
+}
@@ -0,0 +1,135 @@
+package gov.ismonnet.game.physics;
+
+import dagger.Lazy;
+import gov.ismonnet.event.EventListener;
+import gov.ismonnet.event.Listener;
+import gov.ismonnet.event.listeners.SyncListener;
+import gov.ismonnet.game.physics.entity.PaddleEntity;
+import gov.ismonnet.game.physics.table.Table;
+import gov.ismonnet.netty.core.NetService;
+import gov.ismonnet.netty.packets.PaddleAckPacket;
+import gov.ismonnet.netty.packets.PaddleInputPacket;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+/**
+ * Sends the movements of the local paddle to the opponent as sequenced inputs
+ *
+ * The paddle itself is predicted locally. When the opponent acknowledges an input,
+ * the inputs it hasn't applied yet are applied again on top of the position it reported,
+ * and whatever the opponent is missing (collisions, resets, rollbacks) is sent as the next input.
+ *
+ * Only meant to be used by the physics thread.
+ */
+class PaddleReconciler {
+
+    private static final int MAX_PENDING_INPUTS = 256;
+
+    private final Table table;
+    private final NetService netService;
+    private final Provider<PaddleEntity> paddle;
+    private final Lazy<PhysicsService> physicsServiceLazy;
+
+    // Ring of the inputs which haven't been acknowledged yet
+    private final int[] pendingSequences;
+    private final float[] pendingMotions;
+    private int pendingHead, pendingSize;
+
+    // Where the opponent will put the paddle once all the inputs arrive
+    private float sentPosX, sentPosY;
+    private boolean moving;
+
+    // Sequences are sent as the distance from the previous ones
+    private int lastSentSequence;
+    private int lastAcknowledgedSequence;
+
+    @Inject PaddleReconciler(Table table,
+                             NetService netService,
+                             Provider<PaddleEntity> paddle,
+                             Lazy<PhysicsService> physicsServiceLazy) {
+        this.table = table;
+        this.netService = netService;
+        this.paddle = paddle;
+        this.physicsServiceLazy = physicsServiceLazy;
+
+        this.pendingSequences = new int[MAX_PENDING_INPUTS];
+        this.pendingMotions = new float[MAX_PENDING_INPUTS * 2];
+
+        netService.registerObj(this);
+    }
+
+    void reset() {
+        final PaddleEntity paddle = this.paddle.get();
+        this.sentPosX = paddle.getPosX();
+        this.sentPosY = paddle.getPosY();
+        this.pendingHead = this.pendingSize = 0;
+        this.moving = false;
+        this.lastSentSequence = this.lastAcknowledgedSequence = 0;
+    }
+
+    void onTick(long tick) {
+        final PaddleEntity paddle = this.paddle.get();
+        final int sequence = (int) tick;
+        // Inputs are quantized, so use what the opponent is actually going to receive
+        final PaddleInputPacket input = new PaddleInputPacket(
+                sequence - lastSentSequence,
+                paddle.getPosX() - sentPosX,
+                paddle.getPosY() - sentPosY);
+        final float motionX = input.getMotionX();
+        final float motionY = input.getMotionY();
+
+        final boolean stopped = motionX == 0 && motionY == 0;
+        if(stopped && !moving)
+            return;
+        // Send a last empty input, so that the opponent doesn't keep extrapolating the movement
+        moving = !stopped;
+
+        // Way too many unacknowledged inputs, forget the oldest
+        // and let the next acknowledgement correct it
+        if(pendingSize == MAX_PENDING_INPUTS) {
+            pendingHead = (pendingHead + 1) % MAX_PENDING_INPUTS;
+            pendingSize--;
+        }
+
+        lastSentSequence = sequence;
+        final int index = (pendingHead + pendingSize++) % MAX_PENDING_INPUTS;
+        pendingSequences[index] = sequence;
+        pendingMotions[index * 2] = motionX;
+        pendingMotions[index * 2 + 1] = motionY;
+
+        sentPosX += motionX;
+        sentPosY += motionY;
+        netService.queuePacket(input);
+    }
+
+    @Listener
+    protected EventListener<PaddleAckPacket> onAck = new SyncListener<>(packet ->
+            PaddleReconciler.this.physicsServiceLazy.get().execute(() ->
+                    PaddleReconciler.this.reconcile(packet)));
+
+    private void reconcile(PaddleAckPacket packet) {
+        lastAcknowledgedSequence += packet.getSequenceDelta();
+        // Sequences may wrap around
+        while(pendingSize > 0 && pendingSequences[pendingHead] - lastAcknowledgedSequence <= 0) {
+            pendingHead = (pendingHead + 1) % MAX_PENDING_INPUTS;
+            pendingSize--;
+        }
+
+        final float radius = paddle.get().getRadius();
+        float posX = packet.getPosX();
+        float posY = packet.getPosY();
+        for(int i = 0; i < pendingSize; i++) {
+            final int index = (pendingHead + i) % MAX_PENDING_INPUTS;
+            posX = clamp(posX + pendingMotions[index * 2], radius, table.getWidth() - radius);
+            posY = clamp(posY + pendingMotions[index * 2 + 1], radius, table.getHeight() - radius);
+        }
+
+        sentPosX = posX;
+        sentPosY = posY;
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return Math.max(min, Math.min(value, max));
+    }
+}
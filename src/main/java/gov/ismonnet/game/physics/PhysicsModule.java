@@ -1,41 +1,53 @@
 package gov.ismonnet.game.physics;
 
 import dagger.Binds;
+import dagger.Lazy;
 import dagger.Module;
 import dagger.Provides;
-import dagger.multibindings.ElementsIntoSet;
 import dagger.multibindings.IntoSet;
 import gov.ismonnet.game.GameSession;
-import gov.ismonnet.game.physics.entity.Entity;
-import gov.ismonnet.game.physics.entity.PaddleEntity;
-import gov.ismonnet.game.physics.entity.PuckEntity;
-import gov.ismonnet.game.physics.entity.WallEntity;
-
-import java.util.Set;
-import java.util.stream.Collectors;
+import gov.ismonnet.lifecycle.EagerInit;
+import gov.ismonnet.netty.core.NetService;
+import gov.ismonnet.util.TickScheduler;
 
 @Module
 public abstract class PhysicsModule {
 
+    private static final int MAX_CATCH_UP_TICKS = 10;
+
     @Binds @GameSession
     abstract PhysicsService physicsService(PhysicsServiceImpl impl);
 
-    // Colliding entities
+    @Provides @TickRate
+    static int tickRate() {
+        return 64;
+    }
+
+    // Ticks remote movements are shown late by, enough to hide about 50ms of jitter
+    @Provides @InterpolationDelay
+    static int interpolationDelay() {
+        return 6;
+    }
 
-    @Provides @GameSession @ElementsIntoSet
-    static Set<Entity> wallsInCollidingEntities(Set<WallEntity> wallEntities) {
-        return wallEntities.stream()
-                .map(Entity.class::cast)
-                .collect(Collectors.toSet());
+    @Provides @GameSession
+    static TickScheduler tickScheduler(@TickRate int tickRate) {
+        return new TickScheduler(tickRate, MAX_CATCH_UP_TICKS);
     }
 
-    @Provides @GameSession @IntoSet
-    static Entity paddleInCollidingEntities(PaddleEntity paddle) {
-        return paddle;
+    @Binds @GameSession
+    abstract BroadPhase broadPhase(UniformGrid grid);
+
+    @Provides @GameSession
+    static PuckStateCodec puckStateCodec(NetService netService,
+                                         Lazy<PhysicsService> physicsServiceLazy) {
+        return new PuckStateCodec(netService, physicsServiceLazy);
     }
 
-    @Provides @GameSession @IntoSet
-    static Entity puckInCollidingEntities(PuckEntity puck) {
-        return puck;
+    @Provides @GameSession
+    static TickOffsetEstimator tickOffsetEstimator() {
+        return new TickOffsetEstimator();
     }
+
+    @Binds @GameSession @IntoSet
+    abstract EagerInit physicsThread(PhysicsThread physicsThread);
 }
@@ -6,12 +6,41 @@ import java.util.Collection;
 
 public interface PhysicsService {
 
-    void handleTicks();
+    void tick();
+
+    // Number of ticks simulated so far
+    long getTick();
+
+    /**
+     * Restores the state the simulation had right after the given tick,
+     * which has to be one of the last ones simulated.
+     * Only meant to be called from the physics thread.
+     *
+     * @param tick tick to restore
+     * @return false if the tick isn't available anymore
+     */
+    boolean restoreSnapshot(long tick);
+
+    /**
+     * Restores the given tick, applies the correction and simulates again
+     * up to the current tick replaying the recorded inputs.
+     * Has to be called through {@link #execute(Runnable)}.
+     *
+     * @param tick tick after which the correction has to be applied
+     * @param correction changes to apply to the restored state
+     * @return false if the tick isn't available anymore, in which case nothing is changed
+     */
+    boolean rollback(long tick, Runnable correction);
+
+    // Runs the task on the physics thread before the next tick
+    void execute(Runnable task);
 
     void handleMouse(float motionX, float motionY);
 
     Collection<Entity> getEntities();
 
+    // Also updates the broad phase, so they have to run on the physics thread
+
     void spawnEntity(Entity entity);
 
     void despawnEntity(Entity entity);
@@ -1,20 +1,35 @@
 package gov.ismonnet.game.physics;
 
 import gov.ismonnet.game.physics.entity.*;
-import gov.ismonnet.util.Timer;
 import gov.ismonnet.lifecycle.LifeCycle;
 import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.core.NetService;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 class PhysicsServiceImpl implements PhysicsService, LifeCycle {
 
-    private static final int TPS = 64;
+    // A second worth of ticks at the default tick rate
+    static final int SNAPSHOT_HISTORY = 64;
 
-    private final Timer ticksTimer;
+    private final Queue<Runnable> pendingTasks;
+    private final BroadPhase broadPhase;
+    private final PaddleReconciler paddleReconciler;
+    private final NetService netService;
 
+    // Only touched by the physics thread
+    private final List<Snapshottable> snapshottables;
+    private final SnapshotRing snapshots;
+    // Paddle motion applied in each of the snapshotted ticks
+    private final float[] inputs;
+    private float inputX, inputY;
+    private long tick;
+
+    // Iterated by the renderer while the physics thread ticks
     private final List<Entity> entities;
     private final List<Entity> unmodifiableEntities;
 
@@ -24,16 +39,28 @@ class PhysicsServiceImpl implements PhysicsService, LifeCycle {
     private final Provider<MiddleLineEntity> middleLine;
     private final Provider<PuckEntity> puck;
     private final Provider<PaddleEntity> paddle;
+    private final Provider<RemotePaddleEntity> remotePaddle;
 
     @Inject PhysicsServiceImpl(Provider<Set<WallEntity>> walls,
                                Provider<GoalEntity> goal,
                                Provider<MiddleLineEntity> middleLine,
                                Provider<PuckEntity> puck,
                                Provider<PaddleEntity> paddle,
+                               Provider<RemotePaddleEntity> remotePaddle,
+                               BroadPhase broadPhase,
+                               PaddleReconciler paddleReconciler,
+                               NetService netService,
                                LifeCycleService lifeCycleService) {
-        this.ticksTimer = new Timer();
+        this.pendingTasks = new ConcurrentLinkedQueue<>();
+        this.broadPhase = broadPhase;
+        this.paddleReconciler = paddleReconciler;
+        this.netService = netService;
+
+        this.snapshottables = new ArrayList<>();
+        this.snapshots = new SnapshotRing(SNAPSHOT_HISTORY);
+        this.inputs = new float[SNAPSHOT_HISTORY * 2];
 
-        this.entities = new ArrayList<>();
+        this.entities = new CopyOnWriteArrayList<>();
         this.unmodifiableEntities = Collections.unmodifiableList(entities);
 
         this.walls = walls;
@@ -41,6 +68,7 @@ class PhysicsServiceImpl implements PhysicsService, LifeCycle {
         this.middleLine = middleLine;
         this.puck = puck;
         this.paddle = paddle;
+        this.remotePaddle = remotePaddle;
 
         lifeCycleService.register(this);
     }
@@ -52,6 +80,9 @@ class PhysicsServiceImpl implements PhysicsService, LifeCycle {
         spawnEntity(middleLine.get());
         spawnEntity(puck.get());
         spawnEntity(paddle.get());
+        spawnEntity(remotePaddle.get());
+
+        paddleReconciler.reset();
     }
 
     @Override
@@ -59,23 +90,85 @@ class PhysicsServiceImpl implements PhysicsService, LifeCycle {
     }
 
     @Override
-    public void handleTicks() {
-        final long ticks = ticksTimer.getTimePassed() / (1000 / TPS);
-        for(int i = 0; i < ticks; i++)
-            onTick();
+    public void tick() {
+        entities.forEach(Entity::updateLastTickPos);
+
+        Runnable task;
+        while((task = pendingTasks.poll()) != null)
+            task.run();
 
-        if(ticks > 0)
-            ticksTimer.reset();
+        final int input = inputIndex(tick + 1);
+        inputs[input] = inputX;
+        inputs[input + 1] = inputY;
+        inputX = inputY = 0;
+
+        step();
+
+        paddleReconciler.onTick(tick);
+        // Whatever was queued during the tick goes out together
+        netService.flushPackets();
+    }
+
+    private void step() {
+        tick++;
+
+        final int input = inputIndex(tick);
+        if(inputs[input] != 0 || inputs[input + 1] != 0) {
+            final PaddleEntity paddle = this.paddle.get();
+            paddle.setPos(paddle.getPosX() + inputs[input], paddle.getPosY() + inputs[input + 1]);
+        }
+
+        entities.forEach(Entity::tick);
+        snapshots.save(tick, snapshottables);
+    }
+
+    private static int inputIndex(long tick) {
+        return (int) (tick % SNAPSHOT_HISTORY) * 2;
     }
 
     @Override
-    public void handleMouse(float motionX, float motionY) {
-        final PaddleEntity paddle = this.paddle.get();
-        paddle.setPos(paddle.getPosX() + motionX, paddle.getPosY() + motionY);
+    public long getTick() {
+        return tick;
     }
 
-    private void onTick() {
-        entities.forEach(Entity::tick);
+    @Override
+    public boolean restoreSnapshot(long tick) {
+        if(!snapshots.restore(tick, snapshottables))
+            return false;
+        this.tick = tick;
+        return true;
+    }
+
+    @Override
+    public boolean rollback(long tick, Runnable correction) {
+        final long present = this.tick;
+        if(tick > present || !restoreSnapshot(tick))
+            return false;
+
+        correction.run();
+        snapshots.save(tick, snapshottables);
+
+        while(this.tick < present) {
+            entities.forEach(Entity::updateLastTickPos);
+            step();
+        }
+        // The present tick has already been started, so start it again from the new state
+        entities.forEach(Entity::updateLastTickPos);
+        return true;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        pendingTasks.add(task);
+    }
+
+    @Override
+    public void handleMouse(float motionX, float motionY) {
+        // Recorded and applied in the next tick, so that it can be replayed
+        execute(() -> {
+            this.inputX += motionX;
+            this.inputY += motionY;
+        });
     }
 
     @Override
@@ -86,10 +179,30 @@ class PhysicsServiceImpl implements PhysicsService, LifeCycle {
     @Override
     public void spawnEntity(Entity entity) {
         this.entities.add(entity);
+        if(!entity.isTrigger())
+            this.broadPhase.add(entity);
+        if(entity instanceof Snapshottable)
+            addSnapshottable((Snapshottable) entity);
     }
 
     @Override
     public void despawnEntity(Entity entity) {
         this.entities.remove(entity);
+        this.broadPhase.remove(entity);
+        if(entity instanceof Snapshottable && this.snapshottables.remove(entity))
+            resetSnapshots();
+    }
+
+    private void addSnapshottable(Snapshottable snapshottable) {
+        this.snapshottables.add(snapshottable);
+        resetSnapshots();
+    }
+
+    private void resetSnapshots() {
+        // The layout changed, old snapshots can't be read anymore
+        this.snapshots.reset(snapshottables.stream()
+                .mapToInt(Snapshottable::getSnapshotSize)
+                .sum());
+        this.snapshots.save(tick, snapshottables);
     }
 }
@@ -0,0 +1,73 @@
+package gov.ismonnet.game.physics;
+
+import gov.ismonnet.lifecycle.EagerInit;
+import gov.ismonnet.lifecycle.LifeCycle;
+import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.util.SneakyThrow;
+import gov.ismonnet.util.ThreadFactoryBuilder;
+import gov.ismonnet.util.TickScheduler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.inject.Inject;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+class PhysicsThread implements LifeCycle, EagerInit {
+
+    private static final Logger LOGGER = LogManager.getLogger(PhysicsThread.class);
+
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactoryBuilder()
+            .setNameFormat(i -> "Physics-" + i)
+            .setDaemon(true)
+            .build();
+
+    private final PhysicsService physicsService;
+    private final TickScheduler tickScheduler;
+    private final LifeCycleService lifeCycleService;
+
+    private Thread thread;
+
+    @Inject PhysicsThread(PhysicsService physicsService,
+                          TickScheduler tickScheduler,
+                          LifeCycleService lifeCycleService) {
+        this.physicsService = physicsService;
+        this.tickScheduler = tickScheduler;
+        this.lifeCycleService = lifeCycleService;
+
+        lifeCycleService.register(this);
+    }
+
+    @Override
+    public void start() {
+        thread = THREAD_FACTORY.newThread(this::run);
+        thread.start();
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        thread.interrupt();
+        // The lifecycle may be stopped by the physics thread itself
+        if(Thread.currentThread() != thread)
+            thread.join();
+    }
+
+    private void run() {
+        tickScheduler.reset();
+
+        try {
+            while(!Thread.currentThread().isInterrupted()) {
+                final int ticks = tickScheduler.advance();
+                for(int i = 0; i < ticks; i++)
+                    physicsService.tick();
+
+                TimeUnit.NANOSECONDS.sleep(tickScheduler.getNanosUntilNextTick());
+            }
+        } catch (InterruptedException ex) {
+            // Ignored, we are stopping
+        } catch (Throwable t) {
+            LOGGER.fatal("Error while ticking physics", t);
+            SneakyThrow.runUnchecked(lifeCycleService::stop);
+        }
+    }
+}
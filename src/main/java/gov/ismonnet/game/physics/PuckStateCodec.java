@@ -0,0 +1,152 @@
+package gov.ismonnet.game.physics;
+
+import dagger.Lazy;
+import gov.ismonnet.event.EventListener;
+import gov.ismonnet.event.Listener;
+import gov.ismonnet.event.listeners.SyncListener;
+import gov.ismonnet.netty.core.NetService;
+import gov.ismonnet.netty.packets.PuckStateAckPacket;
+import gov.ismonnet.netty.packets.PuckStatePacket;
+
+import java.util.Arrays;
+
+import static gov.ismonnet.netty.ByteBufHelper.toFixedPoint;
+
+/**
+ * Encodes the puck states sent to the opponent against the last one it acknowledged,
+ * and decodes the ones it sends back acknowledging each of them
+ *
+ * Both sides keep the states of the last 256 ticks indexed by the lowest byte of the tick,
+ * which is what the packets use to refer to their base.
+ *
+ * @see PuckStateDecoder
+ *
+ * Only meant to be used by the physics thread.
+ */
+public class PuckStateCodec {
+
+    private static final int HISTORY = PuckStateDecoder.HISTORY;
+    private static final int STATE_SIZE = PuckStateDecoder.STATE_SIZE;
+
+    private final NetService netService;
+    private final Lazy<PhysicsService> physicsServiceLazy;
+
+    private final long[] sentTicks;
+    private final int[] sentStates;
+
+    private boolean hasBase;
+    private long baseTick;
+    private final int[] baseState;
+
+    private final PuckStateDecoder decoder;
+
+    PuckStateCodec(NetService netService, Lazy<PhysicsService> physicsServiceLazy) {
+        this.netService = netService;
+        this.physicsServiceLazy = physicsServiceLazy;
+
+        this.sentTicks = new long[HISTORY];
+        this.sentStates = new int[HISTORY * STATE_SIZE];
+        this.baseState = new int[STATE_SIZE];
+
+        this.decoder = new PuckStateDecoder();
+
+        Arrays.fill(sentTicks, -1);
+
+        netService.registerObj(this);
+    }
+
+    public PuckStatePacket encode(long tick, int delay,
+                                  float posX, float posY,
+                                  float motionX, float motionY) {
+        final int index = (int) (tick % HISTORY) * STATE_SIZE;
+        sentTicks[(int) (tick % HISTORY)] = tick;
+        sentStates[index] = toFixedPoint(posX);
+        sentStates[index + 1] = toFixedPoint(posY);
+        sentStates[index + 2] = toFixedPoint(motionX);
+        sentStates[index + 3] = toFixedPoint(motionY);
+
+        // The base can only be used if it is older than the tick and still in the history
+        final long distance = tick - baseTick;
+        if(!hasBase || distance <= 0 || distance >= HISTORY)
+            return new PuckStatePacket(
+                    PuckStatePacket.NO_BASE, tick, delay,
+                    sentStates[index], sentStates[index + 1],
+                    sentStates[index + 2], sentStates[index + 3]);
+
+        return new PuckStatePacket(
+                (int) (baseTick % HISTORY), distance, delay,
+                sentStates[index] - (baseState[0] + baseState[2] * (int) distance),
+                sentStates[index + 1] - (baseState[1] + baseState[3] * (int) distance),
+                sentStates[index + 2] - baseState[2],
+                sentStates[index + 3] - baseState[3]);
+    }
+
+    /**
+     * Decodes the given packet, which can then be retrieved with the getters,
+     * and acknowledges it
+     *
+     * @param packet packet to decode
+     * @return false if the base it refers to is missing
+     */
+    public boolean decode(PuckStatePacket packet) {
+        if(!decoder.decode(packet))
+            return false;
+
+        netService.queuePacket(new PuckStateAckPacket(decoder.getDecodedTick()));
+        return true;
+    }
+
+    /**
+     * Returns true if the opponent acknowledged the state sent for the given tick or a later one
+     *
+     * @param tick tick of the sent state
+     * @return true if it has been received
+     */
+    public boolean isAcknowledged(long tick) {
+        return hasBase && baseTick >= tick;
+    }
+
+    @Listener
+    protected EventListener<PuckStateAckPacket> onAck = new SyncListener<>(packet ->
+            PuckStateCodec.this.physicsServiceLazy.get().execute(() ->
+                    PuckStateCodec.this.acknowledge(packet.getTick())));
+
+    private void acknowledge(long tick) {
+        final int index = (int) (tick % HISTORY);
+        if(sentTicks[index] != tick || (hasBase && tick <= baseTick))
+            return;
+
+        hasBase = true;
+        baseTick = tick;
+        System.arraycopy(sentStates, index * STATE_SIZE, baseState, 0, STATE_SIZE);
+    }
+
+    // False if the last decoded state is older than one already decoded
+    public boolean isDecodedLatest() {
+        return decoder.isLatest();
+    }
+
+    public long getDecodedTick() {
+        return decoder.getDecodedTick();
+    }
+
+    public int getDecodedDelay() {
+        return decoder.getDecodedDelay();
+    }
+
+    public float getDecodedPosX() {
+        return decoder.getDecodedPosX();
+    }
+
+    public float getDecodedPosY() {
+        return decoder.getDecodedPosY();
+    }
+
+    public float getDecodedMotionX() {
+        return decoder.getDecodedMotionX();
+    }
+
+    public float getDecodedMotionY() {
+        return decoder.getDecodedMotionY();
+    }
+}
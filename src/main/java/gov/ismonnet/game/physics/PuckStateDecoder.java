@@ -0,0 +1,135 @@
+package gov.ismonnet.game.physics;
+
+import gov.ismonnet.netty.packets.PuckStatePacket;
+
+import java.util.Arrays;
+
+import static gov.ismonnet.netty.ByteBufHelper.fromFixedPoint;
+
+/**
+ * Decodes the puck states sent by one side against the ones it sent before
+ *
+ * It keeps the states of the last 256 decoded ticks indexed by the lowest byte of the tick,
+ * which is what the packets use to refer to their base. Whoever sees every packet sent by a side,
+ * like the receiver or a server relaying them, can decode them.
+ *
+ * Not thread safe.
+ */
+public class PuckStateDecoder {
+
+    static final int HISTORY = 256;
+    static final int STATE_SIZE = 4;
+
+    private final long[] receivedTicks;
+    private final int[] receivedStates;
+
+    private long decodedTick;
+    private int decodedDelay;
+    private final int[] decodedState;
+
+    // Newest tick decoded so far
+    private long latestTick;
+    private boolean isLatest;
+
+    public PuckStateDecoder() {
+        this.receivedTicks = new long[HISTORY];
+        this.receivedStates = new int[HISTORY * STATE_SIZE];
+        this.decodedState = new int[STATE_SIZE];
+        this.decodedTick = -1;
+        this.latestTick = -1;
+
+        Arrays.fill(receivedTicks, -1);
+    }
+
+    /**
+     * Decodes the given packet, which can then be retrieved with the getters
+     *
+     * @param packet packet to decode
+     * @return false if the base it refers to is missing
+     */
+    public boolean decode(PuckStatePacket packet) {
+        if(!packet.hasBase()) {
+            decodedTick = packet.getTick();
+            decodedState[0] = packet.getPosX();
+            decodedState[1] = packet.getPosY();
+            decodedState[2] = packet.getMotionX();
+            decodedState[3] = packet.getMotionY();
+        } else {
+            final long baseTick = receivedTicks[packet.getBase()];
+            if(baseTick < 0)
+                return false;
+
+            final int base = packet.getBase() * STATE_SIZE;
+            final int distance = (int) packet.getTick();
+            decodedTick = baseTick + distance;
+            decodedState[0] = receivedStates[base] + receivedStates[base + 2] * distance + packet.getPosX();
+            decodedState[1] = receivedStates[base + 1] + receivedStates[base + 3] * distance + packet.getPosY();
+            decodedState[2] = receivedStates[base + 2] + packet.getMotionX();
+            decodedState[3] = receivedStates[base + 3] + packet.getMotionY();
+        }
+        decodedDelay = packet.getDelay();
+
+        final int index = (int) (decodedTick % HISTORY);
+        receivedTicks[index] = decodedTick;
+        System.arraycopy(decodedState, 0, receivedStates, index * STATE_SIZE, STATE_SIZE);
+
+        isLatest = decodedTick > latestTick;
+        if(isLatest)
+            latestTick = decodedTick;
+        return true;
+    }
+
+    /**
+     * Returns true if the last decoded state is newer than all the ones decoded before it
+     *
+     * Handoffs are sent again until they are acknowledged, so a state may arrive
+     * once more after newer ones, when only its acknowledgement was lost.
+     *
+     * @return false if the last decoded state is a stale one
+     */
+    public boolean isLatest() {
+        return isLatest;
+    }
+
+    // False until the first packet has been decoded
+    public boolean hasDecoded() {
+        return decodedTick >= 0;
+    }
+
+    /**
+     * Returns the last decoded state encoded without a base,
+     * so that it can be read by someone which didn't see the previous ones
+     *
+     * @return packet containing the last decoded state
+     */
+    public PuckStatePacket toAbsolutePacket() {
+        return new PuckStatePacket(
+                PuckStatePacket.NO_BASE, decodedTick, decodedDelay,
+                decodedState[0], decodedState[1],
+                decodedState[2], decodedState[3]);
+    }
+
+    public long getDecodedTick() {
+        return decodedTick;
+    }
+
+    public int getDecodedDelay() {
+        return decodedDelay;
+    }
+
+    public float getDecodedPosX() {
+        return fromFixedPoint(decodedState[0]);
+    }
+
+    public float getDecodedPosY() {
+        return fromFixedPoint(decodedState[1]);
+    }
+
+    public float getDecodedMotionX() {
+        return fromFixedPoint(decodedState[2]);
+    }
+
+    public float getDecodedMotionY() {
+        return fromFixedPoint(decodedState[3]);
+    }
+}
@@ -0,0 +1,38 @@
+package gov.ismonnet.game.physics;
+
+import java.util.Arrays;
+
+/**
+ * Ticks in which something was sent to the opponent
+ *
+ * A rollback simulates again ticks which have already been simulated once: what was sent
+ * the first time mustn't go out twice, but what only happens in the corrected run
+ * has never been sent and still has to be. Only the ticks which can still be rolled back
+ * are remembered.
+ *
+ * Only meant to be used by the physics thread.
+ */
+public class SentTicks {
+
+    private final long[] ticks;
+
+    public SentTicks() {
+        this.ticks = new long[PhysicsServiceImpl.SNAPSHOT_HISTORY];
+        Arrays.fill(ticks, -1);
+    }
+
+    /**
+     * Marks the given tick as sent
+     *
+     * @param tick tick in which something is being sent
+     * @return false if something had already been sent in it
+     */
+    public boolean add(long tick) {
+        final int index = (int) (tick % ticks.length);
+        if(ticks[index] == tick)
+            return false;
+
+        ticks[index] = tick;
+        return true;
+    }
+}
@@ -0,0 +1,63 @@
+package gov.ismonnet.game.physics;
+
+import gov.ismonnet.game.physics.entity.Snapshottable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the snapshots of the last ticks in a single preallocated buffer,
+ * so that saving and restoring don't allocate
+ */
+class SnapshotRing {
+
+    private final int capacity;
+    private final long[] ticks;
+
+    private float[] buffer;
+    private int stride;
+
+    SnapshotRing(int capacity) {
+        this.capacity = capacity;
+        this.ticks = new long[capacity];
+        reset(0);
+    }
+
+    // Has to be called every time the snapshotted objects change
+    void reset(int stride) {
+        this.stride = stride;
+        if(buffer == null || buffer.length < capacity * stride)
+            this.buffer = new float[capacity * stride];
+        Arrays.fill(ticks, -1);
+    }
+
+    void save(long tick, List<Snapshottable> snapshottables) {
+        final int slot = (int) (tick % capacity);
+        ticks[slot] = tick;
+
+        int offset = slot * stride;
+        for(int i = 0; i < snapshottables.size(); i++) {
+            final Snapshottable snapshottable = snapshottables.get(i);
+            snapshottable.writeSnapshot(buffer, offset);
+            offset += snapshottable.getSnapshotSize();
+        }
+    }
+
+    boolean restore(long tick, List<Snapshottable> snapshottables) {
+        final int slot = (int) (tick % capacity);
+        if(tick < 0 || ticks[slot] != tick)
+            return false;
+
+        int offset = slot * stride;
+        for(int i = 0; i < snapshottables.size(); i++) {
+            final Snapshottable snapshottable = snapshottables.get(i);
+            snapshottable.readSnapshot(buffer, offset);
+            offset += snapshottable.getSnapshotSize();
+        }
+        return true;
+    }
+
+    boolean contains(long tick) {
+        return tick >= 0 && ticks[(int) (tick % capacity)] == tick;
+    }
+}
@@ -0,0 +1,79 @@
+package gov.ismonnet.game.physics;
+
+import gov.ismonnet.netty.packets.PuckStatePacket;
+
+/**
+ * Estimates which local tick a tick of the opponent corresponds to
+ *
+ * The delay measured by each side is the one-way latency plus or minus
+ * the offset between the two tick counters, so if the link is symmetric
+ * the offset is half the difference of the two delays.
+ *
+ * Only meant to be used by the physics thread.
+ */
+public class TickOffsetEstimator {
+
+    private static final float SMOOTHING = 0.25F;
+
+    private int lastDelay = PuckStatePacket.UNKNOWN_DELAY;
+
+    private boolean estimated;
+    private float offset;
+    private float latency;
+
+    public void onReceive(long remoteTick, int remoteDelay, long localTick) {
+        lastDelay = (int) (localTick - remoteTick);
+        if(remoteDelay == PuckStatePacket.UNKNOWN_DELAY)
+            return;
+
+        final float newOffset = (lastDelay - remoteDelay) / 2F;
+        final float newLatency = Math.max(0, (lastDelay + remoteDelay) / 2F);
+        if(!estimated) {
+            offset = newOffset;
+            latency = newLatency;
+            estimated = true;
+            return;
+        }
+
+        offset += (newOffset - offset) * SMOOTHING;
+        latency += (newLatency - latency) * SMOOTHING;
+    }
+
+    /**
+     * Maps a tick of the opponent to the local one.
+     * Until there is an estimate, or if the estimate points in the future,
+     * the packet is assumed to be describing the current tick.
+     */
+    public long toLocalTick(long remoteTick, long localTick) {
+        if(!estimated)
+            return localTick;
+        return Math.min(localTick, remoteTick + Math.round(offset));
+    }
+
+    // Delay to send back to the opponent
+    public int getLastDelay() {
+        return lastDelay;
+    }
+
+    public boolean isEstimated() {
+        return estimated;
+    }
+
+    public float getOffset() {
+        return offset;
+    }
+
+    public float getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return "TickOffsetEstimator{" +
+                "lastDelay=" + lastDelay +
+                ", estimated=" + estimated +
+                ", offset=" + offset +
+                ", latency=" + latency +
+                '}';
+    }
+}
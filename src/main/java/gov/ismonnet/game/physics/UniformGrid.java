@@ -0,0 +1,131 @@
+package gov.ismonnet.game.physics;
+
+import gov.ismonnet.game.physics.entity.Entity;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Broad phase which hashes the entities in each of the fixed size cells their bounds cover
+ *
+ * Cells are hashed in a fixed number of buckets, so entities outside of the table don't need
+ * special handling. Each query gets a new stamp which is used to only report an entity once,
+ * even if it's in more than one of the queried cells.
+ */
+class UniformGrid implements BroadPhase {
+
+    private static final float CELL_SIZE = 128;
+    // Has to be a power of 2
+    private static final int BUCKETS = 256;
+
+    private final List<List<Entity>> buckets;
+    private final Map<Entity, CellRange> ranges;
+
+    private int queryStamp;
+
+    @Inject UniformGrid() {
+        this.buckets = new ArrayList<>(BUCKETS);
+        for(int i = 0; i < BUCKETS; i++)
+            this.buckets.add(new ArrayList<>());
+        this.ranges = new IdentityHashMap<>();
+    }
+
+    @Override
+    public void add(Entity entity) {
+        if(ranges.containsKey(entity))
+            return;
+
+        final CellRange range = new CellRange();
+        range.set(entity);
+        ranges.put(entity, range);
+        insert(entity, range);
+    }
+
+    @Override
+    public void remove(Entity entity) {
+        final CellRange range = ranges.remove(entity);
+        if(range != null)
+            erase(entity, range);
+    }
+
+    @Override
+    public void update(Entity entity) {
+        final CellRange range = ranges.get(entity);
+        if(range == null || range.matches(entity))
+            return;
+
+        erase(entity, range);
+        range.set(entity);
+        insert(entity, range);
+    }
+
+    @Override
+    public void query(float minX, float minY, float maxX, float maxY, List<Entity> out) {
+        final int stamp = ++queryStamp;
+
+        final int minCellX = cell(minX), maxCellX = cell(maxX);
+        final int minCellY = cell(minY), maxCellY = cell(maxY);
+
+        for(int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for(int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                final List<Entity> bucket = buckets.get(bucket(cellX, cellY));
+                for(int i = 0; i < bucket.size(); i++) {
+                    final Entity entity = bucket.get(i);
+                    final CellRange range = ranges.get(entity);
+                    if(range.stamp == stamp)
+                        continue;
+                    range.stamp = stamp;
+
+                    if(entity.getMinX() <= maxX && entity.getMaxX() >= minX &&
+                            entity.getMinY() <= maxY && entity.getMaxY() >= minY)
+                        out.add(entity);
+                }
+            }
+        }
+    }
+
+    private void insert(Entity entity, CellRange range) {
+        for(int cellX = range.minCellX; cellX <= range.maxCellX; cellX++)
+            for(int cellY = range.minCellY; cellY <= range.maxCellY; cellY++)
+                buckets.get(bucket(cellX, cellY)).add(entity);
+    }
+
+    private void erase(Entity entity, CellRange range) {
+        for(int cellX = range.minCellX; cellX <= range.maxCellX; cellX++)
+            for(int cellY = range.minCellY; cellY <= range.maxCellY; cellY++)
+                buckets.get(bucket(cellX, cellY)).remove(entity);
+    }
+
+    private static int cell(float coord) {
+        return (int) Math.floor(coord / CELL_SIZE);
+    }
+
+    private static int bucket(int cellX, int cellY) {
+        return (cellX * 73856093 ^ cellY * 19349663) & (BUCKETS - 1);
+    }
+
+    private static class CellRange {
+
+        int minCellX, minCellY;
+        int maxCellX, maxCellY;
+
+        int stamp;
+
+        void set(Entity entity) {
+            minCellX = cell(entity.getMinX());
+            minCellY = cell(entity.getMinY());
+            maxCellX = cell(entity.getMaxX());
+            maxCellY = cell(entity.getMaxY());
+        }
+
+        boolean matches(Entity entity) {
+            return minCellX == cell(entity.getMinX()) &&
+                    minCellY == cell(entity.getMinY()) &&
+                    maxCellX == cell(entity.getMaxX()) &&
+                    maxCellY == cell(entity.getMaxY());
+        }
+    }
+}
@@ -1,119 +1,112 @@
 package gov.ismonnet.game.physics.collider;
 
 import java.awt.geom.Rectangle2D;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.function.DoubleSupplier;
 
 public class CircleCollider implements Collider {
 
-    private final DoubleSupplier xPos;
-    private final DoubleSupplier yPos;
-    private final DoubleSupplier radius;
+    private float xPos;
+    private float yPos;
+    private float radius;
 
-    private float oldRadius;
-    private Collider currCollider;
+    // Only used for debug drawing
+    private final Rectangle2D.Float boundingBox;
+    private final List<Rectangle2D> boundingBoxList;
 
-    public CircleCollider(DoubleSupplier xPos,
-                          DoubleSupplier yPos,
-                          DoubleSupplier radius) {
+    private final Collision scratch;
+
+    public CircleCollider(float xPos, float yPos, float radius) {
+        this.boundingBox = new Rectangle2D.Float();
+        this.boundingBoxList = Collections.singletonList(boundingBox);
+        this.scratch = new Collision();
+
+        this.radius = radius;
+        setPos(xPos, yPos);
+    }
+
+    public void setPos(float xPos, float yPos) {
         this.xPos = xPos;
         this.yPos = yPos;
+        this.boundingBox.setRect(xPos - radius, yPos - radius, 2 * radius, 2 * radius);
+    }
+
+    public void setRadius(float radius) {
         this.radius = radius;
+        setPos(xPos, yPos);
+    }
 
-        makeCollider();
+    @Override
+    public boolean collidesWith(Collider collider) {
+        return getCollision(collider, scratch);
     }
 
-    public CircleCollider(float xPos, float yPos, float radius) {
-        this(() -> xPos, () -> yPos, () -> radius);
+    @Override
+    public boolean getCollision(Collider collider, Collision out) {
+        return collider.getCollisionWithCircle(xPos, yPos, radius, out);
     }
 
-    private void makeCollider() {
-        float radius = (float) this.radius.getAsDouble();
-        final float diameter = 2F * radius;
-        final float radiusStep = diameter / 50;
-
-        final List<Collider> colliders = new ArrayList<>();
-        for(int i = 0; (i + 1) * radiusStep < diameter; i++) {
-            {
-                final float yRelPos = i * radiusStep;
-                final float height = radiusStep;
-                // Circle equation => pow(x – h, 2) + pow(y – k, 2) = pow(r, 2)
-                // where center(h, k), radius is r
-                // If we use (0, 0) as center we can substitute (yRelPos + height) as y
-                // So pow(x, 2) + pow(y, 2) = pow(r, 2)
-                // x = +- sqrt(pow(r, 2) - pow(y, 2))
-                final float xRelPos = (float) Math.sqrt(Math.pow(radius, 2) - Math.pow(yRelPos + height, 2));
-                final float width = 2 * xRelPos;
-
-                colliders.add(new QuadCollider(
-                        () -> xPos.getAsDouble() - xRelPos,
-                        () -> yPos.getAsDouble() + yRelPos,
-                        () -> width,
-                        () -> height));
-                colliders.add(new QuadCollider(
-                        () -> xPos.getAsDouble() - xRelPos,
-                        () -> yPos.getAsDouble() - yRelPos - height,
-                        () -> width,
-                        () -> height));
-            }
-
-            final float xRelPos = i * radiusStep;
-            final float width = radiusStep;
-
-            final float yRelPos = (float) Math.sqrt(Math.pow(radius, 2) - Math.pow(xRelPos + width, 2));
-            final float height = 2 * yRelPos;
-
-            colliders.add(new QuadCollider(
-                    () -> xPos.getAsDouble() + xRelPos,
-                    () -> yPos.getAsDouble() - yRelPos,
-                    () -> width,
-                    () -> height));
-            colliders.add(new QuadCollider(
-                    () -> xPos.getAsDouble() - xRelPos - width,
-                    () -> yPos.getAsDouble() - yRelPos,
-                    () -> width,
-                    () -> height));
-        }
-
-        this.currCollider = new CompositeCollider(colliders);
-        this.oldRadius = radius;
+    @Override
+    public boolean getCollisionWithCircle(float x, float y, float radius, Collision out) {
+        return Collision.circleWithCircle(x, y, radius, xPos, yPos, this.radius, out);
     }
 
-    private Collider getCurrCollider() {
-        if(oldRadius != (float) radius.getAsDouble())
-            makeCollider();
-        return currCollider;
+    @Override
+    public boolean getCollisionWithQuad(float x, float y, float width, float height, Collision out) {
+        if(!Collision.circleWithQuad(xPos, yPos, radius, x, y, width, height, out))
+            return false;
+        out.negate();
+        return true;
     }
 
     @Override
-    public boolean collidesWith(Collider collider) {
-        return getCurrCollider().collidesWith(collider);
+    public boolean sweepCircle(float x, float y, float radius, float motionX, float motionY, SweptCollision out) {
+        return SweptCollision.circleWithCircle(x, y, radius, motionX, motionY, xPos, yPos, this.radius, out);
+    }
+
+    @Override
+    public float getMinX() {
+        return xPos - radius;
+    }
+
+    @Override
+    public float getMinY() {
+        return yPos - radius;
+    }
+
+    @Override
+    public float getMaxX() {
+        return xPos + radius;
     }
 
     @Override
-    public Rectangle2D getCollision(Collider collider) {
-        return getCurrCollider().getCollision(collider);
+    public float getMaxY() {
+        return yPos + radius;
     }
 
     @Override
     public Collection<Rectangle2D> getAxisAlignedBBs() {
-        return getCurrCollider().getAxisAlignedBBs();
+        return boundingBoxList;
     }
 
     @Override
     public String toGeogebra() {
-        return getCurrCollider().toGeogebra();
+        return "Circle(" +
+                "(" +
+                xPos + "," +
+                yPos +
+                "), " +
+                radius +
+                ")";
     }
 
     @Override
     public String toString() {
         return "CircleCollider{" +
-                "xPos=" + xPos.getAsDouble() +
-                ", yPos=" + yPos.getAsDouble() +
-                ", radius=" + radius.getAsDouble() +
-                ", actualCollider=" + getCurrCollider() +
+                "xPos=" + xPos +
+                ", yPos=" + yPos +
+                ", radius=" + radius +
                 '}';
     }
 }
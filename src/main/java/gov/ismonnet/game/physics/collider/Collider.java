@@ -7,7 +7,27 @@ public interface Collider {
 
     boolean collidesWith(Collider collider);
 
-    Rectangle2D getCollision(Collider collider);
+    // Results are written in the given object, the returned value is whether there was a collision
+
+    boolean getCollision(Collider collider, Collision out);
+
+    // Double dispatch, the returned normal is the one of the given shape
+
+    boolean getCollisionWithCircle(float x, float y, float radius, Collision out);
+
+    boolean getCollisionWithQuad(float x, float y, float width, float height, Collision out);
+
+    boolean sweepCircle(float x, float y, float radius, float motionX, float motionY, SweptCollision out);
+
+    // Bounds used by the broad phase
+
+    float getMinX();
+
+    float getMinY();
+
+    float getMaxX();
+
+    float getMaxY();
 
     Collection<Rectangle2D> getAxisAlignedBBs();
 
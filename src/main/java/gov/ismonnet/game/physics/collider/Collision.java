@@ -0,0 +1,126 @@
+package gov.ismonnet.game.physics.collider;
+
+/**
+ * Result of a narrow-phase test between two colliders
+ *
+ * The normal is the unit vector along which the tested collider has to be moved
+ * to stop overlapping, while the depth is the distance it has to be moved by.
+ *
+ * Instances are meant to be reused, so tests write in the one they are given.
+ */
+public class Collision {
+
+    private float normalX;
+    private float normalY;
+    private float depth;
+
+    public Collision() {
+    }
+
+    public Collision(float normalX, float normalY, float depth) {
+        set(normalX, normalY, depth);
+    }
+
+    public float getNormalX() {
+        return normalX;
+    }
+
+    public float getNormalY() {
+        return normalY;
+    }
+
+    public float getDepth() {
+        return depth;
+    }
+
+    public boolean set(float normalX, float normalY, float depth) {
+        this.normalX = normalX;
+        this.normalY = normalY;
+        this.depth = depth;
+        return true;
+    }
+
+    public Collision negate() {
+        this.normalX = -normalX;
+        this.normalY = -normalY;
+        return this;
+    }
+
+    public static boolean circleWithCircle(float x, float y, float radius,
+                                           float otherX, float otherY, float otherRadius,
+                                           Collision out) {
+        final float diffX = x - otherX;
+        final float diffY = y - otherY;
+        final float radiusSum = radius + otherRadius;
+
+        final float distSq = diffX * diffX + diffY * diffY;
+        if(distSq >= radiusSum * radiusSum)
+            return false;
+
+        final float dist = (float) Math.sqrt(distSq);
+        // Concentric circles, any direction works
+        if(dist == 0)
+            return out.set(1, 0, radiusSum);
+        return out.set(diffX / dist, diffY / dist, radiusSum - dist);
+    }
+
+    public static boolean circleWithQuad(float x, float y, float radius,
+                                         float quadX, float quadY, float width, float height,
+                                         Collision out) {
+        final float maxX = quadX + width;
+        final float maxY = quadY + height;
+        // Closest point of the quad to the center of the circle
+        final float closestX = Math.max(quadX, Math.min(x, maxX));
+        final float closestY = Math.max(quadY, Math.min(y, maxY));
+
+        final float diffX = x - closestX;
+        final float diffY = y - closestY;
+        final float distSq = diffX * diffX + diffY * diffY;
+
+        if(distSq > 0) {
+            if(distSq >= radius * radius)
+                return false;
+
+            final float dist = (float) Math.sqrt(distSq);
+            return out.set(diffX / dist, diffY / dist, radius - dist);
+        }
+
+        // The center is inside the quad, push it out from the closest side
+        final float left = x - quadX;
+        final float right = maxX - x;
+        final float top = y - quadY;
+        final float bottom = maxY - y;
+
+        final float min = Math.min(Math.min(left, right), Math.min(top, bottom));
+        if(min == left)
+            return out.set(-1, 0, left + radius);
+        if(min == right)
+            return out.set(1, 0, right + radius);
+        if(min == top)
+            return out.set(0, -1, top + radius);
+        return out.set(0, 1, bottom + radius);
+    }
+
+    public static boolean quadWithQuad(float x, float y, float width, float height,
+                                       float otherX, float otherY, float otherWidth, float otherHeight,
+                                       Collision out) {
+        final float overlapX = Math.min(x + width, otherX + otherWidth) - Math.max(x, otherX);
+        final float overlapY = Math.min(y + height, otherY + otherHeight) - Math.max(y, otherY);
+
+        if(overlapX <= 0 || overlapY <= 0)
+            return false;
+
+        if(overlapX < overlapY)
+            return out.set(x + width / 2 < otherX + otherWidth / 2 ? -1 : 1, 0, overlapX);
+        return out.set(0, y + height / 2 < otherY + otherHeight / 2 ? -1 : 1, overlapY);
+    }
+
+    @Override
+    public String toString() {
+        return "Collision{" +
+                "normalX=" + normalX +
+                ", normalY=" + normalY +
+                ", depth=" + depth +
+                '}';
+    }
+}
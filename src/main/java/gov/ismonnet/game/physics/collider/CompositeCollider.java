@@ -1,37 +1,104 @@
 package gov.ismonnet.game.physics.collider;
 
 import java.awt.geom.Rectangle2D;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class CompositeCollider implements Collider {
 
-    private final List<Collider> colliders;
+    // An array, so that iterating it in the queries doesn't allocate
+    private final Collider[] colliders;
     private final List<Rectangle2D> collisionBoxes;
 
+    private final SweptCollision scratch;
+
     public CompositeCollider(Collection<Collider> colliders) {
-        this.colliders = new ArrayList<>(colliders);
+        this.colliders = colliders.toArray(new Collider[0]);
         this.collisionBoxes = colliders.stream()
                 .map(Collider::getAxisAlignedBBs)
                 .flatMap(Collection::stream)
                 .collect(Collectors.toList());
+        this.scratch = new SweptCollision();
     }
 
     @Override
     public boolean collidesWith(Collider collider) {
-        return getCollision(collider) != null;
+        for(Collider internalCollider : colliders)
+            if(internalCollider.collidesWith(collider))
+                return true;
+        return false;
+    }
+
+    @Override
+    public boolean getCollision(Collider collider, Collision out) {
+        for(Collider internalCollider : colliders)
+            if(internalCollider.getCollision(collider, out))
+                return true;
+        return false;
     }
 
     @Override
-    public Rectangle2D getCollision(Collider collider) {
+    public boolean getCollisionWithCircle(float x, float y, float radius, Collision out) {
+        for(Collider internalCollider : colliders)
+            if(internalCollider.getCollisionWithCircle(x, y, radius, out))
+                return true;
+        return false;
+    }
+
+    @Override
+    public boolean getCollisionWithQuad(float x, float y, float width, float height, Collision out) {
+        for(Collider internalCollider : colliders)
+            if(internalCollider.getCollisionWithQuad(x, y, width, height, out))
+                return true;
+        return false;
+    }
+
+    @Override
+    public boolean sweepCircle(float x, float y, float radius, float motionX, float motionY, SweptCollision out) {
+        boolean hit = false;
         for(Collider internalCollider : colliders) {
-            final Rectangle2D res = internalCollider.getCollision(collider);
-            if(res != null)
-                return res;
+            if(!internalCollider.sweepCircle(x, y, radius, motionX, motionY, scratch))
+                continue;
+            // Keep the earliest one
+            if(!hit || scratch.getTime() < out.getTime())
+                out.set(scratch);
+            hit = true;
         }
-        return null;
+        return hit;
+    }
+
+    @Override
+    public float getMinX() {
+        float min = Float.POSITIVE_INFINITY;
+        for(Collider internalCollider : colliders)
+            min = Math.min(min, internalCollider.getMinX());
+        return min;
+    }
+
+    @Override
+    public float getMinY() {
+        float min = Float.POSITIVE_INFINITY;
+        for(Collider internalCollider : colliders)
+            min = Math.min(min, internalCollider.getMinY());
+        return min;
+    }
+
+    @Override
+    public float getMaxX() {
+        float max = Float.NEGATIVE_INFINITY;
+        for(Collider internalCollider : colliders)
+            max = Math.max(max, internalCollider.getMaxX());
+        return max;
+    }
+
+    @Override
+    public float getMaxY() {
+        float max = Float.NEGATIVE_INFINITY;
+        for(Collider internalCollider : colliders)
+            max = Math.max(max, internalCollider.getMaxY());
+        return max;
     }
 
     @Override
@@ -41,7 +108,7 @@ public class CompositeCollider implements Collider {
 
     @Override
     public String toGeogebra() {
-        return "ESEGUI({\"" + colliders.stream()
+        return "ESEGUI({\"" + Arrays.stream(colliders)
                 .map(Collider::toGeogebra)
                 .collect(Collectors.joining("\", \"")) + "\"})";
     }
@@ -49,7 +116,7 @@ public class CompositeCollider implements Collider {
     @Override
     public String toString() {
         return "CompositeCollider{" +
-                "colliders=" + colliders +
+                "colliders=" + Arrays.toString(colliders) +
                 '}';
     }
 }
@@ -1,67 +1,95 @@
 package gov.ismonnet.game.physics.collider;
 
-import gov.ismonnet.util.SuppliedRectangle2D;
-
 import java.awt.geom.Rectangle2D;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.function.DoubleSupplier;
 
 public class QuadCollider implements Collider {
 
-    private final DoubleSupplier xPos;
-    private final DoubleSupplier yPos;
-    private final DoubleSupplier width;
-    private final DoubleSupplier height;
+    private float xPos;
+    private float yPos;
+    private float width;
+    private float height;
 
-    private final Rectangle2D collisionBox;
+    private final Rectangle2D.Float collisionBox;
     private final List<Rectangle2D> collisionBoxList;
 
-    public QuadCollider(DoubleSupplier xPos,
-                        DoubleSupplier yPos,
-                        DoubleSupplier width,
-                        DoubleSupplier height) {
-        this.xPos = xPos;
-        this.yPos = yPos;
-        this.width = width;
-        this.height = height;
-
-        collisionBox = new SuppliedRectangle2D(xPos, yPos, width, height);
-        collisionBoxList = Collections.singletonList(collisionBox);
-    }
-
-    @SuppressWarnings("SuspiciousNameCombination")
-    public QuadCollider(DoubleSupplier xPos,
-                        DoubleSupplier yPos,
-                        DoubleSupplier width) {
-        this(xPos, yPos, width, width);
-    }
+    private final Collision scratch;
 
     public QuadCollider(float xPos,
                         float yPos,
                         float width,
                         float height) {
-        this(() -> xPos, () -> yPos, () -> width, () -> height);
+        this.collisionBox = new Rectangle2D.Float();
+        this.collisionBoxList = Collections.singletonList(collisionBox);
+        this.scratch = new Collision();
+
+        set(xPos, yPos, width, height);
     }
 
+    @SuppressWarnings("SuspiciousNameCombination")
     public QuadCollider(float xPos,
                         float yPos,
                         float width) {
-        this(() -> xPos, () -> yPos, () -> width);
+        this(xPos, yPos, width, width);
+    }
+
+    public void set(float xPos, float yPos, float width, float height) {
+        this.xPos = xPos;
+        this.yPos = yPos;
+        this.width = width;
+        this.height = height;
+        this.collisionBox.setRect(xPos, yPos, width, height);
+    }
+
+    public void setPos(float xPos, float yPos) {
+        set(xPos, yPos, width, height);
     }
 
     @Override
     public boolean collidesWith(Collider collider) {
-        return getCollision(collider) != null;
+        return getCollision(collider, scratch);
+    }
+
+    @Override
+    public boolean getCollision(Collider collider, Collision out) {
+        return collider.getCollisionWithQuad(xPos, yPos, width, height, out);
+    }
+
+    @Override
+    public boolean getCollisionWithCircle(float x, float y, float radius, Collision out) {
+        return Collision.circleWithQuad(x, y, radius, xPos, yPos, width, height, out);
+    }
+
+    @Override
+    public boolean getCollisionWithQuad(float x, float y, float width, float height, Collision out) {
+        return Collision.quadWithQuad(x, y, width, height, xPos, yPos, this.width, this.height, out);
+    }
+
+    @Override
+    public boolean sweepCircle(float x, float y, float radius, float motionX, float motionY, SweptCollision out) {
+        return SweptCollision.circleWithQuad(x, y, radius, motionX, motionY, xPos, yPos, width, height, out);
+    }
+
+    @Override
+    public float getMinX() {
+        return xPos;
+    }
+
+    @Override
+    public float getMinY() {
+        return yPos;
+    }
+
+    @Override
+    public float getMaxX() {
+        return xPos + width;
     }
 
     @Override
-    public Rectangle2D getCollision(Collider collider) {
-        for(Rectangle2D rect : collider.getAxisAlignedBBs())
-            if(rect.intersects(collisionBox))
-                return rect;
-        return null;
+    public float getMaxY() {
+        return yPos + height;
     }
 
     @Override
@@ -73,20 +101,20 @@ public class QuadCollider implements Collider {
     public String toGeogebra() {
         return "Polygon(" +
                 "(" +
-                xPos.getAsDouble() + "," +
-                yPos.getAsDouble() +
+                xPos + "," +
+                yPos +
                 "), " +
                 "(" +
-                (xPos.getAsDouble() + width.getAsDouble()) + "," +
-                yPos.getAsDouble() +
+                (xPos + width) + "," +
+                yPos +
                 "), " +
                 "(" +
-                (xPos.getAsDouble() + width.getAsDouble()) + "," +
-                (yPos.getAsDouble() + height.getAsDouble()) +
+                (xPos + width) + "," +
+                (yPos + height) +
                 "), " +
                 "(" +
-                xPos.getAsDouble() + "," +
-                (yPos.getAsDouble() + height.getAsDouble()) +
+                xPos + "," +
+                (yPos + height) +
                 ")" +
                 ")";
     }
@@ -94,11 +122,10 @@ public class QuadCollider implements Collider {
     @Override
     public String toString() {
         return "QuadCollider{" +
-                "xPos=" + xPos.getAsDouble() +
-                ", yPos=" + yPos.getAsDouble() +
-                ", width=" + width.getAsDouble() +
-                ", height=" + height.getAsDouble() +
-                ", collisionBox=" + collisionBox +
+                "xPos=" + xPos +
+                ", yPos=" + yPos +
+                ", width=" + width +
+                ", height=" + height +
                 '}';
     }
 }
@@ -0,0 +1,178 @@
+package gov.ismonnet.game.physics.collider;
+
+/**
+ * Result of a continuous test between a moving circle and a collider
+ *
+ * The time is the fraction of the displacement after which the two shapes start touching,
+ * while the normal is the one of the moving circle at the contact point.
+ * The depth is only set if the shapes were already overlapping before moving.
+ *
+ * Instances are meant to be reused, so tests write in the one they are given.
+ */
+public class SweptCollision {
+
+    private float time;
+    private float normalX;
+    private float normalY;
+    private float depth;
+
+    public SweptCollision() {
+    }
+
+    public SweptCollision(float time, float normalX, float normalY, float depth) {
+        set(time, normalX, normalY, depth);
+    }
+
+    public float getTime() {
+        return time;
+    }
+
+    public float getNormalX() {
+        return normalX;
+    }
+
+    public float getNormalY() {
+        return normalY;
+    }
+
+    public float getDepth() {
+        return depth;
+    }
+
+    public boolean set(float time, float normalX, float normalY, float depth) {
+        this.time = time;
+        this.normalX = normalX;
+        this.normalY = normalY;
+        this.depth = depth;
+        return true;
+    }
+
+    public boolean set(SweptCollision other) {
+        return set(other.time, other.normalX, other.normalY, other.depth);
+    }
+
+    public static boolean circleWithCircle(float x, float y, float radius,
+                                           float motionX, float motionY,
+                                           float otherX, float otherY, float otherRadius,
+                                           SweptCollision out) {
+        final float diffX = x - otherX;
+        final float diffY = y - otherY;
+        final float radiusSum = radius + otherRadius;
+        // Moving away or not moving at all, can't hit
+        final float halfB = diffX * motionX + diffY * motionY;
+        if(halfB >= 0)
+            return false;
+
+        final float distSq = diffX * diffX + diffY * diffY;
+        final float c = distSq - radiusSum * radiusSum;
+        if(c < 0) {
+            final float dist = (float) Math.sqrt(distSq);
+            return out.set(0, diffX / dist, diffY / dist, radiusSum - dist);
+        }
+
+        // Solve |diff + motion * t| = radiusSum for the smallest t
+        final float a = motionX * motionX + motionY * motionY;
+        final float discriminant = halfB * halfB - a * c;
+        if(discriminant < 0)
+            return false;
+
+        final float time = (-halfB - (float) Math.sqrt(discriminant)) / a;
+        if(time > 1)
+            return false;
+
+        return out.set(
+                time,
+                (diffX + motionX * time) / radiusSum,
+                (diffY + motionY * time) / radiusSum,
+                0);
+    }
+
+    public static boolean circleWithQuad(float x, float y, float radius,
+                                         float motionX, float motionY,
+                                         float quadX, float quadY, float width, float height,
+                                         SweptCollision out) {
+        final float maxX = quadX + width;
+        final float maxY = quadY + height;
+
+        // Already overlapping, push it out from the closest point if it's moving in
+        final float closestX = Math.max(quadX, Math.min(x, maxX));
+        final float closestY = Math.max(quadY, Math.min(y, maxY));
+        final float diffX = x - closestX;
+        final float diffY = y - closestY;
+        final float distSq = diffX * diffX + diffY * diffY;
+
+        if(distSq < radius * radius) {
+            final float normalX, normalY, depth;
+            if(distSq > 0) {
+                final float dist = (float) Math.sqrt(distSq);
+                normalX = diffX / dist;
+                normalY = diffY / dist;
+                depth = radius - dist;
+            } else {
+                // The center is inside the quad, push it out from the closest side
+                final float left = x - quadX, right = maxX - x;
+                final float top = y - quadY, bottom = maxY - y;
+                final float min = Math.min(Math.min(left, right), Math.min(top, bottom));
+
+                normalX = min == left ? -1 : min == right ? 1 : 0;
+                normalY = normalX != 0 ? 0 : min == top ? -1 : 1;
+                depth = min + radius;
+            }
+
+            return normalX * motionX + normalY * motionY < 0 && out.set(0, normalX, normalY, depth);
+        }
+
+        // The circle hits the quad when its center enters the quad rounded by the radius,
+        // which is the union of the quad stretched on each axis and a circle on each corner
+        boolean hit = false;
+        float bestTime = Float.POSITIVE_INFINITY, bestNormalX = 0, bestNormalY = 0;
+
+        if(motionX != 0) {
+            final float faceX = motionX > 0 ? quadX - radius : maxX + radius;
+            final float time = (faceX - x) / motionX;
+            final float hitY = y + motionY * time;
+            if(time >= 0 && time <= 1 && hitY >= quadY && hitY <= maxY) {
+                hit = true;
+                bestTime = time;
+                bestNormalX = motionX > 0 ? -1 : 1;
+                bestNormalY = 0;
+            }
+        }
+
+        if(motionY != 0) {
+            final float faceY = motionY > 0 ? quadY - radius : maxY + radius;
+            final float time = (faceY - y) / motionY;
+            final float hitX = x + motionX * time;
+            if(time >= 0 && time <= 1 && time < bestTime && hitX >= quadX && hitX <= maxX) {
+                hit = true;
+                bestTime = time;
+                bestNormalX = 0;
+                bestNormalY = motionY > 0 ? -1 : 1;
+            }
+        }
+
+        for(int corner = 0; corner < 4; corner++) {
+            final float cornerX = (corner & 1) == 0 ? quadX : maxX;
+            final float cornerY = (corner & 2) == 0 ? quadY : maxY;
+            if(circleWithCircle(x, y, radius, motionX, motionY, cornerX, cornerY, 0, out) &&
+                    out.time < bestTime) {
+                hit = true;
+                bestTime = out.time;
+                bestNormalX = out.normalX;
+                bestNormalY = out.normalY;
+            }
+        }
+
+        return hit && out.set(bestTime, bestNormalX, bestNormalY, 0);
+    }
+
+    @Override
+    public String toString() {
+        return "SweptCollision{" +
+                "time=" + time +
+                ", normalX=" + normalX +
+                ", normalY=" + normalY +
+                ", depth=" + depth +
+                '}';
+    }
+}
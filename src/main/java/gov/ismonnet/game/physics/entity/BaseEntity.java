@@ -1,6 +1,8 @@
 package gov.ismonnet.game.physics.entity;
 
 import gov.ismonnet.game.physics.collider.Collider;
+import gov.ismonnet.game.physics.collider.Collision;
+import gov.ismonnet.game.physics.collider.SweptCollision;
 
 import java.awt.geom.Rectangle2D;
 import java.util.Collection;
@@ -9,7 +11,9 @@ public abstract class BaseEntity implements Entity {
 
     protected Collider collider;
 
-    protected float posX, posY;
+    // Written by the physics thread, read by the renderer
+    protected volatile float posX, posY;
+    protected volatile float lastTickPosX, lastTickPosY;
 
     @Override
     public float getPosX() {
@@ -21,6 +25,27 @@ public abstract class BaseEntity implements Entity {
         return posY;
     }
 
+    @Override
+    public float getLastTickPosX() {
+        return lastTickPosX;
+    }
+
+    @Override
+    public float getLastTickPosY() {
+        return lastTickPosY;
+    }
+
+    @Override
+    public void updateLastTickPos() {
+        this.lastTickPosX = posX;
+        this.lastTickPosY = posY;
+    }
+
+    @Override
+    public boolean isTrigger() {
+        return false;
+    }
+
     public abstract void tick();
 
     @Override
@@ -29,8 +54,43 @@ public abstract class BaseEntity implements Entity {
     }
 
     @Override
-    public Rectangle2D getCollision(Collider collider) {
-        return this.collider.getCollision(collider);
+    public boolean getCollision(Collider collider, Collision out) {
+        return this.collider.getCollision(collider, out);
+    }
+
+    @Override
+    public boolean getCollisionWithCircle(float x, float y, float radius, Collision out) {
+        return collider.getCollisionWithCircle(x, y, radius, out);
+    }
+
+    @Override
+    public boolean getCollisionWithQuad(float x, float y, float width, float height, Collision out) {
+        return collider.getCollisionWithQuad(x, y, width, height, out);
+    }
+
+    @Override
+    public boolean sweepCircle(float x, float y, float radius, float motionX, float motionY, SweptCollision out) {
+        return collider.sweepCircle(x, y, radius, motionX, motionY, out);
+    }
+
+    @Override
+    public float getMinX() {
+        return collider.getMinX();
+    }
+
+    @Override
+    public float getMinY() {
+        return collider.getMinY();
+    }
+
+    @Override
+    public float getMaxX() {
+        return collider.getMaxX();
+    }
+
+    @Override
+    public float getMaxY() {
+        return collider.getMaxY();
     }
 
     @Override
@@ -1,25 +1,45 @@
 package gov.ismonnet.game.physics.entity;
 
 import dagger.Lazy;
+import gov.ismonnet.game.physics.BroadPhase;
 import gov.ismonnet.game.physics.collider.CircleCollider;
+import gov.ismonnet.game.physics.collider.Collision;
+import gov.ismonnet.game.physics.collider.SweptCollision;
 
-import java.awt.geom.Rectangle2D;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 abstract class CircleEntity extends BaseEntity implements MovableEntity {
 
-    protected final Lazy<Set<Entity>> collidingEntitiesLazy;
+    private static final int MAX_SWEEP_STEPS = 4;
+    private static final float CONTACT_SKIN = 0.01F;
+
+    protected final Lazy<BroadPhase> broadPhaseLazy;
     protected final float radius;
 
+    private final CircleCollider circleCollider;
+
+    // Reused by every query, so moving doesn't allocate
+    private final List<Entity> candidates;
+    private final SweptCollision sweep;
+    private final SweptCollision hit;
+    private final Collision overlap;
+
+    private long collisions;
+
     CircleEntity(float startX, float startY,
                  float radius,
-                 Lazy<Set<Entity>> collidingEntitiesLazy) {
-        this.collider = new CircleCollider(this::getPosX, this::getPosY, () -> radius);
+                 Lazy<BroadPhase> broadPhaseLazy) {
+        this.collider = this.circleCollider = new CircleCollider(startX, startY, radius);
 
-        this.collidingEntitiesLazy = collidingEntitiesLazy;
+        this.broadPhaseLazy = broadPhaseLazy;
+        this.candidates = new ArrayList<>();
+        this.sweep = new SweptCollision();
+        this.hit = new SweptCollision();
+        this.overlap = new Collision();
 
-        this.posX = startX;
-        this.posY = startY;
+        this.lastTickPosX = this.posX = startX;
+        this.lastTickPosY = this.posY = startY;
         this.radius = radius;
     }
 
@@ -27,156 +47,162 @@ abstract class CircleEntity extends BaseEntity implements MovableEntity {
         return radius;
     }
 
+    public long getCollisions() {
+        return collisions;
+    }
+
     protected void setPosX(float posX) {
-        setPos0(posX, posY);
+        setPos(posX, this.posY);
     }
 
     protected void setPosY(float posY) {
-        setPos0(posX, posY);
+        setPos(this.posX, posY);
     }
 
-    protected void setPos(float posX, float posY) {
+    // Sweeps to the given position, keeps it inside the table and updates the broad phase
+    public void setPos(float posX, float posY) {
         setPos0(posX, posY);
+        clampPos();
+        onMoved();
     }
 
-    private void setPos0(float posXIn, float posYIn) {
-
-        final boolean isMotionX = posX != posXIn;
-        final boolean isMotionY = posY != posYIn;
+    // Keeps the circle inside the table after it moved
+    protected abstract void clampPos();
 
-        if(!isMotionX && !isMotionY)
-            return;
+    // Has to be called every time the position is changed directly
+    protected void onMoved() {
+        circleCollider.setPos(posX, posY);
+        broadPhaseLazy.get().update(this);
+    }
 
-        final boolean isRightwards = posXIn > posX;
-        final boolean isDownwards = posYIn > posY;
+    /**
+     * Moves the circle sweeping it against the colliding entities, so that it
+     * stops on the first thing it hits instead of passing through it
+     */
+    private void setPos0(float posXIn, float posYIn) {
 
-        final float xDiff = posX - posXIn;
-        final float yDiff = posY - posYIn;
+        float moveX = posXIn - posX;
+        float moveY = posYIn - posY;
 
-        this.posX = posXIn;
-        this.posY = posYIn;
+        boolean hasCollided = false;
 
-        boolean hasCollidedHorizontally = false;
-        boolean hasCollidedVertically = false;
+        for(int step = 0; step < MAX_SWEEP_STEPS && (moveX != 0 || moveY != 0); step++) {
+            Entity hitEntity = null;
 
-        for(Entity entity : collidingEntitiesLazy.get()) {
-            if(entity == this)
-                continue;
+            candidates.clear();
+            broadPhaseLazy.get().query(
+                    Math.min(posX, posX + moveX) - radius,
+                    Math.min(posY, posY + moveY) - radius,
+                    Math.max(posX, posX + moveX) + radius,
+                    Math.max(posY, posY + moveY) + radius,
+                    candidates);
 
-            boolean changeMotionX = false;
-            boolean changeMotionY = false;
-
-            int failsafe = 0;
-            Rectangle2D collision;
-            while((collision = getCollision(entity)) != null) {
-                if(++failsafe >= 10)
-                    break;
-                // Hit horizontally
-                if(isMotionX && posY >= collision.getY() && posY <= collision.getMaxY()) {
-                    changeMotionX = true;
-
-                    final double refX = (float) (isRightwards ?
-                            collision.getX() :
-                            collision.getMaxX());
-                    final double dist = radius - Math.abs(posX - refX);
-                    this.posX = (float) (isRightwards ?
-                            posX - dist :
-                            posX + dist);
+            for(int i = 0; i < candidates.size(); i++) {
+                final Entity entity = candidates.get(i);
+                if(entity == this || ignoresCollisionWith(entity))
                     continue;
-                }
-                // Hit vertically
-                if(isMotionY && posX >= collision.getX() && posX <= collision.getMaxX()) {
-                    changeMotionY = true;
-                    final double refY = isDownwards ?
-                            collision.getY() :
-                            collision.getMaxY();
-                    final double dist = radius - Math.abs(posY - refY);
-                    this.posY = (float) (isDownwards ?
-                            posY - dist :
-                            posY + dist);
-                    continue;
-                }
-                // Hit an angle
-                changeMotionX = changeMotionY = true;
-
-                final float distX = adjustAngleX(isRightwards, collision);
-                final float distY = adjustAngleY(isDownwards, collision);
-
-                if(distX == 0 && distY == 0)
-                    break;
-
-                if(distX != 0 && (distY == 0 || Math.abs(xDiff) >= Math.abs(yDiff))) {
-                    this.posX = isRightwards ?
-                            posX - distX :
-                            posX + distX;
-                } else {
-                    this.posY = isDownwards ?
-                            posY - distY :
-                            posY + distY;
+
+                if(entity.sweepCircle(posX, posY, radius, moveX, moveY, sweep) &&
+                        (hitEntity == null || sweep.getTime() < hit.getTime())) {
+                    hitEntity = entity;
+                    hit.set(sweep);
                 }
             }
-            // If first collision, revert motion dir
-            if(changeMotionX) {
-                if(!hasCollidedHorizontally)
-                    setMotionX(-getMotionX());
-                hasCollidedHorizontally = true;
+
+            if(hitEntity == null) {
+                this.posX += moveX;
+                this.posY += moveY;
+                return;
             }
-            if(changeMotionY) {
-                if (!hasCollidedVertically)
-                    setMotionY(-getMotionY());
-                hasCollidedVertically = true;
+
+            final float normalX = hit.getNormalX();
+            final float normalY = hit.getNormalY();
+            // Move up to the contact point, leaving a small gap so the next sweep doesn't start overlapping
+            final float moveLength = (float) Math.sqrt(moveX * moveX + moveY * moveY);
+            final float time = Math.max(0, hit.getTime() - CONTACT_SKIN / moveLength);
+
+            this.posX += moveX * time + normalX * hit.getDepth();
+            this.posY += moveY * time + normalY * hit.getDepth();
+
+            moveX *= 1 - time;
+            moveY *= 1 - time;
+            // Bounce or slide the rest of the movement along the contact normal
+            final float moveDot = moveX * normalX + moveY * normalY;
+            if(moveDot < 0) {
+                final float factor = bouncesOnCollision() ? 2 : 1;
+                moveX -= factor * moveDot * normalX;
+                moveY -= factor * moveDot * normalY;
             }
-            // Add motion if the other entity was also moving
-            if(!(entity instanceof MovableEntity))
+
+            onCollision(hitEntity, normalX, normalY, !hasCollided);
+            hasCollided = true;
+        }
+    }
+
+    /**
+     * Moves the circle without sweeping, pushing it out of anything it ends up overlapping
+     */
+    protected void teleport(float posX, float posY) {
+        this.lastTickPosX = this.posX = posX;
+        this.lastTickPosY = this.posY = posY;
+        circleCollider.setPos(posX, posY);
+
+        boolean hasCollided = false;
+
+        candidates.clear();
+        broadPhaseLazy.get().query(getMinX(), getMinY(), getMaxX(), getMaxY(), candidates);
+
+        for(int i = 0; i < candidates.size(); i++) {
+            final Entity entity = candidates.get(i);
+            if(entity == this || ignoresCollisionWith(entity))
                 continue;
-            final MovableEntity other = (MovableEntity) entity;
 
-            if(changeMotionX) {
-                final float currMotionX = getMotionX();
-                setMotionX(getMotionX() + other.getMotionX());
-                other.setMotionX(other.getMotionX() + currMotionX);
-            }
-            if(changeMotionY) {
-                final float currMotionY = getMotionY();
-                setMotionY(getMotionY() + other.getMotionY());
-                other.setMotionY(other.getMotionY() + currMotionY);
-            }
+            if(!getCollision(entity, overlap))
+                continue;
+
+            this.posX += overlap.getNormalX() * overlap.getDepth();
+            this.posY += overlap.getNormalY() * overlap.getDepth();
+            circleCollider.setPos(posX, posY);
+
+            onCollision(entity, overlap.getNormalX(), overlap.getNormalY(), !hasCollided);
+            hasCollided = true;
         }
+
+        clampPos();
+        onMoved();
     }
 
-    private float adjustAngleX(boolean isRightwards, Rectangle2D collision) {
-        final float refX = (float) (isRightwards ?
-                collision.getX() :
-                collision.getMaxX());
-        // Closest point with x = refX
-        final float refY = (float) (Math.abs(posY - collision.getY()) < Math.abs(posY - collision.getMaxY()) ?
-                collision.getY() :
-                collision.getMaxY());
-        // (x - xc)^2 + (refY - yc)^2 = r^2
-        // (x - xc)^2 = r^2 - (refY - yc)^2
-        // x - xc = sqrt(r^2 - (refY - yc)^2)
-        // x = sqrt(r^2 - (refY - yc)^2) + xc
-        final float uncenteredX = (float) Math.sqrt(radius * radius - Math.pow(refY - posY, 2));
-        final float x = (isRightwards ? -uncenteredX : uncenteredX) + posX;
-        return Math.abs(posX  - x) - Math.abs(posX  - refX);
+    protected boolean bouncesOnCollision() {
+        return true;
     }
 
-    private float adjustAngleY(boolean isDownwards, Rectangle2D collision) {
-        final float refY = (float) (isDownwards ?
-                collision.getY() :
-                collision.getMaxY());
-        // Hit an angle
-        // Closest point with y = refY
-        final float refX = (float) (Math.abs(posX - collision.getX()) < Math.abs(posX - collision.getMaxX()) ?
-                collision.getX() :
-                collision.getMaxX());
-        // (refX - xc)^2 + (y - yc)^2 = r^2
-        // (y - yc)^2 = r^2 - (refX - xc)^2
-        // y - yc = sqrt(r^2 - (refX - xc)^2)
-        // y = sqrt(r^2 - (refX - xc)^2) + yc
-        final float uncenteredY = (float) Math.sqrt(radius * radius - Math.pow(refX - posX, 2));
-        final float y = (isDownwards ? -uncenteredY : uncenteredY) + posY;
-        return Math.abs(posY - y) - Math.abs(posY - refY);
+    // Lets the circle pass through entities it isn't supposed to touch
+    protected boolean ignoresCollisionWith(Entity entity) {
+        return false;
+    }
+
+    private void onCollision(Entity entity, float normalX, float normalY, boolean firstCollision) {
+        collisions++;
+        // If first collision, reflect the motion on the contact normal
+        if(firstCollision) {
+            final float dot = getMotionX() * normalX + getMotionY() * normalY;
+            if(dot < 0) {
+                setMotionX(getMotionX() - 2 * dot * normalX);
+                setMotionY(getMotionY() - 2 * dot * normalY);
+            }
+        }
+        // Add motion if the other entity was also moving
+        if(!(entity instanceof MovableEntity))
+            return;
+        final MovableEntity other = (MovableEntity) entity;
+        // Only the components along the normal get exchanged
+        final float currMotion = getMotionX() * normalX + getMotionY() * normalY;
+        final float otherMotion = other.getMotionX() * normalX + other.getMotionY() * normalY;
+
+        setMotionX(getMotionX() + otherMotion * normalX);
+        setMotionY(getMotionY() + otherMotion * normalY);
+        other.setMotionX(other.getMotionX() + currMotion * normalX);
+        other.setMotionY(other.getMotionY() + currMotion * normalY);
     }
 
     @Override
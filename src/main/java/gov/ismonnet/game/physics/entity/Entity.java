@@ -8,5 +8,14 @@ public interface Entity extends Collider {
 
     float getPosY();
 
+    float getLastTickPosX();
+
+    float getLastTickPosY();
+
+    void updateLastTickPos();
+
+    // Triggers only check what overlaps them, nothing collides against them
+    boolean isTrigger();
+
     void tick();
 }
@@ -6,6 +6,8 @@ import dagger.Lazy;
 import gov.ismonnet.event.EventListener;
 import gov.ismonnet.event.Listener;
 import gov.ismonnet.event.listeners.SyncListener;
+import gov.ismonnet.game.physics.PhysicsService;
+import gov.ismonnet.game.physics.SentTicks;
 import gov.ismonnet.game.physics.table.Table;
 import gov.ismonnet.netty.core.NetService;
 import gov.ismonnet.netty.packets.GoalPacket;
@@ -20,12 +22,16 @@ public class GoalEntity extends WallEntity {
 
     private final Lazy<PuckEntity> lazyPuck;
     private final Lazy<PaddleEntity> lazyPaddle;
+    private final Lazy<PhysicsService> physicsServiceLazy;
+
+    private final SentTicks sentGoals;
 
     @Inject GoalEntity(float posX, float posY,
                        float width, float height,
                        @Provided Table table,
                        @Provided Lazy<PuckEntity> lazyPuck,
                        @Provided Lazy<PaddleEntity> lazyPaddle,
+                       @Provided Lazy<PhysicsService> physicsServiceLazy,
                        @Provided NetService netService) {
         super(posX, posY, width, height);
 
@@ -34,6 +40,9 @@ public class GoalEntity extends WallEntity {
 
         this.lazyPuck = lazyPuck;
         this.lazyPaddle = lazyPaddle;
+        this.physicsServiceLazy = physicsServiceLazy;
+
+        this.sentGoals = new SentTicks();
 
         netService.registerObj(this);
     }
@@ -46,7 +55,9 @@ public class GoalEntity extends WallEntity {
         final PaddleEntity paddle = lazyPaddle.get();
 
         if(!collidesWith(puck) && puck.getPosX() < 0) {
-            netService.sendPacket(new GoalPacket());
+            // A re-simulated tick may have already sent it
+            if(sentGoals.add(physicsServiceLazy.get().getTick()))
+                netService.queuePacket(new GoalPacket());
 
             puck.reset(
                     table.getWidth() / 3F * 2F,
@@ -59,14 +70,20 @@ public class GoalEntity extends WallEntity {
     }
 
     @Listener
-    protected EventListener<GoalPacket> onGoal = new SyncListener<>(packet -> {
-        final Table table = GoalEntity.this.table;
-        final PaddleEntity paddle = GoalEntity.this.lazyPaddle.get();
-
-        paddle.reset(
-                table.getWidth() / 3F,
-                table.getHeight() / 2F);
-    });
+    protected EventListener<GoalPacket> onGoal = new SyncListener<>(packet ->
+            GoalEntity.this.physicsServiceLazy.get().execute(() -> {
+                final Table table = GoalEntity.this.table;
+                final PaddleEntity paddle = GoalEntity.this.lazyPaddle.get();
+
+                paddle.reset(
+                        table.getWidth() / 3F,
+                        table.getHeight() / 2F);
+            }));
+
+    @Override
+    public boolean isTrigger() {
+        return true;
+    }
 
     @Override
     public String toString() {
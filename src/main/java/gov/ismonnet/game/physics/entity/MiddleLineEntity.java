@@ -3,32 +3,61 @@ package gov.ismonnet.game.physics.entity;
 import com.google.auto.factory.AutoFactory;
 import com.google.auto.factory.Provided;
 import dagger.Lazy;
+import gov.ismonnet.game.physics.PhysicsService;
+import gov.ismonnet.game.physics.PuckStateCodec;
+import gov.ismonnet.game.physics.SentTicks;
+import gov.ismonnet.game.physics.TickOffsetEstimator;
 import gov.ismonnet.game.physics.table.Table;
 import gov.ismonnet.netty.core.NetService;
-import gov.ismonnet.netty.packets.PuckPositionPacket;
 
 import javax.inject.Inject;
 
 @AutoFactory
-public class MiddleLineEntity extends WallEntity {
+public class MiddleLineEntity extends WallEntity implements Snapshottable {
+
+    // About 60ms at the default tick rate
+    private static final int HANDOFF_RESEND_INTERVAL = 4;
 
     private final Table table;
     private final Lazy<PuckEntity> lazyPuck;
+    private final Lazy<PhysicsService> physicsServiceLazy;
+    private final TickOffsetEstimator tickOffsetEstimator;
+    private final PuckStateCodec puckStateCodec;
 
     private final NetService netService;
 
+    private final SentTicks sentHandoffs;
+
     private boolean sendResetPacket = false;
 
+    // Last handoff sent, sent again until the opponent acknowledges it,
+    // or the puck would be parked on both sides. Not snapshotted, as it was sent anyway
+    private boolean isHandoffPending;
+    private long handoffTick;
+    private float handoffPosX, handoffPosY;
+    private float handoffMotionX, handoffMotionY;
+    private long nextResendTick;
+    // Newest tick simulated, the re-simulated ones don't resend
+    private long latestTick = -1;
+
     @Inject MiddleLineEntity(float posX, float posY,
                              float width, float height,
                              @Provided Table table,
                              @Provided Lazy<PuckEntity> lazyPuck,
+                             @Provided Lazy<PhysicsService> physicsServiceLazy,
+                             @Provided TickOffsetEstimator tickOffsetEstimator,
+                             @Provided PuckStateCodec puckStateCodec,
                              @Provided NetService netService) {
         super(posX, posY, width, height);
 
         this.table = table;
         this.lazyPuck = lazyPuck;
+        this.physicsServiceLazy = physicsServiceLazy;
+        this.tickOffsetEstimator = tickOffsetEstimator;
+        this.puckStateCodec = puckStateCodec;
         this.netService = netService;
+
+        this.sentHandoffs = new SentTicks();
     }
 
     @Override
@@ -39,25 +68,79 @@ public class MiddleLineEntity extends WallEntity {
 
         final boolean collides = collidesWith(puck);
         if(collides && puck.getMotionX() > 0)
-            netService.sendPacket(new PuckPositionPacket(
-                    table.getWidth() + table.getWidth() - puck.getPosX(),
-                    puck.getPosY(),
-                    -puck.getMotionX(),
-                    puck.getMotionY()));
+            sendPuckPosition(puck);
 
         if (!collides && puck.getPosX() > table.getWidth()) {
             if(sendResetPacket)
-                netService.sendPacket(new PuckPositionPacket(
-                        table.getWidth() + table.getWidth() - puck.getPosX(),
-                        puck.getPosY(),
-                        -puck.getMotionX(),
-                        puck.getMotionY()));
+                sendPuckPosition(puck);
             sendResetPacket = false;
 
             puck.reset(table.getWidth() + puck.getRadius(), 0, 0, 0);
+            resendHandoff();
         } else {
             sendResetPacket = true;
         }
+
+        latestTick = Math.max(latestTick, physicsServiceLazy.get().getTick());
+    }
+
+    private void sendPuckPosition(PuckEntity puck) {
+        // A re-simulated tick may have already sent it
+        final PhysicsService physicsService = physicsServiceLazy.get();
+        if(!sentHandoffs.add(physicsService.getTick()))
+            return;
+
+        isHandoffPending = true;
+        handoffTick = physicsService.getTick();
+        handoffPosX = table.getWidth() + table.getWidth() - puck.getPosX();
+        handoffPosY = puck.getPosY();
+        handoffMotionX = -puck.getMotionX();
+        handoffMotionY = puck.getMotionY();
+        nextResendTick = Math.max(handoffTick, latestTick) + HANDOFF_RESEND_INTERVAL;
+
+        netService.queuePacket(puckStateCodec.encode(
+                handoffTick,
+                tickOffsetEstimator.getLastDelay(),
+                handoffPosX, handoffPosY,
+                handoffMotionX, handoffMotionY));
+    }
+
+    private void resendHandoff() {
+        final long tick = physicsServiceLazy.get().getTick();
+        if(!isHandoffPending || tick < nextResendTick || tick <= latestTick)
+            return;
+
+        if(puckStateCodec.isAcknowledged(handoffTick)) {
+            isHandoffPending = false;
+            return;
+        }
+
+        nextResendTick = tick + HANDOFF_RESEND_INTERVAL;
+        netService.queuePacket(puckStateCodec.encode(
+                handoffTick,
+                tickOffsetEstimator.getLastDelay(),
+                handoffPosX, handoffPosY,
+                handoffMotionX, handoffMotionY));
+    }
+
+    @Override
+    public int getSnapshotSize() {
+        return 1;
+    }
+
+    @Override
+    public void writeSnapshot(float[] buffer, int offset) {
+        buffer[offset] = sendResetPacket ? 1 : 0;
+    }
+
+    @Override
+    public void readSnapshot(float[] buffer, int offset) {
+        this.sendResetPacket = buffer[offset] != 0;
+    }
+
+    @Override
+    public boolean isTrigger() {
+        return true;
     }
 
     @Override
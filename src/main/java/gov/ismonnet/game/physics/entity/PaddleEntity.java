@@ -3,13 +3,13 @@ package gov.ismonnet.game.physics.entity;
 import com.google.auto.factory.AutoFactory;
 import com.google.auto.factory.Provided;
 import dagger.Lazy;
+import gov.ismonnet.game.physics.BroadPhase;
 import gov.ismonnet.game.physics.table.Table;
 
 import javax.inject.Inject;
-import java.util.Set;
 
 @AutoFactory
-public class PaddleEntity extends CircleEntity {
+public class PaddleEntity extends CircleEntity implements Snapshottable {
 
     private final Table table;
 
@@ -19,8 +19,8 @@ public class PaddleEntity extends CircleEntity {
     @Inject PaddleEntity(float startX, float startY,
                          float radius,
                          @Provided Table table,
-                         @Provided Lazy<Set<Entity>> collidingEntitiesLazy) {
-        super(startX, startY, radius, collidingEntitiesLazy);
+                         @Provided Lazy<BroadPhase> broadPhaseLazy) {
+        super(startX, startY, radius, broadPhaseLazy);
 
         this.table = table;
     }
@@ -32,18 +32,11 @@ public class PaddleEntity extends CircleEntity {
     }
 
     @Override
-    public void setPosX(float posXIn) {
-        super.setPosX(posXIn);
-
+    protected void clampPos() {
         if(posX - radius < 0)
             posX = radius;
         if(posX + radius > table.getWidth())
             posX = table.getWidth() - radius;
-    }
-
-    @Override
-    public void setPosY(float posYIn) {
-        super.setPosY(posYIn);
 
         if(posY - radius < 0)
             posY = radius;
@@ -52,23 +45,42 @@ public class PaddleEntity extends CircleEntity {
     }
 
     @Override
-    public void setPos(float posXIn, float posYIn) {
-        super.setPos(posXIn, posYIn);
+    protected boolean bouncesOnCollision() {
+        return false;
+    }
 
-        if(posX - radius < 0)
-            posX = radius;
-        if(posX + radius > table.getWidth())
-            posX = table.getWidth() - radius;
+    public void reset(float posX, float posY) {
+        this.lastTickPosX = this.prevPosX = this.posX = posX;
+        this.lastTickPosY = this.prevPosY = this.posY = posY;
 
-        if(posY - radius < 0)
-            posY = radius;
-        if(posY + radius > table.getHeight())
-            posY = table.getHeight() - radius;
+        onMoved();
     }
 
-    public void reset(float posX, float posY) {
-        this.prevPosX = this.posX = posX;
-        this.prevPosY = this.posY = posY;
+    @Override
+    public int getSnapshotSize() {
+        return 6;
+    }
+
+    @Override
+    public void writeSnapshot(float[] buffer, int offset) {
+        buffer[offset] = posX;
+        buffer[offset + 1] = posY;
+        buffer[offset + 2] = lastTickPosX;
+        buffer[offset + 3] = lastTickPosY;
+        buffer[offset + 4] = prevPosX;
+        buffer[offset + 5] = prevPosY;
+    }
+
+    @Override
+    public void readSnapshot(float[] buffer, int offset) {
+        this.posX = buffer[offset];
+        this.posY = buffer[offset + 1];
+        this.lastTickPosX = buffer[offset + 2];
+        this.lastTickPosY = buffer[offset + 3];
+        this.prevPosX = buffer[offset + 4];
+        this.prevPosY = buffer[offset + 5];
+
+        onMoved();
     }
 
     @Override
@@ -6,38 +6,53 @@ import dagger.Lazy;
 import gov.ismonnet.event.EventListener;
 import gov.ismonnet.event.Listener;
 import gov.ismonnet.event.listeners.SyncListener;
+import gov.ismonnet.game.physics.BroadPhase;
+import gov.ismonnet.game.physics.PhysicsService;
+import gov.ismonnet.game.physics.PuckStateCodec;
+import gov.ismonnet.game.physics.TickOffsetEstimator;
 import gov.ismonnet.game.physics.table.Table;
 import gov.ismonnet.netty.core.NetService;
-import gov.ismonnet.netty.packets.PuckPositionPacket;
+import gov.ismonnet.netty.packets.PuckStatePacket;
 
 import javax.inject.Inject;
-import java.util.Set;
 
 @AutoFactory
-public class PuckEntity extends CircleEntity {
+public class PuckEntity extends CircleEntity implements Snapshottable {
 
     private static final float MOTION_STEP = 0.1f;
     private static final float MOTION_CAP = 30F;
 
+    // Fraction of the render error left after each tick
+    private static final float ERROR_DECAY = 0.85F;
+    private static final float MIN_ERROR = 0.1F;
+
     private final Table table;
     private final Lazy<GoalEntity> goalEntityLazy;
+    private final Lazy<PhysicsService> physicsServiceLazy;
+    private final TickOffsetEstimator tickOffsetEstimator;
+    private final PuckStateCodec puckStateCodec;
 
     private float motionX, motionY;
+    // Distance between where the puck was drawn and where a correction moved it
+    private volatile float renderErrorX, renderErrorY;
 
     @Inject PuckEntity(float startX, float startY,
                        float radius,
                        float motionX, float motionY,
                        @Provided Table table,
-                       @Provided Lazy<Set<Entity>> collidingEntitiesLazy,
+                       @Provided Lazy<BroadPhase> broadPhaseLazy,
                        @Provided Lazy<GoalEntity> goalEntityLazy,
+                       @Provided Lazy<PhysicsService> physicsServiceLazy,
+                       @Provided TickOffsetEstimator tickOffsetEstimator,
+                       @Provided PuckStateCodec puckStateCodec,
                        @Provided NetService netService) {
-        super(startX, startY, radius, collidingEntitiesLazy);
+        super(startX, startY, radius, broadPhaseLazy);
 
         this.table = table;
         this.goalEntityLazy = goalEntityLazy;
-
-        this.posX = startX;
-        this.posY = startY;
+        this.physicsServiceLazy = physicsServiceLazy;
+        this.tickOffsetEstimator = tickOffsetEstimator;
+        this.puckStateCodec = puckStateCodec;
 
         this.motionX = motionX;
         this.motionY = motionY;
@@ -70,21 +85,22 @@ public class PuckEntity extends CircleEntity {
             motionX = motionX * newMotion / motion;
             motionY = motionY * newMotion / motion;
         }
+
+        if(renderErrorX != 0 || renderErrorY != 0) {
+            final float errorX = renderErrorX * ERROR_DECAY;
+            final float errorY = renderErrorY * ERROR_DECAY;
+            final boolean negligible = errorX * errorX + errorY * errorY < MIN_ERROR * MIN_ERROR;
+            renderErrorX = negligible ? 0 : errorX;
+            renderErrorY = negligible ? 0 : errorY;
+        }
     }
 
     @Override
-    protected void setPosX(float posXIn) {
-        super.setPosX(posXIn);
-
+    protected void clampPos() {
         final GoalEntity goal = goalEntityLazy.get();
         if(posY - radius < goal.getPosY() || posY + radius > goal.getPosY() + goal.getHeight())
             if(posX - radius < 0)
                 posX = radius;
-    }
-
-    @Override
-    protected void setPosY(float posYIn) {
-        super.setPosY(posYIn);
 
         if(posY - radius < 0)
             posY = radius;
@@ -92,34 +108,103 @@ public class PuckEntity extends CircleEntity {
             posY = table.getHeight() - radius;
     }
 
+    // Past the middle line it belongs to the opponent, see RemotePaddleEntity
     @Override
-    protected void setPos(float posXIn, float posYIn) {
-        super.setPos(posXIn, posYIn);
-
-        final GoalEntity goal = goalEntityLazy.get();
-        if(posY - radius < goal.getPosY() || posY + radius > goal.getPosY() + goal.getHeight())
-            if(posX - radius < 0)
-                posX = radius;
-
-        if(posY - radius < 0)
-            posY = radius;
-        if(posY + radius > table.getHeight())
-            posY = table.getHeight() - radius;
+    protected boolean ignoresCollisionWith(Entity entity) {
+        return entity instanceof RemotePaddleEntity && posX > table.getWidth();
     }
 
     @Listener
-    protected EventListener<PuckPositionPacket> onPuckPos = new SyncListener<>(packet -> {
-        setPos(packet.getPosX(), packet.getPosY());
+    protected EventListener<PuckStatePacket> onPuckState = new SyncListener<>(packet ->
+            PuckEntity.this.physicsServiceLazy.get().execute(() -> {
+                final PhysicsService physicsService = PuckEntity.this.physicsServiceLazy.get();
+                final TickOffsetEstimator estimator = PuckEntity.this.tickOffsetEstimator;
+                final PuckStateCodec codec = PuckEntity.this.puckStateCodec;
+
+                // Stale handoffs sent again still get acknowledged, but they are already handled
+                if(!codec.decode(packet) || !codec.isDecodedLatest())
+                    return;
+                final long remoteTick = codec.getDecodedTick();
+                final float posX = codec.getDecodedPosX();
+                final float posY = codec.getDecodedPosY();
+                final float motionX = codec.getDecodedMotionX();
+                final float motionY = codec.getDecodedMotionY();
+
+                final long present = physicsService.getTick();
+                estimator.onReceive(remoteTick, codec.getDecodedDelay(), present);
+
+                final float prevPosX = this.posX;
+                final float prevPosY = this.posY;
+
+                final Runnable correction = () -> {
+                    this.motionX = motionX;
+                    this.motionY = motionY;
+
+                    teleport(posX, posY);
+                };
+                // Rewind to when the opponent sent it and catch up with what happened since then
+                if(!physicsService.rollback(estimator.toLocalTick(remoteTick, present), correction))
+                    correction.run();
+
+                addRenderError(prevPosX - this.posX, prevPosY - this.posY, prevPosX < PuckEntity.this.table.getWidth());
+            }));
+
+    private void addRenderError(float errorX, float errorY, boolean wasOnTable) {
+        errorX += renderErrorX;
+        errorY += renderErrorY;
+        // Parked on the other side or way too far, better to just snap it
+        if(!wasOnTable || errorX * errorX + errorY * errorY > 16 * radius * radius) {
+            renderErrorX = renderErrorY = 0;
+            return;
+        }
 
-        this.motionX = packet.getMotionX();
-        this.motionY = packet.getMotionY();
-    });
+        renderErrorX = errorX;
+        renderErrorY = errorY;
+    }
 
     public void reset(float posX, float posY, float motionX, float motionY) {
-        this.posX = posX;
-        this.posY = posY;
+        this.lastTickPosX = this.posX = posX;
+        this.lastTickPosY = this.posY = posY;
         this.motionX = motionX;
         this.motionY = motionY;
+        this.renderErrorX = this.renderErrorY = 0;
+
+        onMoved();
+    }
+
+    public float getRenderErrorX() {
+        return renderErrorX;
+    }
+
+    public float getRenderErrorY() {
+        return renderErrorY;
+    }
+
+    @Override
+    public int getSnapshotSize() {
+        return 6;
+    }
+
+    @Override
+    public void writeSnapshot(float[] buffer, int offset) {
+        buffer[offset] = posX;
+        buffer[offset + 1] = posY;
+        buffer[offset + 2] = lastTickPosX;
+        buffer[offset + 3] = lastTickPosY;
+        buffer[offset + 4] = motionX;
+        buffer[offset + 5] = motionY;
+    }
+
+    @Override
+    public void readSnapshot(float[] buffer, int offset) {
+        this.posX = buffer[offset];
+        this.posY = buffer[offset + 1];
+        this.lastTickPosX = buffer[offset + 2];
+        this.lastTickPosY = buffer[offset + 3];
+        this.motionX = buffer[offset + 4];
+        this.motionY = buffer[offset + 5];
+
+        onMoved();
     }
 
     @Override
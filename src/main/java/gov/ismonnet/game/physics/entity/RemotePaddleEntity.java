@@ -0,0 +1,150 @@
+package gov.ismonnet.game.physics.entity;
+
+import com.google.auto.factory.AutoFactory;
+import com.google.auto.factory.Provided;
+import dagger.Lazy;
+import gov.ismonnet.event.EventListener;
+import gov.ismonnet.event.Listener;
+import gov.ismonnet.event.listeners.SyncListener;
+import gov.ismonnet.game.physics.BroadPhase;
+import gov.ismonnet.game.physics.InterpolationDelay;
+import gov.ismonnet.game.physics.JitterBuffer;
+import gov.ismonnet.game.physics.PhysicsService;
+import gov.ismonnet.game.physics.table.Table;
+import gov.ismonnet.netty.core.NetService;
+import gov.ismonnet.netty.packets.GoalPacket;
+import gov.ismonnet.netty.packets.PaddleAckPacket;
+import gov.ismonnet.netty.packets.PaddleInputPacket;
+
+import javax.inject.Inject;
+
+/**
+ * Paddle of the opponent, mirrored on the other side of the middle line
+ * and moved by the inputs it sends, played back through a jitter buffer
+ *
+ * The buffer is emptied when the opponent concedes a goal, as it puts its paddle back
+ * in place and everything it sent before is out of date.
+ *
+ * The puck is only simulated on this side, so the paddle can only touch it while
+ * it's crossing the middle line. Once the center of the puck is past the line,
+ * it's either parked or already handed off, and the opponent's simulation
+ * is the one deciding where it goes, so the paddle passes through it.
+ */
+@AutoFactory
+public class RemotePaddleEntity extends PaddleEntity {
+
+    private static final int BUFFERED_INPUTS = 64;
+    private static final int MAX_EXTRAPOLATION = 4;
+
+    private final Table table;
+    private final NetService netService;
+    private final Lazy<PhysicsService> physicsServiceLazy;
+    private final JitterBuffer jitterBuffer;
+
+    private int lastSequence;
+    // Position after the last input, which is what gets acknowledged
+    private float inputPosX, inputPosY;
+
+    @Inject RemotePaddleEntity(float startX, float startY,
+                               float radius,
+                               @Provided Table table,
+                               @Provided Lazy<BroadPhase> broadPhaseLazy,
+                               @Provided Lazy<PhysicsService> physicsServiceLazy,
+                               @Provided @InterpolationDelay int interpolationDelay,
+                               @Provided NetService netService) {
+        super(startX, startY, radius, table, broadPhaseLazy);
+
+        this.table = table;
+        this.netService = netService;
+        this.physicsServiceLazy = physicsServiceLazy;
+        this.jitterBuffer = new JitterBuffer(BUFFERED_INPUTS, interpolationDelay, MAX_EXTRAPOLATION);
+
+        this.inputPosX = startX;
+        this.inputPosY = startY;
+
+        netService.registerObj(this);
+    }
+
+    @Listener
+    protected EventListener<PaddleInputPacket> onInput = new SyncListener<>(packet ->
+            RemotePaddleEntity.this.physicsServiceLazy.get().execute(() -> {
+                final int lastAcknowledged = lastSequence;
+                lastSequence += packet.getSequenceDelta();
+
+                inputPosX = clampX(inputPosX - packet.getMotionX());
+                inputPosY = clampY(inputPosY + packet.getMotionY());
+                RemotePaddleEntity.this.jitterBuffer.add(
+                        lastSequence,
+                        RemotePaddleEntity.this.physicsServiceLazy.get().getTick(),
+                        inputPosX, inputPosY);
+
+                RemotePaddleEntity.this.netService.queuePacket(new PaddleAckPacket(
+                        lastSequence - lastAcknowledged,
+                        mirrorX(inputPosX),
+                        inputPosY));
+            }));
+
+    // Restarts the playback from the latest input, wherever the reset is in the stream
+    @Listener
+    protected EventListener<GoalPacket> onGoal = new SyncListener<>(packet ->
+            RemotePaddleEntity.this.physicsServiceLazy.get().execute(() -> {
+                RemotePaddleEntity.this.jitterBuffer.clear();
+                RemotePaddleEntity.this.jitterBuffer.add(
+                        lastSequence,
+                        RemotePaddleEntity.this.physicsServiceLazy.get().getTick(),
+                        inputPosX, inputPosY);
+            }));
+
+    @Override
+    public void tick() {
+        super.tick();
+
+        if(jitterBuffer.sample(physicsServiceLazy.get().getTick()))
+            setPos(jitterBuffer.getPosX(), jitterBuffer.getPosY());
+    }
+
+    private float mirrorX(float posX) {
+        return table.getWidth() + table.getWidth() - posX;
+    }
+
+    private float clampX(float posX) {
+        return Math.max(table.getWidth() + radius, Math.min(posX, table.getWidth() * 2 - radius));
+    }
+
+    private float clampY(float posY) {
+        return Math.max(radius, Math.min(posY, table.getHeight() - radius));
+    }
+
+    @Override
+    protected void clampPos() {
+        posX = clampX(posX);
+        posY = clampY(posY);
+    }
+
+    @Override
+    protected boolean ignoresCollisionWith(Entity entity) {
+        return entity instanceof PuckEntity && entity.getPosX() > table.getWidth();
+    }
+
+    // Moved by the opponent's inputs, which can't be replayed, so rolling back leaves it where it is
+
+    @Override
+    public int getSnapshotSize() {
+        return 0;
+    }
+
+    @Override
+    public void writeSnapshot(float[] buffer, int offset) {
+    }
+
+    @Override
+    public void readSnapshot(float[] buffer, int offset) {
+    }
+
+    @Override
+    public String toString() {
+        return "RemotePaddleEntity{" +
+                "lastSequence=" + lastSequence +
+                "} " + super.toString();
+    }
+}
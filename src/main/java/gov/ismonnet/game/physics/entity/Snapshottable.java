@@ -0,0 +1,16 @@
+package gov.ismonnet.game.physics.entity;
+
+/**
+ * State which can be saved in and restored from a primitive buffer
+ *
+ * Booleans are stored as 0 or 1.
+ */
+public interface Snapshottable {
+
+    // Number of floats written by a snapshot, must not change
+    int getSnapshotSize();
+
+    void writeSnapshot(float[] buffer, int offset);
+
+    void readSnapshot(float[] buffer, int offset);
+}
@@ -14,8 +14,8 @@ public class WallEntity extends BaseEntity {
     @Inject WallEntity(float posX, float posY, float width, float height) {
         this.collider = new QuadCollider(posX, posY, width, height);
 
-        this.posX = posX;
-        this.posY = posY;
+        this.lastTickPosX = this.posX = posX;
+        this.lastTickPosY = this.posY = posY;
         this.width = width;
         this.height = height;
     }
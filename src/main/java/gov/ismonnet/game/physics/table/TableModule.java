@@ -24,6 +24,15 @@ public abstract class TableModule {
                 75);
     }
 
+    @Provides @GameSession
+    static RemotePaddleEntity remotePaddle(RemotePaddleEntityFactory remotePaddleFactory,
+                                           Table table) {
+        return remotePaddleFactory.create(
+                table.getWidth() * 2 - table.getWidth() / 3F,
+                table.getHeight() / 2F,
+                75);
+    }
+
     @Provides @GameSession
     static PuckEntity puck(PuckEntityFactory puckFactory,
                            @Named("spawn_puck") boolean spawnPuck,
@@ -7,7 +7,21 @@ import java.awt.*;
 
 public class SwingRenderContext extends SwingGraphics implements RenderContext {
 
+    private float partialTicks;
+
     SwingRenderContext(Graphics2D g2d) {
         super(g2d);
     }
+
+    public float getPartialTicks() {
+        return partialTicks;
+    }
+
+    public void setPartialTicks(float partialTicks) {
+        this.partialTicks = partialTicks;
+    }
+
+    public float interpolate(float last, float curr) {
+        return last + (curr - last) * partialTicks;
+    }
 }
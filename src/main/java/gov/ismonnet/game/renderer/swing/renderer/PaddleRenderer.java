@@ -20,8 +20,8 @@ class PaddleRenderer implements SwingRenderer<PaddleEntity> {
     public void render(SwingRenderContext ctx, PaddleEntity toRender) {
         ctx.drawImage(
                 paddleTexture,
-                toRender.getPosX() - toRender.getRadius(),
-                toRender.getPosY() - toRender.getRadius(),
+                ctx.interpolate(toRender.getLastTickPosX(), toRender.getPosX()) - toRender.getRadius(),
+                ctx.interpolate(toRender.getLastTickPosY(), toRender.getPosY()) - toRender.getRadius(),
                 toRender.getRadius() * 2F,
                 toRender.getRadius() * 2F,
                 null);
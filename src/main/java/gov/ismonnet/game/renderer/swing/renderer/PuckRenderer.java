@@ -20,8 +20,10 @@ class PuckRenderer implements SwingRenderer<PuckEntity> {
     public void render(SwingRenderContext ctx, PuckEntity toRender) {
         ctx.drawImage(
                 puckTexture,
-                toRender.getPosX() - toRender.getRadius(),
-                toRender.getPosY() - toRender.getRadius(),
+                ctx.interpolate(toRender.getLastTickPosX(), toRender.getPosX())
+                        + toRender.getRenderErrorX() - toRender.getRadius(),
+                ctx.interpolate(toRender.getLastTickPosY(), toRender.getPosY())
+                        + toRender.getRenderErrorY() - toRender.getRadius(),
                 toRender.getRadius() * 2F,
                 toRender.getRadius() * 2F,
                 null);
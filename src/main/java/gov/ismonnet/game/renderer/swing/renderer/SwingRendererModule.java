@@ -9,6 +9,7 @@ import gov.ismonnet.game.GameSession;
 import gov.ismonnet.game.physics.entity.Entity;
 import gov.ismonnet.game.physics.entity.PaddleEntity;
 import gov.ismonnet.game.physics.entity.PuckEntity;
+import gov.ismonnet.game.physics.entity.RemotePaddleEntity;
 import gov.ismonnet.game.physics.table.Table;
 import gov.ismonnet.game.renderer.swing.SwingRenderer;
 import gov.ismonnet.resource.ResourceService;
@@ -35,6 +36,10 @@ public abstract class SwingRendererModule {
     @ClassKey(PaddleEntity.class)
     abstract SwingRenderer paddleRenderer(PaddleRenderer puckRenderer);
 
+    @Binds @IntoMap
+    @ClassKey(RemotePaddleEntity.class)
+    abstract SwingRenderer remotePaddleRenderer(PaddleRenderer paddleRenderer);
+
     @Provides @Named("paddle_texture")
     static BufferedImage paddleTexture(@Ripped ResourceService resourceService) {
         return resourceService.getImageResources("ripped/paddle.png");
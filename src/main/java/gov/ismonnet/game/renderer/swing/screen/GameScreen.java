@@ -9,6 +9,7 @@ import gov.ismonnet.game.renderer.swing.SwingRenderService;
 import gov.ismonnet.game.renderer.swing.SwingRenderer;
 import gov.ismonnet.swing.SwingWindow;
 import gov.ismonnet.util.ScaledResolution;
+import gov.ismonnet.util.TickScheduler;
 
 import javax.inject.Inject;
 import java.awt.event.FocusEvent;
@@ -25,6 +26,7 @@ import java.util.Map;
 class GameScreen extends BaseScreen {
 
     private final PhysicsService physicsService;
+    private final TickScheduler tickScheduler;
     private final Table table;
 
     private final Map<Class, SwingRenderer> renderers;
@@ -36,6 +38,7 @@ class GameScreen extends BaseScreen {
     @Inject GameScreen(SwingWindow window,
                        SwingRenderService renderService,
                        PhysicsService physicsService,
+                       TickScheduler tickScheduler,
                        Table table,
                        Map<Class<?>, SwingRenderer> renderers,
                        SwingRenderer<Object> fallbackRenderer,
@@ -43,6 +46,7 @@ class GameScreen extends BaseScreen {
         super(window, renderService);
 
         this.physicsService = physicsService;
+        this.tickScheduler = tickScheduler;
         this.table = table;
 
         this.renderers = Collections.unmodifiableMap(new HashMap<>(renderers));
@@ -64,8 +68,7 @@ class GameScreen extends BaseScreen {
     @Override
     @SuppressWarnings("unchecked")
     public void render(SwingRenderContext ctx) {
-        physicsService.handleTicks();
-
+        ctx.setPartialTicks(tickScheduler.getAlpha());
         setupScaling(ctx, true);
 
         renderers.getOrDefault(Table.class, fallbackRenderer).render(ctx, table);
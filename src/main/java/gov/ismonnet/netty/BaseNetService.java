@@ -0,0 +1,320 @@
+package gov.ismonnet.netty;
+
+import gov.ismonnet.event.EventListener;
+import gov.ismonnet.event.bus.BaseBus;
+import gov.ismonnet.event.bus.WeakBus;
+import gov.ismonnet.lifecycle.LifeCycle;
+import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.core.NetService;
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketBundle;
+import gov.ismonnet.netty.packets.DisconnectPacket;
+import gov.ismonnet.netty.packets.KickPacket;
+import gov.ismonnet.netty.packets.PingPacket;
+import gov.ismonnet.netty.packets.PongPacket;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.SimpleChannelInboundHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Net service talking to a single peer through a Netty channel
+ *
+ * It builds the pipeline shared by every transport, around the codecs given by the implementation:
+ * statistics, read timeout, handshake, keep-alive pings and the handler posting the received packets.
+ * The peer saying it's leaving is only closed once the read is complete, so that whatever
+ * the codecs have to answer to it, like an acknowledgement, is still sent.
+ *
+ * @author Ferlo
+ */
+public abstract class BaseNetService implements NetService, LifeCycle {
+
+    // Constants
+
+    private static final Logger LOGGER = LogManager.getLogger(BaseNetService.class);
+
+    // Attributes
+
+    private final LifeCycleService lifeCycleService;
+    protected final NetTransport transport;
+    private final NetStats stats;
+
+    private final int keepAliveTimeout;
+    private final int pingInterval;
+    private final int protocolVersion;
+
+    private final BaseBus<Packet> delegateBus;
+
+    /**
+     * Packets waiting for a flush, only touched by the thread which queues and flushes
+     */
+    private final List<Packet> queuedPackets;
+
+    private volatile boolean isStopped;
+
+    /**
+     * Scheduled by the event loop, cancelled by whoever stops the service
+     */
+    private volatile Future<?> pingFuture;
+
+    protected BaseNetService(int keepAliveTimeout,
+                             int pingInterval,
+                             int protocolVersion,
+                             NetStats stats,
+                             NetTransport transport,
+                             LifeCycleService lifeCycleService) {
+        this.keepAliveTimeout = keepAliveTimeout;
+        this.pingInterval = pingInterval;
+        this.protocolVersion = protocolVersion;
+        this.stats = stats;
+        this.transport = transport;
+        this.lifeCycleService = lifeCycleService;
+
+        this.delegateBus = new WeakBus<>();
+        this.queuedPackets = new ArrayList<>();
+
+        lifeCycleService.register(this);
+    }
+
+    /**
+     * Returns the initializer of the channels talking to the peer
+     *
+     * @return channel initializer
+     */
+    protected ChannelInitializer<Channel> newInitializer() {
+        return new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                transport.configure(ch);
+
+                ch.pipeline().addLast("traffic_stats", new NetStatsHandler(stats));
+
+                // Codecs
+
+                NetPipeline.addTimeout(ch.pipeline(), keepAliveTimeout);
+                initCodecs(ch.pipeline());
+
+                ch.pipeline().addLast("packet_stats", new NetStatsHandler(stats));
+
+                // Handlers
+
+                ch.pipeline().addLast("handshake_handler", newHandshakeHandler(protocolVersion));
+                ch.pipeline().addLast("keep_alive_handler", newKeepAliveHandler());
+                ch.pipeline().addLast("packet_handler", new PacketHandler());
+            }
+        };
+    }
+
+    /**
+     * Adds the handlers turning what the transport reads into packets and the other way around
+     *
+     * @param pipeline pipeline of the channel
+     */
+    protected abstract void initCodecs(ChannelPipeline pipeline);
+
+    protected ChannelHandler newHandshakeHandler(int protocolVersion) {
+        return new HandshakeHandler(protocolVersion);
+    }
+
+    protected KeepAliveHandler newKeepAliveHandler() {
+        return new KeepAliveHandler();
+    }
+
+    /**
+     * Returns the channel talking to the peer
+     *
+     * @return channel of the peer
+     */
+    protected abstract Channel channel();
+
+    @Override
+    public void stop() throws Exception {
+        isStopped = true;
+
+        final Future<?> pingFuture = this.pingFuture;
+        if(pingFuture != null)
+            pingFuture.cancel(true);
+
+        shutdown();
+    }
+
+    /**
+     * Closes the channel and releases the resources of the service
+     *
+     * @throws Exception if it couldn't shut down
+     */
+    protected abstract void shutdown() throws Exception;
+
+    protected boolean isStopped() {
+        return isStopped;
+    }
+
+    @Override
+    public CompletableFuture<Void> sendPacket(Packet packet) {
+        LOGGER.trace("Sending packet {}", packet);
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        channel().writeAndFlush(packet).addListener(channelFuture -> {
+            if(channelFuture.isSuccess())
+                future.complete(null);
+            else
+                future.completeExceptionally(channelFuture.cause());
+        });
+        return future;
+    }
+
+    @Override
+    public void queuePacket(Packet packet) {
+        queuedPackets.add(packet);
+    }
+
+    @Override
+    public void flushPackets() {
+        if(queuedPackets.isEmpty())
+            return;
+
+        final PacketBundle bundle = new PacketBundle(queuedPackets);
+        queuedPackets.clear();
+
+        LOGGER.trace("Sending packets {}", bundle);
+        final Channel channel = channel();
+        // Errors are fired through the pipeline
+        channel.writeAndFlush(bundle, channel.voidPromise());
+    }
+
+    /**
+     * Answers pings, pings the peer once the handshake is completed
+     * and closes the channel on errors
+     */
+    protected class KeepAliveHandler extends SimpleChannelInboundHandler<Packet> {
+
+        /**
+         * Returns true if the link with this peer is the one measured by the statistics
+         *
+         * @return true if it has to be pinged
+         */
+        protected boolean isMeasured() {
+            return true;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            super.channelRead(ctx, msg);
+            ctx.fireChannelRead(msg); // Make the packet go through the pipeline
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Packet msg) {
+            // Flushed once the read is complete
+            if(msg instanceof PingPacket)
+                ctx.write(new PongPacket((PingPacket) msg), ctx.voidPromise());
+            else if(msg instanceof PongPacket && isMeasured())
+                stats.onPong((PongPacket) msg);
+        }
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            // Pings on the event loop of the channel, so that the stats are only updated by it
+            if(evt == HandshakeHandler.HandshakeEvent.COMPLETED && isMeasured()) {
+                pingFuture = ctx.executor().scheduleAtFixedRate(
+                        () -> {
+                            if(ctx.channel().isActive())
+                                ctx.writeAndFlush(stats.nextPing(), ctx.voidPromise());
+                        },
+                        0, pingInterval, TimeUnit.MILLISECONDS);
+                // Stopped before it could see the future
+                if(isStopped)
+                    pingFuture.cancel(true);
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            NetPipeline.exceptionCaught(ctx, cause);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            LOGGER.trace("Channel inactive");
+            super.channelInactive(ctx);
+
+            if(!isStopped)
+                lifeCycleService.stop();
+        }
+    }
+
+    private final class PacketHandler extends SimpleChannelInboundHandler<Packet> {
+
+        /**
+         * True if the peer said it's leaving during the current read
+         */
+        private boolean isLeaving;
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Packet msg) {
+
+            if(msg instanceof DisconnectPacket || msg instanceof KickPacket)
+                isLeaving = true;
+
+            LOGGER.trace("Handle packet {}", msg);
+            post(msg);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+            ctx.flush();
+            super.channelReadComplete(ctx);
+
+            if(isLeaving)
+                ctx.close();
+        }
+    }
+
+    // Delegate event bus
+
+    @Override
+    public void register(EventListener<? extends Packet> listener) {
+        delegateBus.register(listener);
+    }
+
+    @Override
+    public void registerObj(Object obj) {
+        delegateBus.registerObj(obj);
+    }
+
+    @Override
+    public void registerObj(Object obj, Class<? extends Packet>... events) {
+        delegateBus.registerObj(obj, events);
+    }
+
+    @Override
+    public void unregister(EventListener<? extends Packet> listener) {
+        delegateBus.unregister(listener);
+    }
+
+    @Override
+    public void unregisterObj(Object obj) {
+        delegateBus.unregisterObj(obj);
+    }
+
+    @Override
+    public void unregisterObj(Object obj, Class<? extends Packet>... events) {
+        delegateBus.unregisterObj(obj, events);
+    }
+
+    @Override
+    public Packet post(Packet event) {
+        return delegateBus.post(event);
+    }
+}
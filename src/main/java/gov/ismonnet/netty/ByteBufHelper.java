@@ -12,6 +12,12 @@ import java.nio.charset.Charset;
  */
 public class ByteBufHelper {
 
+    /**
+     * Units per unit of the fixed point values, enough for sub-pixel positions
+     * while keeping the coordinates of the table within 2 bytes as varints
+     */
+    public static final float FIXED_POINT_SCALE = 8F;
+
     private ByteBufHelper() {} // Limit scope
 
     /**
@@ -70,4 +76,113 @@ public class ByteBufHelper {
     public static String readString(ByteBuf buf) {
         return readString(buf, -1);
     }
+
+    /**
+     * Write the given int in the buffer using 7 bits per byte,
+     * so that small positive values take less space
+     *
+     * @param buf buffer to write the int in
+     * @param value int to write
+     */
+    public static void writeVarInt(ByteBuf buf, int value) {
+        while((value & ~0x7F) != 0) {
+            buf.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte(value);
+    }
+
+    /**
+     * Read an int written with {@link #writeVarInt(ByteBuf, int)}
+     *
+     * @param buf buffer to read the int from
+     * @return int read from the buffer
+     * @throws DecoderException if the int is longer than 5 bytes
+     */
+    public static int readVarInt(ByteBuf buf) throws DecoderException {
+        int value = 0;
+        for(int shift = 0; shift < 35; shift += 7) {
+            final byte b = buf.readByte();
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80) == 0)
+                return value;
+        }
+        throw new DecoderException("VarInt is too long");
+    }
+
+    /**
+     * Write the given long in the buffer using 7 bits per byte,
+     * so that small positive values take less space
+     *
+     * @param buf buffer to write the long in
+     * @param value long to write
+     */
+    public static void writeVarLong(ByteBuf buf, long value) {
+        while((value & ~0x7FL) != 0) {
+            buf.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte((int) value);
+    }
+
+    /**
+     * Read a long written with {@link #writeVarLong(ByteBuf, long)}
+     *
+     * @param buf buffer to read the long from
+     * @return long read from the buffer
+     * @throws DecoderException if the long is longer than 10 bytes
+     */
+    public static long readVarLong(ByteBuf buf) throws DecoderException {
+        long value = 0;
+        for(int shift = 0; shift < 70; shift += 7) {
+            final byte b = buf.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0)
+                return value;
+        }
+        throw new DecoderException("VarLong is too long");
+    }
+
+    /**
+     * Write the given int in the buffer using 7 bits per byte after zigzag encoding it,
+     * so that values close to zero take less space whatever their sign
+     *
+     * @param buf buffer to write the int in
+     * @param value int to write
+     */
+    public static void writeSignedVarInt(ByteBuf buf, int value) {
+        writeVarInt(buf, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Read an int written with {@link #writeSignedVarInt(ByteBuf, int)}
+     *
+     * @param buf buffer to read the int from
+     * @return int read from the buffer
+     * @throws DecoderException if the int is longer than 5 bytes
+     */
+    public static int readSignedVarInt(ByteBuf buf) throws DecoderException {
+        final int value = readVarInt(buf);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Quantize the given value to fixed point
+     *
+     * @param value value to quantize
+     * @return quantized value
+     */
+    public static int toFixedPoint(float value) {
+        return Math.round(value * FIXED_POINT_SCALE);
+    }
+
+    /**
+     * Convert the given fixed point value back
+     *
+     * @param value quantized value
+     * @return value as float
+     */
+    public static float fromFixedPoint(int value) {
+        return value / FIXED_POINT_SCALE;
+    }
 }
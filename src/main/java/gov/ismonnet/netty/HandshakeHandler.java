@@ -0,0 +1,95 @@
+package gov.ismonnet.netty;
+
+import gov.ismonnet.netty.packets.HandshakePacket;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Sends the protocol version as soon as the channel is active
+ * and closes it if the other side speaks a different one
+ *
+ * Once the versions match, {@link HandshakeEvent#COMPLETED} is fired through the pipeline.
+ *
+ * @author Ferlo
+ */
+public class HandshakeHandler extends ChannelInboundHandlerAdapter {
+
+    // Constants
+
+    private static final Logger LOGGER = LogManager.getLogger(HandshakeHandler.class);
+
+    // Attributes
+
+    /**
+     * Version of the protocol spoken by this side
+     */
+    private final int protocolVersion;
+    /**
+     * True if the handshake is sent as soon as the channel is active,
+     * false to wait for the one of the other side and answer to it
+     */
+    private final boolean isInitiator;
+
+    /**
+     * True if the handshake of this side has been sent
+     */
+    private boolean isSent;
+
+    /**
+     * Constructs a handshake handler which sends the handshake as soon as the channel is active
+     *
+     * @param protocolVersion version of the protocol spoken by this side
+     */
+    public HandshakeHandler(int protocolVersion) {
+        this(protocolVersion, true);
+    }
+
+    /**
+     * Constructs a handshake handler
+     *
+     * @param protocolVersion version of the protocol spoken by this side
+     * @param isInitiator true to send the handshake as soon as the channel is active,
+     *                    false to wait for the one of the other side and answer to it
+     */
+    public HandshakeHandler(int protocolVersion, boolean isInitiator) {
+        this.protocolVersion = protocolVersion;
+        this.isInitiator = isInitiator;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        if(isInitiator)
+            sendHandshake(ctx);
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if(!(msg instanceof HandshakePacket)) {
+            super.channelRead(ctx, msg);
+            return;
+        }
+
+        if(!isSent)
+            sendHandshake(ctx);
+
+        final int remoteVersion = ((HandshakePacket) msg).getProtocolVersion();
+        if(remoteVersion != protocolVersion) {
+            LOGGER.error("Protocol version mismatch (local: {}, remote: {})", protocolVersion, remoteVersion);
+            ctx.close();
+            return;
+        }
+
+        LOGGER.trace("Handshake completed (version: {})", protocolVersion);
+        ctx.fireUserEventTriggered(HandshakeEvent.COMPLETED);
+    }
+
+    private void sendHandshake(ChannelHandlerContext ctx) {
+        isSent = true;
+        ctx.writeAndFlush(new HandshakePacket(protocolVersion));
+    }
+
+    public enum HandshakeEvent { COMPLETED }
+}
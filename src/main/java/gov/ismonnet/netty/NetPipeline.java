@@ -0,0 +1,107 @@
+package gov.ismonnet.netty;
+
+import gov.ismonnet.netty.codecs.ByteStuffingDecoder;
+import gov.ismonnet.netty.codecs.ByteStuffingEncoder;
+import gov.ismonnet.netty.codecs.PacketDecoder;
+import gov.ismonnet.netty.codecs.PacketEncoder;
+import gov.ismonnet.netty.codecs.PacketFrameEncoder;
+import gov.ismonnet.netty.core.PacketIdService;
+import gov.ismonnet.netty.exceptions.DelimiterDecoderException;
+import gov.ismonnet.netty.exceptions.NetworkException;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.timeout.ReadTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handlers and error handling shared by the pipelines of the net services and of the room server
+ *
+ * @author Ferlo
+ */
+public final class NetPipeline {
+
+    private NetPipeline() {} // Limit scope
+
+    // Constants
+
+    private static final Logger LOGGER = LogManager.getLogger(NetPipeline.class);
+
+    /**
+     * Name of the handler closing the channels which stay silent for too long
+     */
+    public static final String TIMEOUT = "timeout";
+
+    /**
+     * Adds the handler closing the channel once nothing is read for the given time
+     *
+     * @param pipeline pipeline of the channel
+     * @param keepAliveTimeout milliseconds without reading anything before timing out
+     */
+    public static void addTimeout(ChannelPipeline pipeline, int keepAliveTimeout) {
+        pipeline.addLast(TIMEOUT, new ReadTimeoutHandler(keepAliveTimeout, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Replaces the timeout handler with a new one with the same timeout
+     *
+     * Its timer is scheduled on the event loop the channel was registered to when it became active,
+     * so it has to be started again after the channel moves to another one.
+     * Has to be called by the new event loop.
+     *
+     * @param pipeline pipeline of the channel
+     */
+    public static void restartTimeout(ChannelPipeline pipeline) {
+        final ReadTimeoutHandler timeout = (ReadTimeoutHandler) pipeline.get(TIMEOUT);
+        if(timeout != null)
+            pipeline.replace(TIMEOUT, TIMEOUT,
+                    new ReadTimeoutHandler(timeout.getReaderIdleTimeInMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Adds the codecs turning a stream of bytes into packets and the other way around
+     *
+     * @param pipeline pipeline of the channel
+     * @param packetIdService ids of the packets
+     */
+    public static void addStreamCodecs(ChannelPipeline pipeline, PacketIdService packetIdService) {
+
+        // Decoders
+
+        pipeline.addLast("framer", new ByteStuffingDecoder());
+        pipeline.addLast("decoder", new PacketDecoder(packetIdService::getParserById));
+
+        // Encoders
+
+        pipeline.addLast("encoder", new PacketFrameEncoder(
+                new PacketEncoder(packetIdService::getPacketId),
+                new ByteStuffingEncoder()));
+    }
+
+    /**
+     * Logs an exception which went through the whole pipeline
+     *
+     * Malformed frames and packets are skipped, anything else closes the channel.
+     *
+     * @param ctx context of the last handler
+     * @param cause exception which was caught
+     */
+    public static void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        if(cause instanceof DelimiterDecoderException) {
+            LOGGER.error("Exception while framing packets (Ctx: {})", ctx, cause);
+
+        } else if(cause instanceof NetworkException) {
+            LOGGER.error("Exception while decoding packets (Ctx: {})", ctx, cause);
+
+        } else  {
+            if(cause instanceof ReadTimeoutException)
+                LOGGER.error("Connection timed out (Ctx: {})", ctx, cause);
+            else
+                LOGGER.error("Uncaught exception inside the Netty pipeline (Ctx: {})", ctx, cause);
+            ctx.close();
+        }
+    }
+}
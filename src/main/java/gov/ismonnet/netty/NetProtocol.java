@@ -0,0 +1,25 @@
+package gov.ismonnet.netty;
+
+/**
+ * Transport used to talk to the other side, both of them have to use the same one
+ */
+public enum NetProtocol {
+    // Reliable stream, a lost segment delays everything sent after it
+    TCP,
+    // Datagrams, only the packets which need it are delivered reliably and in order
+    UDP,
+    // Memory mapped file, only between processes on the same machine
+    SHARED_MEMORY;
+
+    /**
+     * Refuses the transports this protocol can't run on
+     *
+     * @param transport transport the sessions would use
+     * @throws IllegalArgumentException if this protocol can't use it
+     */
+    public void checkTransport(NetTransport transport) {
+        if(this == UDP && !transport.supportsDatagrams())
+            throw new IllegalArgumentException("Protocol " + this + " can't run on transport " + transport +
+                    ", which doesn't support datagrams");
+    }
+}
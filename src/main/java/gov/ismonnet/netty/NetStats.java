@@ -0,0 +1,281 @@
+package gov.ismonnet.netty;
+
+import gov.ismonnet.netty.packets.PingPacket;
+import gov.ismonnet.netty.packets.PongPacket;
+
+import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Quality of the link of a net session, measured with the keep-alive pings
+ *
+ * Round trip times are smoothed the way TCP does (RFC 6298) and the jitter is the mean deviation
+ * between consecutive round trips (RFC 3550). A ping counts as lost if its pong didn't come back
+ * before {@link #LOSS_DELAY} more pings were sent, the loss is over the last {@link #WINDOW} of them.
+ * Rates are sampled every time a ping is sent, so they are averaged over the ping interval.
+ *
+ * Pings and pongs are only handled by the event loop of the channel,
+ * while the statistics can be polled by any thread.
+ *
+ * @author Ferlo
+ *
+ * @see NetStatsHandler
+ */
+@NetSession
+public class NetStats {
+
+    // Constants
+
+    /**
+     * Number of pings the loss is computed over, has to be a power of 2
+     */
+    private static final int WINDOW = 64;
+    private static final int MASK = WINDOW - 1;
+    /**
+     * Pings sent after one before it's considered lost
+     */
+    private static final int LOSS_DELAY = 4;
+
+    /**
+     * Weight of a new round trip in the smoothed one
+     */
+    private static final double RTT_GAIN = 1 / 8D;
+    /**
+     * Weight of a new deviation in the jitter
+     */
+    private static final double JITTER_GAIN = 1 / 16D;
+
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // Attributes
+
+    /**
+     * When each ping in the window was sent, indexed by sequence
+     */
+    private final long[] sentAt;
+    /**
+     * Whether the pong of each ping in the window came back, indexed by sequence
+     */
+    private final boolean[] answered;
+    /**
+     * Whether each of the last decided pings was lost, indexed by sequence
+     */
+    private final boolean[] lost;
+
+    /**
+     * Sequence of the next ping
+     */
+    private int sequence;
+    private int lostCount;
+
+    private volatile long roundTrip = -1;
+    private volatile double smoothedRoundTrip;
+    private volatile double jitter;
+    private volatile double loss;
+
+    private final AtomicLong bytesIn;
+    private final AtomicLong bytesOut;
+    private final AtomicLong packetsIn;
+    private final AtomicLong packetsOut;
+
+    /**
+     * Time and totals of the last sample
+     */
+    private long sampledAt;
+    private long sampledBytesIn;
+    private long sampledBytesOut;
+    private long sampledPacketsIn;
+    private long sampledPacketsOut;
+
+    private volatile double bytesInRate;
+    private volatile double bytesOutRate;
+    private volatile double packetsInRate;
+    private volatile double packetsOutRate;
+
+    @Inject NetStats() {
+        this.sentAt = new long[WINDOW];
+        this.answered = new boolean[WINDOW];
+        this.lost = new boolean[WINDOW];
+
+        this.bytesIn = new AtomicLong();
+        this.bytesOut = new AtomicLong();
+        this.packetsIn = new AtomicLong();
+        this.packetsOut = new AtomicLong();
+
+        this.sampledAt = System.nanoTime();
+    }
+
+    /**
+     * Creates the next ping to send and samples the rates
+     *
+     * @return ping to send
+     */
+    public PingPacket nextPing() {
+        final long now = System.nanoTime();
+        sample(now);
+
+        final int sequence = this.sequence++;
+
+        final int decided = sequence - LOSS_DELAY;
+        if(decided >= 0) {
+            final int index = decided & MASK;
+            // Replaces the one which left the window
+            if(lost[index])
+                lostCount--;
+            lost[index] = !answered[index];
+            if(lost[index])
+                lostCount++;
+
+            loss = lostCount / (double) Math.min(decided + 1, WINDOW);
+        }
+
+        sentAt[sequence & MASK] = now;
+        answered[sequence & MASK] = false;
+        return new PingPacket(sequence, now);
+    }
+
+    /**
+     * Measures the round trip of the ping the given pong answers
+     *
+     * @param pong received pong
+     */
+    public void onPong(PongPacket pong) {
+        final long now = System.nanoTime();
+        final int sequence = pong.getSequence();
+        // Not sent by this, or too old to tell whether it's a duplicate
+        if(sequence >= this.sequence || sequence < this.sequence - LOSS_DELAY)
+            return;
+
+        final int index = sequence & MASK;
+        if(answered[index] || sentAt[index] != pong.getTimestamp())
+            return;
+        answered[index] = true;
+
+        final long roundTrip = now - pong.getTimestamp();
+        final long previous = this.roundTrip;
+        if(previous < 0) {
+            smoothedRoundTrip = roundTrip;
+        } else {
+            smoothedRoundTrip += (roundTrip - smoothedRoundTrip) * RTT_GAIN;
+            jitter += (Math.abs(roundTrip - previous) - jitter) * JITTER_GAIN;
+        }
+        this.roundTrip = roundTrip;
+    }
+
+    private void sample(long now) {
+        final double elapsed = (now - sampledAt) / NANOS_PER_SECOND;
+        if(elapsed <= 0)
+            return;
+
+        final long bytesIn = this.bytesIn.get();
+        final long bytesOut = this.bytesOut.get();
+        final long packetsIn = this.packetsIn.get();
+        final long packetsOut = this.packetsOut.get();
+
+        bytesInRate = (bytesIn - sampledBytesIn) / elapsed;
+        bytesOutRate = (bytesOut - sampledBytesOut) / elapsed;
+        packetsInRate = (packetsIn - sampledPacketsIn) / elapsed;
+        packetsOutRate = (packetsOut - sampledPacketsOut) / elapsed;
+
+        sampledAt = now;
+        sampledBytesIn = bytesIn;
+        sampledBytesOut = bytesOut;
+        sampledPacketsIn = packetsIn;
+        sampledPacketsOut = packetsOut;
+    }
+
+    void addBytesIn(int bytes) {
+        bytesIn.addAndGet(bytes);
+    }
+
+    void addBytesOut(int bytes) {
+        bytesOut.addAndGet(bytes);
+    }
+
+    void addPacketsIn(int packets) {
+        packetsIn.addAndGet(packets);
+    }
+
+    void addPacketsOut(int packets) {
+        packetsOut.addAndGet(packets);
+    }
+
+    /**
+     * Returns the last measured round trip time
+     *
+     * @return round trip time in milliseconds or -1 if no pong has come back yet
+     */
+    public double getRoundTripTime() {
+        final long roundTrip = this.roundTrip;
+        return roundTrip < 0 ? -1 : roundTrip / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the smoothed round trip time
+     *
+     * @return round trip time in milliseconds or -1 if no pong has come back yet
+     */
+    public double getSmoothedRoundTripTime() {
+        return roundTrip < 0 ? -1 : smoothedRoundTrip / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the mean deviation between consecutive round trip times
+     *
+     * @return jitter in milliseconds
+     */
+    public double getJitter() {
+        return jitter / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the fraction of the last pings which didn't get a pong back in time
+     *
+     * @return loss between 0 and 1
+     */
+    public double getLoss() {
+        return loss;
+    }
+
+    public double getBytesInPerSecond() {
+        return bytesInRate;
+    }
+
+    public double getBytesOutPerSecond() {
+        return bytesOutRate;
+    }
+
+    public double getPacketsInPerSecond() {
+        return packetsInRate;
+    }
+
+    public double getPacketsOutPerSecond() {
+        return packetsOutRate;
+    }
+
+    public long getBytesIn() {
+        return bytesIn.get();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.get();
+    }
+
+    public long getPacketsIn() {
+        return packetsIn.get();
+    }
+
+    public long getPacketsOut() {
+        return packetsOut.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("NetStats{rtt=%.2fms, srtt=%.2fms, jitter=%.2fms, loss=%.1f%%, " +
+                        "in=%.0fB/s %.0fpkt/s, out=%.0fB/s %.0fpkt/s}",
+                getRoundTripTime(), getSmoothedRoundTripTime(), getJitter(), getLoss() * 100,
+                bytesInRate, packetsInRate, bytesOutRate, packetsOutRate);
+    }
+}
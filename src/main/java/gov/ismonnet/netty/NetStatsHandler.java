@@ -0,0 +1,64 @@
+package gov.ismonnet.netty;
+
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketBundle;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * Counts what goes through the pipeline in the given {@link NetStats}
+ *
+ * Placed before the codecs it counts the bytes of the frames or of the datagrams,
+ * placed after them it counts the packets.
+ *
+ * @author Ferlo
+ */
+public class NetStatsHandler extends ChannelDuplexHandler {
+
+    // Attributes
+
+    /**
+     * Statistics to update
+     */
+    private final NetStats stats;
+
+    /**
+     * Constructs a handler counting in the given statistics
+     *
+     * @param stats statistics to update
+     */
+    public NetStatsHandler(NetStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if(msg instanceof Packet)
+            stats.addPacketsIn(1);
+        else
+            stats.addBytesIn(bytes(msg));
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if(msg instanceof PacketBundle)
+            stats.addPacketsOut(((PacketBundle) msg).size());
+        else if(msg instanceof Packet)
+            stats.addPacketsOut(1);
+        else
+            stats.addBytesOut(bytes(msg));
+        super.write(ctx, msg, promise);
+    }
+
+    private static int bytes(Object msg) {
+        if(msg instanceof ByteBuf)
+            return ((ByteBuf) msg).readableBytes();
+        if(msg instanceof ByteBufHolder)
+            return ((ByteBufHolder) msg).content().readableBytes();
+        return 0;
+    }
+}
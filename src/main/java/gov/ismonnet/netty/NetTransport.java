@@ -0,0 +1,199 @@
+package gov.ismonnet.netty;
+
+import io.netty.channel.*;
+import io.netty.channel.epoll.*;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * Channels and event loops the net services are built on
+ */
+public enum NetTransport {
+    // Native sockets, only on Linux
+    EPOLL {
+        @Override
+        public EventLoopGroup newEventLoopGroup() {
+            return new EpollEventLoopGroup();
+        }
+
+        @Override
+        public Class<? extends Channel> streamChannel() {
+            return EpollSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannel() {
+            return EpollServerSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends Channel> datagramChannel() {
+            return EpollDatagramChannel.class;
+        }
+
+        @Override
+        public SocketAddress bindAddress(int port) {
+            return new InetSocketAddress(port);
+        }
+
+        @Override
+        public SocketAddress remoteAddress(InetSocketAddress address) {
+            return address;
+        }
+
+        @Override
+        public void configure(Channel ch) {
+            configureSocket(ch);
+            // Don't hold back acks waiting for something to piggyback them on,
+            // the kernel resets the option so the handler re-arms it after each read
+            if(ch instanceof EpollSocketChannel)
+                ch.pipeline().addFirst("quick_ack", QuickAckHandler.INSTANCE);
+        }
+    },
+    // Java sockets
+    NIO {
+        @Override
+        public EventLoopGroup newEventLoopGroup() {
+            return new NioEventLoopGroup();
+        }
+
+        @Override
+        public Class<? extends Channel> streamChannel() {
+            return NioSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannel() {
+            return NioServerSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends Channel> datagramChannel() {
+            return NioDatagramChannel.class;
+        }
+
+        @Override
+        public SocketAddress bindAddress(int port) {
+            return new InetSocketAddress(port);
+        }
+
+        @Override
+        public SocketAddress remoteAddress(InetSocketAddress address) {
+            return address;
+        }
+
+        @Override
+        public void configure(Channel ch) {
+            configureSocket(ch);
+        }
+    },
+    // In-VM pipes, the server and the client have to be in the same JVM
+    LOCAL {
+        @Override
+        public EventLoopGroup newEventLoopGroup() {
+            return new DefaultEventLoopGroup();
+        }
+
+        @Override
+        public Class<? extends Channel> streamChannel() {
+            return LocalChannel.class;
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannel() {
+            return LocalServerChannel.class;
+        }
+
+        @Override
+        public boolean supportsDatagrams() {
+            return false;
+        }
+
+        // Never reached, the protocols needing datagrams are refused by NetProtocol#checkTransport
+        @Override
+        public Class<? extends Channel> datagramChannel() {
+            throw new IllegalStateException("The local transport doesn't support datagrams");
+        }
+
+        // The port is only used to tell apart the servers
+        @Override
+        public SocketAddress bindAddress(int port) {
+            return new LocalAddress(LOCAL_ADDRESS_PREFIX + port);
+        }
+
+        @Override
+        public SocketAddress remoteAddress(InetSocketAddress address) {
+            return new LocalAddress(LOCAL_ADDRESS_PREFIX + address.getPort());
+        }
+
+        @Override
+        public void configure(Channel ch) {
+            // Not backed by a socket, nothing to configure
+        }
+    };
+
+    private static final String LOCAL_ADDRESS_PREFIX = "ismonnet-";
+
+    // Packets are small and sent every tick, a small send buffer
+    // keeps the data from queueing up when the peer is slow
+    private static final int SEND_BUFFER_SIZE = 32 * 1024;
+    // Leave room for bursts of datagrams
+    private static final int RECEIVE_BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * Returns the fastest transport which can talk to another process on this machine
+     *
+     * @return EPOLL if the native library can be loaded, NIO otherwise
+     */
+    public static NetTransport preferred() {
+        return Epoll.isAvailable() ? EPOLL : NIO;
+    }
+
+    public abstract EventLoopGroup newEventLoopGroup();
+
+    public abstract Class<? extends Channel> streamChannel();
+
+    public abstract Class<? extends ServerChannel> serverChannel();
+
+    /**
+     * Returns false if this transport has no datagram channel
+     *
+     * @return true if {@link #datagramChannel()} can be used
+     */
+    public boolean supportsDatagrams() {
+        return true;
+    }
+
+    public abstract Class<? extends Channel> datagramChannel();
+
+    public abstract SocketAddress bindAddress(int port);
+
+    public abstract SocketAddress remoteAddress(InetSocketAddress address);
+
+    /**
+     * Applies the socket options to a channel of this transport before it connects
+     * and adds in front of its pipeline the handlers keeping them set
+     *
+     * Both the client and the server use the same options
+     *
+     * @param ch channel to configure
+     */
+    public abstract void configure(Channel ch);
+
+    private static void configureSocket(Channel ch) {
+        final ChannelConfig config = ch.config();
+        config.setOption(ChannelOption.SO_SNDBUF, SEND_BUFFER_SIZE);
+        config.setOption(ChannelOption.SO_RCVBUF, RECEIVE_BUFFER_SIZE);
+        if(ch instanceof SocketChannel)
+            config.setOption(ChannelOption.TCP_NODELAY, true);
+    }
+}
@@ -0,0 +1,36 @@
+package gov.ismonnet.netty;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.epoll.EpollChannelOption;
+
+/**
+ * Keeps TCP_QUICKACK enabled on an epoll socket
+ *
+ * The kernel only honours the option until the socket goes back to delayed acks,
+ * which happens on its own after a few segments, so it's set again after every read.
+ *
+ * @author Ferlo
+ */
+@ChannelHandler.Sharable
+final class QuickAckHandler extends ChannelInboundHandlerAdapter {
+
+    // Constants
+
+    static final QuickAckHandler INSTANCE = new QuickAckHandler();
+
+    private QuickAckHandler() {} // Singleton
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        ctx.channel().config().setOption(EpollChannelOption.TCP_QUICKACK, true);
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        ctx.channel().config().setOption(EpollChannelOption.TCP_QUICKACK, true);
+        super.channelReadComplete(ctx);
+    }
+}
@@ -10,9 +10,7 @@ import gov.ismonnet.netty.core.PacketIdService;
 import gov.ismonnet.netty.core.PacketParser;
 import gov.ismonnet.netty.packets.*;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 @Module
 public abstract class SharedNetModule {
@@ -25,6 +23,18 @@ public abstract class SharedNetModule {
         return Integer.MAX_VALUE;
     }
 
+    // Milliseconds between the pings used to measure the link, can be changed with -Dnet.ping_interval
+    @Provides @PingInterval
+    static int pingInterval() {
+        return Integer.getInteger("net.ping_interval", 1000);
+    }
+
+    // Has to be increased every time the ids or the encoding of a packet change
+    @Provides @ProtocolVersion
+    static int protocolVersion() {
+        return 6;
+    }
+
     @Provides @NetSession
     static Map<Class<? extends Packet>, Byte> packetIds() {
         final Map<Class<? extends Packet>, Byte> temp = new HashMap<>();
@@ -33,25 +43,78 @@ public abstract class SharedNetModule {
         // always a Server-Client pair
         // So they can have the same id
 
+        // Both sides ping, so they need their own ids
         temp.put(PingPacket.class, (byte) 0);
-        temp.put(PongPacket.class, (byte) 0);
+        temp.put(PongPacket.class, (byte) 10);
 
         temp.put(DisconnectPacket.class, (byte) 1);
         temp.put(KickPacket.class, (byte) 1);
 
-        temp.put(PuckPositionPacket.class, (byte) 2);
+        temp.put(PuckStatePacket.class, (byte) 2);
         temp.put(GoalPacket.class, (byte) 3);
+        temp.put(PaddleInputPacket.class, (byte) 4);
+        temp.put(PaddleAckPacket.class, (byte) 5);
+        temp.put(PuckStateAckPacket.class, (byte) 6);
+        temp.put(HandshakePacket.class, (byte) 7);
+        temp.put(MatchFoundPacket.class, (byte) 8);
+
+        temp.put(SpectatePacket.class, (byte) 9);
+        temp.put(SpectatedPlayerPacket.class, (byte) 9);
 
         return Collections.unmodifiableMap(temp);
     }
 
-    @Provides @IntoMap @ClassKey(PuckPositionPacket.class)
-    static PacketParser puckPositionParser() {
-        return PuckPositionPacket.PARSER;
+    // Packets which have to be delivered in order by the transports which may lose them.
+    // Paddle inputs and acks only carry the distance from the previous sequence, so they can't be lost
+    @Provides @NetSession @ReliablePackets
+    static Set<Class<? extends Packet>> reliablePackets() {
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                HandshakePacket.class,
+                MatchFoundPacket.class,
+                DisconnectPacket.class,
+                KickPacket.class,
+                GoalPacket.class,
+                PaddleInputPacket.class,
+                PaddleAckPacket.class)));
+    }
+
+    @Provides @IntoMap @ClassKey(PingPacket.class)
+    static PacketParser pingParser() {
+        return PingPacket.PARSER;
+    }
+
+    @Provides @IntoMap @ClassKey(PongPacket.class)
+    static PacketParser pongParser() {
+        return PongPacket.PARSER;
+    }
+
+    @Provides @IntoMap @ClassKey(PuckStatePacket.class)
+    static PacketParser puckStateParser() {
+        return PuckStatePacket.PARSER;
+    }
+
+    @Provides @IntoMap @ClassKey(PuckStateAckPacket.class)
+    static PacketParser puckStateAckParser() {
+        return PuckStateAckPacket.PARSER;
+    }
+
+    @Provides @IntoMap @ClassKey(HandshakePacket.class)
+    static PacketParser handshakeParser() {
+        return HandshakePacket.PARSER;
     }
 
     @Provides @IntoMap @ClassKey(GoalPacket.class)
     static PacketParser goalParser() {
         return GoalPacket.PARSER;
     }
+
+    @Provides @IntoMap @ClassKey(PaddleInputPacket.class)
+    static PacketParser paddleInputParser() {
+        return PaddleInputPacket.PARSER;
+    }
+
+    @Provides @IntoMap @ClassKey(PaddleAckPacket.class)
+    static PacketParser paddleAckParser() {
+        return PaddleAckPacket.PARSER;
+    }
 }
@@ -4,7 +4,10 @@ import dagger.BindsInstance;
 import dagger.Subcomponent;
 import gov.ismonnet.lifecycle.LifeCycleService;
 import gov.ismonnet.netty.Address;
+import gov.ismonnet.netty.NetProtocol;
 import gov.ismonnet.netty.NetSession;
+import gov.ismonnet.netty.NetStats;
+import gov.ismonnet.netty.NetTransport;
 import gov.ismonnet.netty.core.NetService;
 
 import java.net.InetSocketAddress;
@@ -17,12 +20,20 @@ public interface ClientComponent {
 
     NetService netService();
 
+    NetStats netStats();
+
     @Subcomponent.Builder
     interface Builder {
 
         @BindsInstance
         Builder injectAddress(@Address InetSocketAddress address);
 
+        @BindsInstance
+        Builder injectProtocol(NetProtocol protocol);
+
+        @BindsInstance
+        Builder injectTransport(NetTransport transport);
+
         ClientComponent build();
     }
 }
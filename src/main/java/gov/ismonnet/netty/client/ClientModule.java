@@ -1,18 +1,22 @@
 package gov.ismonnet.netty.client;
 
-import dagger.Binds;
 import dagger.Module;
 import dagger.Provides;
 import dagger.multibindings.ClassKey;
 import dagger.multibindings.IntoMap;
 import gov.ismonnet.lifecycle.LifeCycleManager;
 import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.NetProtocol;
 import gov.ismonnet.netty.NetSession;
+import gov.ismonnet.netty.NetTransport;
 import gov.ismonnet.netty.SharedNetModule;
 import gov.ismonnet.netty.core.NetService;
 import gov.ismonnet.netty.core.PacketParser;
 import gov.ismonnet.netty.packets.KickPacket;
-import gov.ismonnet.netty.packets.PongPacket;
+import gov.ismonnet.netty.packets.MatchFoundPacket;
+import gov.ismonnet.netty.packets.SpectatedPlayerPacket;
+
+import javax.inject.Provider;
 
 @Module(includes = SharedNetModule.class)
 abstract class ClientModule {
@@ -22,16 +26,37 @@ abstract class ClientModule {
         return new LifeCycleManager("client");
     }
 
-    @Binds @NetSession
-    abstract NetService netService(ClientNetService clientNetService);
-
-    @Provides @IntoMap @ClassKey(PongPacket.class)
-    static PacketParser pingParser() {
-        return PongPacket.PARSER;
+    @Provides @NetSession
+    static NetService netService(NetProtocol protocol,
+                                 NetTransport transport,
+                                 Provider<ClientNetService> tcpNetService,
+                                 Provider<UdpClientNetService> udpNetService,
+                                 Provider<SharedMemoryClientNetService> sharedMemoryNetService) {
+        protocol.checkTransport(transport);
+        switch (protocol) {
+            case TCP:
+                return tcpNetService.get();
+            case UDP:
+                return udpNetService.get();
+            case SHARED_MEMORY:
+                return sharedMemoryNetService.get();
+            default:
+                throw new AssertionError("Protocol " + protocol + " hasn't been implemented");
+        }
     }
 
     @Provides @IntoMap @ClassKey(KickPacket.class)
     static PacketParser disconnectParser() {
         return KickPacket.PARSER;
     }
+
+    @Provides @IntoMap @ClassKey(MatchFoundPacket.class)
+    static PacketParser matchFoundParser() {
+        return MatchFoundPacket.PARSER;
+    }
+
+    @Provides @IntoMap @ClassKey(SpectatedPlayerPacket.class)
+    static PacketParser spectatedPlayerParser() {
+        return SpectatedPlayerPacket.PARSER;
+    }
 }
@@ -0,0 +1,34 @@
+package gov.ismonnet.netty.client;
+
+import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.Address;
+import gov.ismonnet.netty.ProtocolVersion;
+import gov.ismonnet.netty.core.PacketIdService;
+import gov.ismonnet.netty.shm.SharedMemoryFile;
+import gov.ismonnet.netty.shm.SharedMemoryNetService;
+
+import javax.inject.Inject;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+
+public class SharedMemoryClientNetService extends SharedMemoryNetService {
+
+    private final Path path;
+    private final int protocolVersion;
+
+    // Only the port of the address is used, the server has to be on this machine
+    @Inject SharedMemoryClientNetService(@Address InetSocketAddress address,
+                                         @ProtocolVersion int protocolVersion,
+                                         PacketIdService packetIdService,
+                                         LifeCycleService lifeCycleService) {
+        super("client", packetIdService, lifeCycleService);
+
+        this.path = SharedMemoryFile.pathFor(address.getPort());
+        this.protocolVersion = protocolVersion;
+    }
+
+    @Override
+    protected SharedMemoryFile connect() throws Exception {
+        return SharedMemoryFile.open(path, protocolVersion);
+    }
+}
@@ -0,0 +1,150 @@
+package gov.ismonnet.netty.client;
+
+import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.Address;
+import gov.ismonnet.netty.BaseNetService;
+import gov.ismonnet.netty.HandshakeHandler;
+import gov.ismonnet.netty.KeepAliveTimeout;
+import gov.ismonnet.netty.NetStats;
+import gov.ismonnet.netty.NetTransport;
+import gov.ismonnet.netty.PingInterval;
+import gov.ismonnet.netty.ProtocolVersion;
+import gov.ismonnet.netty.ReliablePackets;
+import gov.ismonnet.netty.codecs.PacketDecoder;
+import gov.ismonnet.netty.codecs.PacketEncoder;
+import gov.ismonnet.netty.codecs.SequencedDatagramCodec;
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketIdService;
+import gov.ismonnet.netty.exceptions.NetworkException;
+import gov.ismonnet.netty.packets.DisconnectPacket;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.*;
+import io.netty.util.concurrent.Promise;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.inject.Inject;
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class UdpClientNetService extends BaseNetService {
+
+    private static final Logger LOGGER = LogManager.getLogger(UdpClientNetService.class);
+    // There is no connection, so wait for the server to answer the handshake
+    private static final int HANDSHAKE_TIMEOUT = 5000;
+    // Max time to wait for the server to acknowledge the disconnection
+    private static final int DISCONNECT_TIMEOUT = 1000;
+
+    private final InetSocketAddress address;
+    private final Set<Class<? extends Packet>> reliablePackets;
+    private final PacketIdService packetIdService;
+    private final Bootstrap bootstrap;
+
+    private volatile boolean isConnected;
+
+    private EventLoopGroup group;
+    private Channel channel;
+    private CompletableFuture<Void> handshakeFuture;
+
+    @Inject UdpClientNetService(@Address InetSocketAddress address,
+                                @KeepAliveTimeout int keepAliveTimeout,
+                                @PingInterval int pingInterval,
+                                @ProtocolVersion int protocolVersion,
+                                @ReliablePackets Set<Class<? extends Packet>> reliablePackets,
+                                NetStats stats,
+                                NetTransport transport,
+                                PacketIdService packetIdService,
+                                LifeCycleService lifeCycleService) {
+        super(keepAliveTimeout, pingInterval, protocolVersion, stats, transport, lifeCycleService);
+        this.address = address;
+        this.reliablePackets = reliablePackets;
+        this.packetIdService = packetIdService;
+
+        this.bootstrap = new Bootstrap()
+                .channel(transport.datagramChannel())
+                .handler(newInitializer())
+                .localAddress(0);
+
+        this.isConnected = false;
+    }
+
+    @Override
+    protected void initCodecs(ChannelPipeline pipeline) {
+        pipeline.addLast("codec", new SequencedDatagramCodec(
+                new PacketEncoder(packetIdService::getPacketId),
+                new PacketDecoder(packetIdService::getParserById),
+                reliablePackets,
+                address));
+    }
+
+    @Override
+    protected KeepAliveHandler newKeepAliveHandler() {
+        return new HandshakeAwareKeepAliveHandler();
+    }
+
+    @Override
+    public void start() throws Exception {
+        group = transport.newEventLoopGroup();
+        handshakeFuture = new CompletableFuture<>();
+        channel = bootstrap.group(group)
+                .bind()
+                .sync()
+                .channel();
+
+        handshakeFuture.get(HANDSHAKE_TIMEOUT, TimeUnit.MILLISECONDS);
+        isConnected = true;
+    }
+
+    @Override
+    protected void shutdown() {
+        if(!isConnected || !channel.isOpen()) {
+            group.shutdownGracefully();
+            return;
+        }
+
+        final EventLoop eventLoop = channel.eventLoop();
+        eventLoop.execute(() -> {
+            final Promise<Void> disconnected = eventLoop.newPromise();
+            disconnected.addListener(future -> group.shutdownGracefully());
+
+            // Reliable, so the codec keeps sending it until the server acknowledges it
+            channel.writeAndFlush(new DisconnectPacket(), channel.voidPromise());
+
+            final ChannelHandlerContext codecCtx = channel.pipeline().context(SequencedDatagramCodec.class);
+            if(codecCtx == null) {
+                disconnected.trySuccess(null);
+                return;
+            }
+
+            ((SequencedDatagramCodec) codecCtx.handler()).acknowledged(codecCtx)
+                    .addListener(future -> disconnected.trySuccess(null));
+            eventLoop.schedule(() -> {
+                if(disconnected.trySuccess(null))
+                    LOGGER.warn("The server didn't acknowledge the disconnection in {}ms", DISCONNECT_TIMEOUT);
+            }, DISCONNECT_TIMEOUT, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    @Override
+    protected Channel channel() {
+        return channel;
+    }
+
+    private final class HandshakeAwareKeepAliveHandler extends KeepAliveHandler {
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            super.userEventTriggered(ctx, evt);
+            if(evt == HandshakeHandler.HandshakeEvent.COMPLETED)
+                handshakeFuture.complete(null);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            handshakeFuture.completeExceptionally(new NetworkException("Channel closed before the handshake"));
+            super.channelInactive(ctx);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import gov.ismonnet.netty.exceptions.DelimiterDecoderException;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.ByteProcessor;
 
 import java.util.List;
 
@@ -56,21 +57,31 @@ public class ByteStuffingDecoder extends ByteToMessageDecoder {
     private final int maxFrameLength;
 
     /**
-     * True if the next byte to read is escaped
+     * Stops at the first {@link #escape} byte.
+     *
+     * Reused instead of {@link ByteBuf#indexOf(int, int, byte)}, which allocates one every call.
      */
-    private boolean isEscaped;
+    private final ByteProcessor findEscape;
+
     /**
-     * True if the decoder found a valid {@link #start} and is reading the frame
+     * True if the decoder found a valid {@link #start} and is reading the frame.
+     *
+     * The frame is not consumed until its {@link #end} is found,
+     * so it always starts at the reader index of the cumulation buffer.
      */
     private boolean isReadingFrame;
     /**
-     * Frame currently being read
+     * Offset from the start of the frame up to which it was already scanned
      */
-    private ByteBuf frame;
+    private int scannedLength;
     /**
-     * Current length of {@link #frame}
+     * Current length of the frame, without the duplicated escape bytes
      */
     private int frameLength;
+    /**
+     * True if the frame contains duplicated escape bytes and needs to be copied
+     */
+    private boolean isStuffed;
 
     /**
      * Constructs a decoder using the default bytes to decode frames
@@ -128,6 +139,7 @@ public class ByteStuffingDecoder extends ByteToMessageDecoder {
         this.start = start;
         this.end = end;
         this.maxFrameLength = maxFrameLength;
+        this.findEscape = b -> b != escape;
     }
 
     @Override
@@ -136,78 +148,164 @@ public class ByteStuffingDecoder extends ByteToMessageDecoder {
                           List<Object> out) throws Exception {
 
         while(in.isReadable()) {
-            final byte b = in.readByte();
+            if(!isReadingFrame) {
+                final int escapeIndex = indexOfEscape(in, in.readerIndex(), in.writerIndex());
 
-            if(!isEscaped) {
-                if(b == escape)
-                    isEscaped = true;
-                else if(isReadingFrame)
-                    writeToFrame(b);
-            } else {
-                isEscaped = false;
+                // Anything outside of a frame gets discarded
+                if(escapeIndex == -1) {
+                    in.skipBytes(in.readableBytes());
+                    return;
+                }
+                // Wait for the byte following the escape
+                if(escapeIndex + 1 == in.writerIndex()) {
+                    in.readerIndex(escapeIndex);
+                    return;
+                }
+
+                final byte b = in.getByte(escapeIndex + 1);
+                in.readerIndex(escapeIndex + 2);
 
-                if(b == start && !isReadingFrame) {
+                if(b != start)
+                    throw new DelimiterDecoderException(String.format(
+                            "There was an error while decoding packets. Discarding data." +
+                                    "(currByte: %s, isReadingFrame: %s)",
+                            b, false));
 
-                    // Sequence of <escape><start>
-                    // This indicates the start of a new frame
+                // Sequence of <escape><start>
+                // This indicates the start of a new frame
 
-                    isReadingFrame = true;
-                    frame = ctx.alloc().buffer();
+                isReadingFrame = true;
+            }
+
+            if(!decodeFrame(ctx, in, out))
+                return;
+        }
+    }
+
+    /**
+     * Scans the frame starting at the reader index of the given buffer looking for its end.
+     *
+     * Frames with no duplicated escape bytes are passed on as retained slices of the buffer,
+     * only the ones which actually need to be deduplicated get copied.
+     *
+     * @param ctx context used to allocate the frames which need to be copied
+     * @param in buffer containing the frame
+     * @param out list to which the frame is added
+     * @return true if the frame was decoded, false if more data is needed
+     * @throws DelimiterDecoderException if the frame is malformed or exceeds the {@link #maxFrameLength}
+     */
+    private boolean decodeFrame(ChannelHandlerContext ctx,
+                                ByteBuf in,
+                                List<Object> out) {
+
+        final int frameStart = in.readerIndex();
+        int index = frameStart + scannedLength;
+
+        while(true) {
+            final int escapeIndex = indexOfEscape(in, index, in.writerIndex());
+            final int scanEnd = escapeIndex == -1 ? in.writerIndex() : escapeIndex;
+
+            addToFrameLength(in, scanEnd - index, scanEnd);
+            // Wait for the rest of the frame
+            if(escapeIndex == -1 || escapeIndex + 1 == in.writerIndex()) {
+                scannedLength = scanEnd - frameStart;
+                return false;
+            }
 
-                } else if(b == escape && isReadingFrame) {
+            final byte b = in.getByte(escapeIndex + 1);
+            if(b == escape) {
 
-                    // Sequence of 2 escape bytes.
-                    // Deduplicate it
+                // Sequence of 2 escape bytes.
+                // Needs to be deduplicated
 
-                    writeToFrame(b);
+                isStuffed = true;
+                addToFrameLength(in, 1, escapeIndex + 2);
+                index = escapeIndex + 2;
 
-                } else if(b == end && isReadingFrame) {
+            } else if(b == end) {
 
-                    // Sequence of <escape><end>
-                    // This indicates the end of the frame
+                // Sequence of <escape><end>
+                // This indicates the end of the frame
 
-                    out.add(frame);
-                    resetFrame();
+                out.add(isStuffed ?
+                        unstuff(ctx, in, frameStart, escapeIndex) :
+                        in.retainedSlice(frameStart, escapeIndex - frameStart));
+                in.readerIndex(escapeIndex + 2);
+                resetFrame();
+                return true;
 
-                } else {
+            } else {
 
-                    frame.release();
-                    resetFrame();
+                in.readerIndex(escapeIndex + 2);
+                resetFrame();
 
-                    throw new DelimiterDecoderException(String.format(
-                            "There was an error while decoding packets. Discarding data." +
-                                    "(currByte: %s, isEscaped: %s, isReadingFrame: %s)",
-                            b, isEscaped, isReadingFrame));
-                }
+                throw new DelimiterDecoderException(String.format(
+                        "There was an error while decoding packets. Discarding data." +
+                                "(currByte: %s, isReadingFrame: %s)",
+                        b, true));
             }
         }
     }
 
     /**
-     * Write the byte to {@link #frame}.
+     * Adds the given number of bytes to the {@link #frameLength}.
      *
      * If the frame exceeds the {@link #maxFrameLength}, a {@link DelimiterDecoderException}
-     * is raised and the packet gets discarded
+     * is raised and the frame gets discarded up to the given index
      *
-     * @param b byte to write
+     * @param in buffer containing the frame
+     * @param length number of bytes to add
+     * @param discardIndex index up to which the frame gets discarded if too long
      * @throws DelimiterDecoderException if the frame is exceeding the {@link #maxFrameLength}
      */
-    private void writeToFrame(byte b) {
+    private void addToFrameLength(ByteBuf in, int length, int discardIndex) {
 
-        frameLength++;
+        frameLength += length;
         if(maxFrameLength != -1 && frameLength > maxFrameLength) {
 
-            frame.release();
+            final int currentFrameLength = frameLength;
+            in.readerIndex(discardIndex);
             resetFrame();
 
             throw new DelimiterDecoderException(String.format(
                     "Packet length exceeds the maximum one. Discarding data." +
                             "(currentFrameLength: %s, maxFrameLength: %s)",
-                    frameLength, maxFrameLength));
-        } else {
+                    currentFrameLength, maxFrameLength));
+        }
+    }
+
+    /**
+     * Copies the frame between the given indexes deduplicating the escape bytes
+     *
+     * @param ctx context used to allocate the frame
+     * @param in buffer containing the frame
+     * @param from index of the first byte of the frame
+     * @param to index after the last byte of the frame
+     * @return the deduplicated frame
+     */
+    private ByteBuf unstuff(ChannelHandlerContext ctx, ByteBuf in, int from, int to) {
+
+        final ByteBuf frame = ctx.alloc().buffer(frameLength);
+        for(int i = from; i < to; i++) {
+            final byte b = in.getByte(i);
             frame.writeByte(b);
+            // Skip the duplicate
+            if(b == escape)
+                i++;
         }
+        return frame;
+    }
 
+    /**
+     * Returns the index of the first {@link #escape} byte between the given indexes
+     *
+     * @param in buffer to search
+     * @param from index to start from (inclusive)
+     * @param to index to stop at (exclusive)
+     * @return the index of the escape byte or -1 if there is none
+     */
+    private int indexOfEscape(ByteBuf in, int from, int to) {
+        return from >= to ? -1 : in.forEachByte(from, to - from, findEscape);
     }
 
     /**
@@ -215,6 +313,8 @@ public class ByteStuffingDecoder extends ByteToMessageDecoder {
      */
     private void resetFrame() {
         isReadingFrame = false;
-        frame = null;
+        isStuffed = false;
+        scannedLength = 0;
+        frameLength = 0;
     }
 }
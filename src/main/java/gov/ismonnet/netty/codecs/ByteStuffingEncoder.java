@@ -3,6 +3,7 @@ package gov.ismonnet.netty.codecs;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.ByteProcessor;
 
 /**
  * Delimits each frame with the specified bytes
@@ -44,6 +45,11 @@ public class ByteStuffingEncoder extends MessageToByteEncoder<ByteBuf> {
      */
     private final byte end;
 
+    /**
+     * Stops at the first {@link #escape} byte
+     */
+    private final ByteProcessor findEscape = this::isNotEscape;
+
     /**
      * Constructs an encoder using the default bytes to delimit frames
      * @see MessageToByteEncoder#MessageToByteEncoder()
@@ -155,6 +161,17 @@ public class ByteStuffingEncoder extends MessageToByteEncoder<ByteBuf> {
     protected void encode(ChannelHandlerContext ctx,
                           ByteBuf msg,
                           ByteBuf out) throws Exception {
+        encode(msg, out);
+    }
+
+    /**
+     * Writes the given frame in the buffer delimiting it and escaping its content
+     *
+     * @param msg frame to encode
+     * @param out buffer to write into
+     */
+    public void encode(ByteBuf msg,
+                       ByteBuf out) {
 
         out.writeByte(escape);
         out.writeByte(start);
@@ -166,15 +183,56 @@ public class ByteStuffingEncoder extends MessageToByteEncoder<ByteBuf> {
         // We avoid the issue all together by duplicating every
         // escape byte. The decoder will need to correctly handle
         // the deduplication
+        //
+        // Bytes between escapes are copied in bulk
 
         while(msg.isReadable()) {
-            final byte b = msg.readByte();
-            if(b == escape)
-                out.writeByte(escape);
-            out.writeByte(b);
+            final int escapeIndex = msg.forEachByte(findEscape);
+            if(escapeIndex == -1) {
+                out.writeBytes(msg);
+                break;
+            }
+
+            out.writeBytes(msg, escapeIndex + 1 - msg.readerIndex());
+            out.writeByte(escape);
         }
 
         out.writeByte(escape);
         out.writeByte(end);
     }
+
+    /**
+     * Returns the number of bytes the given frame takes once encoded
+     *
+     * @param msg frame to encode
+     * @return length of the encoded frame
+     */
+    public int getEncodedLength(ByteBuf msg) {
+        // Start and end sequences
+        int length = msg.readableBytes() + 4;
+
+        int index = msg.readerIndex();
+        while(index < msg.writerIndex()) {
+            final int escapeIndex = msg.forEachByte(index, msg.writerIndex() - index, findEscape);
+            if(escapeIndex == -1)
+                break;
+            // Duplicated escape
+            length++;
+            index = escapeIndex + 1;
+        }
+        return length;
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx,
+                                     ByteBuf msg,
+                                     boolean preferDirect) throws Exception {
+        return preferDirect ?
+                ctx.alloc().ioBuffer(getEncodedLength(msg)) :
+                ctx.alloc().heapBuffer(getEncodedLength(msg));
+    }
+
+    private boolean isNotEscape(byte b) {
+        return b != escape;
+    }
 }
@@ -49,10 +49,13 @@ public class PacketDecoder extends MessageToMessageDecoder<ByteBuf> {
                           ByteBuf msg,
                           List<Object> out) throws Exception {
 
-        final Packet packet = decode(msg);
+        // Frames may contain more than one packet
+        while(msg.isReadable()) {
+            final Packet packet = decode(msg);
 
-        LOGGER.trace("Received packet {}", packet);
-        out.add(packet);
+            LOGGER.trace("Received packet {}", packet);
+            out.add(packet);
+        }
     }
 
     /**
@@ -0,0 +1,115 @@
+package gov.ismonnet.netty.codecs;
+
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketBundle;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+
+/**
+ * Encodes packets directly to delimited frames
+ *
+ * A {@link PacketBundle} is written as a single frame containing all of its packets one after the other.
+ *
+ * Packets are serialized in a buffer reused by the handler, so that the frame
+ * can be allocated with the right size and written in a single pass,
+ * copying in bulk the bytes between the ones that need to be escaped.
+ *
+ * @author Ferlo
+ *
+ * @see PacketEncoder
+ * @see ByteStuffingEncoder
+ */
+public class PacketFrameEncoder extends MessageToMessageEncoder<Object> {
+
+    // Constants
+
+    /**
+     * Logger
+     */
+    private static final Logger LOGGER = LogManager.getLogger(PacketFrameEncoder.class);
+
+    /**
+     * Initial capacity of {@link #packetBuffer}
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Attributes
+
+    /**
+     * Encoder used to serialize packets
+     */
+    private final PacketEncoder packetEncoder;
+    /**
+     * Encoder used to delimit frames
+     */
+    private final ByteStuffingEncoder frameEncoder;
+
+    /**
+     * Buffer the packets are serialized into before being framed
+     */
+    private ByteBuf packetBuffer;
+
+    /**
+     * Constructs an encoder writing packets with the given packet encoder
+     * and delimiting them with the given frame encoder
+     *
+     * @param packetEncoder encoder used to serialize packets
+     * @param frameEncoder encoder used to delimit frames
+     */
+    public PacketFrameEncoder(PacketEncoder packetEncoder,
+                              ByteStuffingEncoder frameEncoder) {
+        this.packetEncoder = packetEncoder;
+        this.frameEncoder = frameEncoder;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        packetBuffer = Unpooled.buffer(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        packetBuffer.release();
+        packetBuffer = null;
+    }
+
+    @Override
+    public boolean acceptOutboundMessage(Object msg) {
+        return msg instanceof Packet || msg instanceof PacketBundle;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx,
+                          Object msg,
+                          List<Object> out) throws Exception {
+
+        packetBuffer.clear();
+        if(msg instanceof PacketBundle) {
+            final PacketBundle bundle = (PacketBundle) msg;
+            for(int i = 0; i < bundle.size(); i++)
+                encodePacket(bundle.get(i));
+        } else {
+            encodePacket((Packet) msg);
+        }
+
+        final ByteBuf frame = ctx.alloc().ioBuffer(frameEncoder.getEncodedLength(packetBuffer));
+        frameEncoder.encode(packetBuffer, frame);
+        out.add(frame);
+    }
+
+    /**
+     * Serializes the given packet after the ones already in {@link #packetBuffer}
+     *
+     * @param packet packet to serialize
+     */
+    private void encodePacket(Packet packet) {
+        LOGGER.trace("Sending packet {}", packet);
+        packetEncoder.encode(packet, packetBuffer);
+    }
+}
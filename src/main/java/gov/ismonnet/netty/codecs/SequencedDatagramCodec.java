@@ -0,0 +1,408 @@
+package gov.ismonnet.netty.codecs;
+
+import gov.ismonnet.netty.ByteBufHelper;
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketBundle;
+import gov.ismonnet.netty.exceptions.NetworkException;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes packets to datagrams sent to a single peer and decodes the ones it sends back
+ *
+ * Each datagram has a sequence number and is made of two sections:
+ * - the reliable one contains the packets which have to be delivered in order.
+ *   They are sent again with every datagram until the peer acknowledges them,
+ *   the receiver skips the ones it already has and the ones it can't deliver in order yet.
+ * - the unreliable one contains all the other packets, which are dropped if a newer datagram
+ *   has already been received, so that only the latest state is used.
+ *
+ * <pre>
+ * u16    datagram sequence
+ * u16    next reliable sequence expected from the peer (acknowledgement)
+ * varint number of reliable packets
+ * u16    reliable sequence of the first one (only if there are any)
+ * [varint length, packet] reliable packets
+ * [packet] unreliable packets, up to the end of the datagram
+ * </pre>
+ *
+ * @author Ferlo
+ */
+public class SequencedDatagramCodec extends ChannelDuplexHandler {
+
+    // Constants
+
+    /**
+     * Logger
+     */
+    private static final Logger LOGGER = LogManager.getLogger(SequencedDatagramCodec.class);
+
+    /**
+     * Max number of bytes of reliable packets sent in a single datagram,
+     * keeps them well below the usual MTU
+     */
+    private static final int MAX_RELIABLE_BYTES = 1024;
+    /**
+     * Max number of reliable packets waiting for an acknowledgement
+     * before considering the peer gone
+     */
+    private static final int MAX_PENDING_RELIABLE = 1024;
+    /**
+     * Milliseconds after which the unacknowledged reliable packets
+     * are sent again if nothing else was sent in the meantime
+     */
+    private static final int RESEND_INTERVAL = 50;
+
+    // Attributes
+
+    /**
+     * Encoder used to serialize packets
+     */
+    private final PacketEncoder packetEncoder;
+    /**
+     * Decoder used to deserialize packets
+     */
+    private final PacketDecoder packetDecoder;
+    /**
+     * Packets which have to be delivered reliably and in order
+     */
+    private final Set<Class<? extends Packet>> reliablePackets;
+
+    /**
+     * Address the datagrams are sent to and accepted from,
+     * null until the first datagram is received if it wasn't known
+     */
+    private InetSocketAddress peer;
+
+    /**
+     * Sequence of the next datagram to send
+     */
+    private int localSequence;
+    /**
+     * Sequence of the newest datagram received
+     */
+    private int remoteSequence;
+    /**
+     * True if at least a datagram was received
+     */
+    private boolean hasReceived;
+
+    /**
+     * Serialized reliable packets which haven't been acknowledged yet
+     */
+    private final ArrayDeque<ByteBuf> pendingReliable;
+    /**
+     * Reliable sequence of the first packet in {@link #pendingReliable}
+     */
+    private int pendingReliableSequence;
+    /**
+     * Reliable sequence of the next packet expected from the peer
+     */
+    private int expectedReliableSequence;
+    /**
+     * True if the peer sent reliable packets which haven't been acknowledged yet
+     */
+    private boolean isAckPending;
+    /**
+     * Completed once {@link #pendingReliable} is empty, null if no one is waiting for it
+     */
+    private Promise<Void> acknowledgedPromise;
+
+    /**
+     * Nanos at which the last datagram was sent
+     */
+    private long lastSendTime;
+    /**
+     * Task sending again the unacknowledged reliable packets
+     */
+    private ScheduledFuture<?> resendFuture;
+
+    /**
+     * Constructs a codec which only talks with the given peer
+     *
+     * @param packetEncoder encoder used to serialize packets
+     * @param packetDecoder decoder used to deserialize packets
+     * @param reliablePackets packets which have to be delivered reliably and in order
+     * @param peer address to talk with or null to use the one which sends the first datagram
+     */
+    public SequencedDatagramCodec(PacketEncoder packetEncoder,
+                                  PacketDecoder packetDecoder,
+                                  Set<Class<? extends Packet>> reliablePackets,
+                                  InetSocketAddress peer) {
+        this.packetEncoder = packetEncoder;
+        this.packetDecoder = packetDecoder;
+        this.reliablePackets = reliablePackets;
+        this.peer = peer;
+
+        this.pendingReliable = new ArrayDeque<>();
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        resendFuture = ctx.executor().scheduleAtFixedRate(
+                () -> resend(ctx),
+                RESEND_INTERVAL, RESEND_INTERVAL, TimeUnit.MILLISECONDS);
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        if(resendFuture != null)
+            resendFuture.cancel(false);
+
+        ByteBuf pending;
+        while((pending = pendingReliable.poll()) != null)
+            pending.release();
+
+        if(acknowledgedPromise != null)
+            acknowledgedPromise.tryFailure(new ClosedChannelException());
+    }
+
+    /**
+     * Returns a future completed once the peer has acknowledged all the reliable packets sent so far
+     *
+     * Has to be called by the event loop of the channel.
+     *
+     * @param ctx context of this handler
+     * @return future completed when there are no more reliable packets waiting for an acknowledgement
+     */
+    public Future<Void> acknowledged(ChannelHandlerContext ctx) {
+        if(pendingReliable.isEmpty())
+            return ctx.executor().newSucceededFuture(null);
+
+        if(acknowledgedPromise == null)
+            acknowledgedPromise = ctx.executor().newPromise();
+        return acknowledgedPromise;
+    }
+
+    // Outbound
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if(!(msg instanceof Packet) && !(msg instanceof PacketBundle)) {
+            super.write(ctx, msg, promise);
+            return;
+        }
+
+        if(peer == null) {
+            promise.tryFailure(new NetworkException("No peer to send " + msg + " to"));
+            return;
+        }
+
+        // Reliable ones have to be serialized first, as they are written before the others
+        final PacketBundle bundle = msg instanceof PacketBundle ? (PacketBundle) msg : null;
+        final int size = bundle != null ? bundle.size() : 1;
+        boolean hasUnreliable = false;
+        for(int i = 0; i < size; i++) {
+            final Packet packet = bundle != null ? bundle.get(i) : (Packet) msg;
+            if(reliablePackets.contains(packet.getClass()))
+                queueReliable(ctx, packet);
+            else
+                hasUnreliable = true;
+        }
+
+        final ByteBuf datagram = writeHeader(ctx);
+        if(hasUnreliable) {
+            for(int i = 0; i < size; i++) {
+                final Packet packet = bundle != null ? bundle.get(i) : (Packet) msg;
+                if(!reliablePackets.contains(packet.getClass())) {
+                    LOGGER.trace("Sending packet {}", packet);
+                    packetEncoder.encode(packet, datagram);
+                }
+            }
+        }
+        ctx.write(new DatagramPacket(datagram, peer), promise);
+    }
+
+    /**
+     * Serializes the given packet and adds it to the ones waiting for an acknowledgement
+     *
+     * @param ctx context used to allocate the packet
+     * @param packet packet to queue
+     * @throws NetworkException if there are too many packets waiting for an acknowledgement
+     */
+    private void queueReliable(ChannelHandlerContext ctx, Packet packet) {
+        if(pendingReliable.size() >= MAX_PENDING_RELIABLE)
+            throw new NetworkException("Too many unacknowledged reliable packets, the peer is probably gone");
+
+        LOGGER.trace("Sending reliable packet {}", packet);
+        final ByteBuf buf = ctx.alloc().buffer();
+        packetEncoder.encode(packet, buf);
+        pendingReliable.add(buf);
+    }
+
+    /**
+     * Allocates a datagram and writes the header and the reliable section
+     *
+     * @param ctx context used to allocate the datagram
+     * @return the datagram, to which the unreliable packets can be appended
+     */
+    private ByteBuf writeHeader(ChannelHandlerContext ctx) {
+        final ByteBuf datagram = ctx.alloc().ioBuffer();
+        datagram.writeShort(localSequence);
+        datagram.writeShort(expectedReliableSequence);
+        localSequence = (localSequence + 1) & 0xFFFF;
+
+        int count = 0;
+        int bytes = 0;
+        for(ByteBuf pending : pendingReliable) {
+            bytes += pending.readableBytes();
+            if(count > 0 && bytes > MAX_RELIABLE_BYTES)
+                break;
+            count++;
+        }
+
+        ByteBufHelper.writeVarInt(datagram, count);
+        if(count > 0) {
+            datagram.writeShort(pendingReliableSequence);
+            for(ByteBuf pending : pendingReliable) {
+                if(count-- == 0)
+                    break;
+                ByteBufHelper.writeVarInt(datagram, pending.readableBytes());
+                datagram.writeBytes(pending, pending.readerIndex(), pending.readableBytes());
+            }
+        }
+
+        isAckPending = false;
+        lastSendTime = System.nanoTime();
+        return datagram;
+    }
+
+    /**
+     * Sends a datagram without unreliable packets if there is something
+     * to acknowledge or to send again and nothing else was sent recently
+     *
+     * @param ctx context to send the datagram with
+     */
+    private void resend(ChannelHandlerContext ctx) {
+        if(peer == null || (!isAckPending && pendingReliable.isEmpty()))
+            return;
+        if(!isAckPending && System.nanoTime() - lastSendTime < TimeUnit.MILLISECONDS.toNanos(RESEND_INTERVAL))
+            return;
+
+        ctx.writeAndFlush(new DatagramPacket(writeHeader(ctx), peer), ctx.voidPromise());
+    }
+
+    // Inbound
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if(!(msg instanceof DatagramPacket)) {
+            super.channelRead(ctx, msg);
+            return;
+        }
+
+        final DatagramPacket packet = (DatagramPacket) msg;
+        try {
+            if(peer == null) {
+                peer = packet.sender();
+                LOGGER.trace("Peer found {}", peer);
+            } else if(!peer.equals(packet.sender())) {
+                LOGGER.trace("Discarding datagram from unknown sender {}", packet.sender());
+                return;
+            }
+
+            decode(ctx, packet.content());
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        // Acknowledge right away, so that the peer doesn't need to send them again
+        if(isAckPending)
+            ctx.writeAndFlush(new DatagramPacket(writeHeader(ctx), peer), ctx.voidPromise());
+        super.channelReadComplete(ctx);
+    }
+
+    /**
+     * Decodes the given datagram and passes on the packets which can be delivered
+     *
+     * @param ctx context to pass the packets to
+     * @param in datagram content
+     * @throws NetworkException if the packets couldn't be parsed
+     */
+    private void decode(ChannelHandlerContext ctx, ByteBuf in) {
+        final int sequence = in.readUnsignedShort();
+        final int ack = in.readUnsignedShort();
+
+        // Forget what the peer already has
+        while(!pendingReliable.isEmpty() && isNewer(ack, pendingReliableSequence)) {
+            pendingReliable.poll().release();
+            pendingReliableSequence = (pendingReliableSequence + 1) & 0xFFFF;
+        }
+
+        if(pendingReliable.isEmpty() && acknowledgedPromise != null) {
+            acknowledgedPromise.trySuccess(null);
+            acknowledgedPromise = null;
+        }
+
+        final int count = ByteBufHelper.readVarInt(in);
+        if(count > 0) {
+            int reliableSequence = in.readUnsignedShort();
+            for(int i = 0; i < count; i++) {
+                final int length = ByteBufHelper.readVarInt(in);
+                final ByteBuf frame = in.readSlice(length);
+
+                // Skip duplicates and whatever can't be delivered in order,
+                // the peer keeps sending them until they are acknowledged
+                if(reliableSequence == expectedReliableSequence) {
+                    fireRead(ctx, frame);
+                    expectedReliableSequence = (expectedReliableSequence + 1) & 0xFFFF;
+                }
+                reliableSequence = (reliableSequence + 1) & 0xFFFF;
+            }
+            isAckPending = true;
+        }
+
+        // Latest wins
+        if(hasReceived && !isNewer(sequence, remoteSequence))
+            return;
+        hasReceived = true;
+        remoteSequence = sequence;
+
+        fireRead(ctx, in);
+    }
+
+    /**
+     * Decodes all the packets in the given buffer and passes them on
+     *
+     * @param ctx context to pass the packets to
+     * @param frame buffer containing the packets
+     */
+    private void fireRead(ChannelHandlerContext ctx, ByteBuf frame) {
+        while(frame.isReadable()) {
+            final Packet packet = packetDecoder.decode(frame);
+
+            LOGGER.trace("Received packet {}", packet);
+            ctx.fireChannelRead(packet);
+        }
+    }
+
+    /**
+     * Compares 16 bit sequence numbers, which may wrap around
+     *
+     * @param sequence sequence to check
+     * @param other sequence to compare with
+     * @return true if the sequence comes after the other one
+     */
+    private static boolean isNewer(int sequence, int other) {
+        return (short) (sequence - other) > 0;
+    }
+}
@@ -7,4 +7,17 @@ import java.util.concurrent.CompletableFuture;
 
 public interface NetService extends EventBus<Packet, EventListener<? extends Packet>> {
     CompletableFuture<Void> sendPacket(Packet packet);
+
+    /**
+     * Queues the packet to be sent together with the others on the next {@link #flushPackets()}.
+     * There is no way of knowing whether it was actually sent.
+     *
+     * Only meant to be called by a single thread, the same one which flushes.
+     *
+     * @param packet packet to queue
+     */
+    void queuePacket(Packet packet);
+
+    // Sends all the queued packets in a single frame
+    void flushPackets();
 }
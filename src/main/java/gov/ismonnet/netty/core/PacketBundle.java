@@ -0,0 +1,33 @@
+package gov.ismonnet.netty.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Packets which are written together in a single frame
+ *
+ * @author Ferlo
+ */
+public final class PacketBundle {
+
+    private final Packet[] packets;
+
+    public PacketBundle(Collection<Packet> packets) {
+        this.packets = packets.toArray(new Packet[0]);
+    }
+
+    public int size() {
+        return packets.length;
+    }
+
+    public Packet get(int index) {
+        return packets[index];
+    }
+
+    @Override
+    public String toString() {
+        return "PacketBundle{" +
+                "packets=" + Arrays.toString(packets) +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package gov.ismonnet.netty.packets;
+
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketParser;
+import io.netty.buffer.ByteBuf;
+
+import static gov.ismonnet.netty.ByteBufHelper.readVarInt;
+import static gov.ismonnet.netty.ByteBufHelper.writeVarInt;
+
+/**
+ * First packet sent by both sides, so that they can check they speak the same protocol
+ */
+public class HandshakePacket implements Packet {
+
+    private final int protocolVersion;
+
+    public HandshakePacket(int protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    public int getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    @Override
+    public String toString() {
+        return "HandshakePacket{" +
+                "protocolVersion=" + protocolVersion +
+                '}';
+    }
+
+    @Override
+    public void writePacket(ByteBuf buf) {
+        writeVarInt(buf, protocolVersion);
+    }
+
+    public static final PacketParser<HandshakePacket> PARSER = buf -> new HandshakePacket(readVarInt(buf));
+}
@@ -0,0 +1,41 @@
+package gov.ismonnet.netty.packets;
+
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketParser;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Packet sent by the side which accepted the connection once the opponent is known,
+ * to tell the other one which half of the table it plays
+ */
+public class MatchFoundPacket implements Packet {
+
+    private final boolean spawnPuck;
+
+    public MatchFoundPacket(boolean spawnPuck) {
+        this.spawnPuck = spawnPuck;
+    }
+
+    /**
+     * Returns true if the receiver serves first and plays on the left
+     *
+     * @return true if the receiver spawns the puck
+     */
+    public boolean isSpawnPuck() {
+        return spawnPuck;
+    }
+
+    @Override
+    public void writePacket(ByteBuf buf) {
+        buf.writeBoolean(spawnPuck);
+    }
+
+    @Override
+    public String toString() {
+        return "MatchFoundPacket{" +
+                "spawnPuck=" + spawnPuck +
+                '}';
+    }
+
+    public static final PacketParser<MatchFoundPacket> PARSER = buf -> new MatchFoundPacket(buf.readBoolean());
+}
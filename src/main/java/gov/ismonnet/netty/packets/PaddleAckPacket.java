@@ -0,0 +1,61 @@
+package gov.ismonnet.netty.packets;
+
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketParser;
+import io.netty.buffer.ByteBuf;
+
+import static gov.ismonnet.netty.ByteBufHelper.*;
+
+public class PaddleAckPacket implements Packet {
+
+    // Distance of the last input which has been applied from the previously acknowledged one
+    private final int sequenceDelta;
+
+    // Position the paddle ended up in, in the space of who sent the inputs
+    private final int posX;
+    private final int posY;
+
+    public PaddleAckPacket(int sequenceDelta, float posX, float posY) {
+        this(sequenceDelta, toFixedPoint(posX), toFixedPoint(posY));
+    }
+
+    private PaddleAckPacket(int sequenceDelta, int posX, int posY) {
+        this.sequenceDelta = sequenceDelta;
+        this.posX = posX;
+        this.posY = posY;
+    }
+
+    public int getSequenceDelta() {
+        return sequenceDelta;
+    }
+
+    public float getPosX() {
+        return fromFixedPoint(posX);
+    }
+
+    public float getPosY() {
+        return fromFixedPoint(posY);
+    }
+
+    @Override
+    public String toString() {
+        return "PaddleAckPacket{" +
+                "sequenceDelta=" + sequenceDelta +
+                ", posX=" + getPosX() +
+                ", posY=" + getPosY() +
+                '}';
+    }
+
+    @Override
+    public void writePacket(ByteBuf buf) {
+        writeVarInt(buf, sequenceDelta);
+        writeSignedVarInt(buf, posX);
+        writeSignedVarInt(buf, posY);
+    }
+
+    public static final PacketParser<PaddleAckPacket> PARSER = buf ->
+            new PaddleAckPacket(
+                    readVarInt(buf),
+                    readSignedVarInt(buf),
+                    readSignedVarInt(buf));
+}
@@ -0,0 +1,64 @@
+package gov.ismonnet.netty.packets;
+
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketParser;
+import io.netty.buffer.ByteBuf;
+
+import static gov.ismonnet.netty.ByteBufHelper.*;
+
+public class PaddleInputPacket implements Packet {
+
+    // Distance from the sequence of the previous input, so that consecutive ones take a single byte.
+    // Needs a reliable and ordered channel.
+    private final int sequenceDelta;
+
+    // Movement of the paddle since the previous input, in the sender's space
+    private final int motionX;
+    private final int motionY;
+
+    public PaddleInputPacket(int sequenceDelta, float motionX, float motionY) {
+        this(sequenceDelta, toFixedPoint(motionX), toFixedPoint(motionY));
+    }
+
+    private PaddleInputPacket(int sequenceDelta, int motionX, int motionY) {
+        this.sequenceDelta = sequenceDelta;
+        this.motionX = motionX;
+        this.motionY = motionY;
+    }
+
+    public int getSequenceDelta() {
+        return sequenceDelta;
+    }
+
+    // Quantized, so they may differ from the ones it was constructed with
+
+    public float getMotionX() {
+        return fromFixedPoint(motionX);
+    }
+
+    public float getMotionY() {
+        return fromFixedPoint(motionY);
+    }
+
+    @Override
+    public String toString() {
+        return "PaddleInputPacket{" +
+                "sequenceDelta=" + sequenceDelta +
+                ", motionX=" + getMotionX() +
+                ", motionY=" + getMotionY() +
+                '}';
+    }
+
+    @Override
+    public void writePacket(ByteBuf buf) {
+        writeVarInt(buf, sequenceDelta);
+        writeSignedVarInt(buf, motionX);
+        writeSignedVarInt(buf, motionY);
+    }
+
+    public static final PacketParser<PaddleInputPacket> PARSER = buf ->
+            new PaddleInputPacket(
+                    readVarInt(buf),
+                    readSignedVarInt(buf),
+                    readSignedVarInt(buf));
+}
@@ -4,14 +4,48 @@ import gov.ismonnet.netty.core.Packet;
 import gov.ismonnet.netty.core.PacketParser;
 import io.netty.buffer.ByteBuf;
 
+import static gov.ismonnet.netty.ByteBufHelper.readVarInt;
+import static gov.ismonnet.netty.ByteBufHelper.writeVarInt;
+
+/**
+ * Packet sent periodically by both sides to keep the connection alive and measure it,
+ * the other side answers with a {@link PongPacket} echoing it
+ */
 public class PingPacket implements Packet {
 
+    private final int sequence;
+    // Only meaningful to the sender
+    private final long timestamp;
+
+    public PingPacket(int sequence, long timestamp) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
     @Override
     public void writePacket(ByteBuf buf) {
+        writeVarInt(buf, sequence);
+        buf.writeLong(timestamp);
+    }
+
+    @Override
+    public String toString() {
+        return "PingPacket{" +
+                "sequence=" + sequence +
+                ", timestamp=" + timestamp +
+                '}';
     }
 
     /**
      * Generates a ping packet on the heap to be used.
      */
-    public static final PacketParser PARSER = (msg) -> new PingPacket();
+    public static final PacketParser<PingPacket> PARSER = buf -> new PingPacket(readVarInt(buf), buf.readLong());
 }
@@ -4,14 +4,50 @@ import gov.ismonnet.netty.core.Packet;
 import gov.ismonnet.netty.core.PacketParser;
 import io.netty.buffer.ByteBuf;
 
+import static gov.ismonnet.netty.ByteBufHelper.readVarInt;
+import static gov.ismonnet.netty.ByteBufHelper.writeVarInt;
+
+/**
+ * Answer to a {@link PingPacket}, carrying back its sequence and timestamp
+ */
 public class PongPacket implements Packet {
 
+    private final int sequence;
+    private final long timestamp;
+
+    public PongPacket(PingPacket ping) {
+        this(ping.getSequence(), ping.getTimestamp());
+    }
+
+    public PongPacket(int sequence, long timestamp) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+    }
+
+    public int getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
     @Override
     public void writePacket(ByteBuf buf) {
+        writeVarInt(buf, sequence);
+        buf.writeLong(timestamp);
+    }
+
+    @Override
+    public String toString() {
+        return "PongPacket{" +
+                "sequence=" + sequence +
+                ", timestamp=" + timestamp +
+                '}';
     }
 
     /**
      * Parser that generates a pong packet on the heap to be used.
      */
-    public static final PacketParser PARSER = (msg) -> new PongPacket();
+    public static final PacketParser<PongPacket> PARSER = buf -> new PongPacket(readVarInt(buf), buf.readLong());
 }
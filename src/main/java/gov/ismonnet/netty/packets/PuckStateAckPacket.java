@@ -0,0 +1,36 @@
+package gov.ismonnet.netty.packets;
+
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketParser;
+import io.netty.buffer.ByteBuf;
+
+import static gov.ismonnet.netty.ByteBufHelper.readVarLong;
+import static gov.ismonnet.netty.ByteBufHelper.writeVarLong;
+
+public class PuckStateAckPacket implements Packet {
+
+    // Tick of the decoded state, which can now be used as a base
+    private final long tick;
+
+    public PuckStateAckPacket(long tick) {
+        this.tick = tick;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    @Override
+    public String toString() {
+        return "PuckStateAckPacket{" +
+                "tick=" + tick +
+                '}';
+    }
+
+    @Override
+    public void writePacket(ByteBuf buf) {
+        writeVarLong(buf, tick);
+    }
+
+    public static final PacketParser<PuckStateAckPacket> PARSER = buf -> new PuckStateAckPacket(readVarLong(buf));
+}
@@ -0,0 +1,137 @@
+package gov.ismonnet.netty.packets;
+
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketParser;
+import io.netty.buffer.ByteBuf;
+
+import static gov.ismonnet.netty.ByteBufHelper.*;
+
+/**
+ * State of the puck at a given tick of the sender, quantized with {@link gov.ismonnet.netty.ByteBufHelper#toFixedPoint(float)}
+ *
+ * If the packet has a base, it's encoded against a state the receiver already acknowledged:
+ * the tick is the distance from the base tick, while the values are the difference
+ * from the base state moved forward by its motion. The base is identified by
+ * the lowest byte of its tick, which is enough as long as it's less than 256 ticks old.
+ * Values equal to zero are not written at all.
+ */
+public class PuckStatePacket implements Packet {
+
+    // Sent as delay when no packet has been received yet
+    public static final int UNKNOWN_DELAY = Integer.MIN_VALUE;
+    public static final int NO_BASE = -1;
+
+    private static final int HAS_BASE = 1;
+    private static final int HAS_DELAY = 1 << 1;
+    private static final int HAS_POS_X = 1 << 2;
+    private static final int HAS_POS_Y = 1 << 3;
+    private static final int HAS_MOTION_X = 1 << 4;
+    private static final int HAS_MOTION_Y = 1 << 5;
+
+    // Lowest byte of the base tick or NO_BASE
+    private final int base;
+    // Tick of the sender or distance from the base one
+    private final long tick;
+    // Ticks the sender measured between the last packet it received being sent and handled
+    private final int delay;
+
+    private final int posX;
+    private final int posY;
+    private final int motionX;
+    private final int motionY;
+
+    public PuckStatePacket(int base, long tick, int delay,
+                           int posX, int posY,
+                           int motionX, int motionY) {
+        this.base = base;
+        this.tick = tick;
+        this.delay = delay;
+        this.posX = posX;
+        this.posY = posY;
+        this.motionX = motionX;
+        this.motionY = motionY;
+    }
+
+    public boolean hasBase() {
+        return base != NO_BASE;
+    }
+
+    public int getBase() {
+        return base;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getDelay() {
+        return delay;
+    }
+
+    public int getPosX() {
+        return posX;
+    }
+
+    public int getPosY() {
+        return posY;
+    }
+
+    public int getMotionX() {
+        return motionX;
+    }
+
+    public int getMotionY() {
+        return motionY;
+    }
+
+    @Override
+    public String toString() {
+        return "PuckStatePacket{" +
+                "base=" + base +
+                ", tick=" + tick +
+                ", delay=" + delay +
+                ", posX=" + posX +
+                ", posY=" + posY +
+                ", motionX=" + motionX +
+                ", motionY=" + motionY +
+                '}';
+    }
+
+    @Override
+    public void writePacket(ByteBuf buf) {
+        final int flags = (base != NO_BASE ? HAS_BASE : 0) |
+                (delay != UNKNOWN_DELAY ? HAS_DELAY : 0) |
+                (posX != 0 ? HAS_POS_X : 0) |
+                (posY != 0 ? HAS_POS_Y : 0) |
+                (motionX != 0 ? HAS_MOTION_X : 0) |
+                (motionY != 0 ? HAS_MOTION_Y : 0);
+        buf.writeByte(flags);
+
+        if(base != NO_BASE)
+            buf.writeByte(base);
+        writeVarLong(buf, tick);
+        if(delay != UNKNOWN_DELAY)
+            writeSignedVarInt(buf, delay);
+
+        if(posX != 0)
+            writeSignedVarInt(buf, posX);
+        if(posY != 0)
+            writeSignedVarInt(buf, posY);
+        if(motionX != 0)
+            writeSignedVarInt(buf, motionX);
+        if(motionY != 0)
+            writeSignedVarInt(buf, motionY);
+    }
+
+    public static final PacketParser<PuckStatePacket> PARSER = buf -> {
+        final int flags = buf.readUnsignedByte();
+        return new PuckStatePacket(
+                (flags & HAS_BASE) != 0 ? buf.readUnsignedByte() : NO_BASE,
+                readVarLong(buf),
+                (flags & HAS_DELAY) != 0 ? readSignedVarInt(buf) : UNKNOWN_DELAY,
+                (flags & HAS_POS_X) != 0 ? readSignedVarInt(buf) : 0,
+                (flags & HAS_POS_Y) != 0 ? readSignedVarInt(buf) : 0,
+                (flags & HAS_MOTION_X) != 0 ? readSignedVarInt(buf) : 0,
+                (flags & HAS_MOTION_Y) != 0 ? readSignedVarInt(buf) : 0);
+    };
+}
@@ -0,0 +1,38 @@
+package gov.ismonnet.netty.packets;
+
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketParser;
+import io.netty.buffer.ByteBuf;
+
+import static gov.ismonnet.netty.ByteBufHelper.readVarInt;
+import static gov.ismonnet.netty.ByteBufHelper.writeVarInt;
+
+/**
+ * Packet sent by a spectator to start watching a room
+ */
+public class SpectatePacket implements Packet {
+
+    private final int roomId;
+
+    public SpectatePacket(int roomId) {
+        this.roomId = roomId;
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    @Override
+    public void writePacket(ByteBuf buf) {
+        writeVarInt(buf, roomId);
+    }
+
+    @Override
+    public String toString() {
+        return "SpectatePacket{" +
+                "roomId=" + roomId +
+                '}';
+    }
+
+    public static final PacketParser<SpectatePacket> PARSER = buf -> new SpectatePacket(readVarInt(buf));
+}
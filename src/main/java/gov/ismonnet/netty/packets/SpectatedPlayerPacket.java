@@ -0,0 +1,41 @@
+package gov.ismonnet.netty.packets;
+
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketParser;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Packet starting each frame sent to spectators,
+ * telling which player sent the packets following it
+ */
+public class SpectatedPlayerPacket implements Packet {
+
+    private final boolean left;
+
+    public SpectatedPlayerPacket(boolean left) {
+        this.left = left;
+    }
+
+    /**
+     * Returns true if the packets were sent by the player which serves and plays on the left
+     *
+     * @return true if the packets come from the left player
+     */
+    public boolean isLeft() {
+        return left;
+    }
+
+    @Override
+    public void writePacket(ByteBuf buf) {
+        buf.writeBoolean(left);
+    }
+
+    @Override
+    public String toString() {
+        return "SpectatedPlayerPacket{" +
+                "left=" + left +
+                '}';
+    }
+
+    public static final PacketParser<SpectatedPlayerPacket> PARSER = buf -> new SpectatedPlayerPacket(buf.readBoolean());
+}
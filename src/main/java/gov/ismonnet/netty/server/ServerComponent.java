@@ -3,7 +3,10 @@ package gov.ismonnet.netty.server;
 import dagger.BindsInstance;
 import dagger.Subcomponent;
 import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.NetProtocol;
 import gov.ismonnet.netty.NetSession;
+import gov.ismonnet.netty.NetStats;
+import gov.ismonnet.netty.NetTransport;
 import gov.ismonnet.netty.Port;
 import gov.ismonnet.netty.core.NetService;
 
@@ -15,12 +18,20 @@ public interface ServerComponent {
 
     NetService netService();
 
+    NetStats netStats();
+
     @Subcomponent.Builder
     interface Builder {
 
         @BindsInstance
         Builder injectPort(@Port int port);
 
+        @BindsInstance
+        Builder injectProtocol(NetProtocol protocol);
+
+        @BindsInstance
+        Builder injectTransport(NetTransport transport);
+
         ServerComponent build();
     }
 }
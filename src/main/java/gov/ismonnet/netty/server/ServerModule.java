@@ -1,18 +1,20 @@
 package gov.ismonnet.netty.server;
 
-import dagger.Binds;
 import dagger.Module;
 import dagger.Provides;
 import dagger.multibindings.ClassKey;
 import dagger.multibindings.IntoMap;
 import gov.ismonnet.lifecycle.LifeCycleManager;
 import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.NetProtocol;
 import gov.ismonnet.netty.NetSession;
+import gov.ismonnet.netty.NetTransport;
 import gov.ismonnet.netty.SharedNetModule;
 import gov.ismonnet.netty.core.NetService;
 import gov.ismonnet.netty.core.PacketParser;
 import gov.ismonnet.netty.packets.DisconnectPacket;
-import gov.ismonnet.netty.packets.PingPacket;
+
+import javax.inject.Provider;
 
 @Module(includes = SharedNetModule.class)
 public abstract class ServerModule {
@@ -22,12 +24,23 @@ public abstract class ServerModule {
         return new LifeCycleManager("server");
     }
 
-    @Binds @NetSession
-    abstract NetService netService(ServerNetService serverNetService);
-
-    @Provides @IntoMap @ClassKey(PingPacket.class)
-    static PacketParser pingParser() {
-        return PingPacket.PARSER;
+    @Provides @NetSession
+    static NetService netService(NetProtocol protocol,
+                                 NetTransport transport,
+                                 Provider<ServerNetService> tcpNetService,
+                                 Provider<UdpServerNetService> udpNetService,
+                                 Provider<SharedMemoryServerNetService> sharedMemoryNetService) {
+        protocol.checkTransport(transport);
+        switch (protocol) {
+            case TCP:
+                return tcpNetService.get();
+            case UDP:
+                return udpNetService.get();
+            case SHARED_MEMORY:
+                return sharedMemoryNetService.get();
+            default:
+                throw new AssertionError("Protocol " + protocol + " hasn't been implemented");
+        }
     }
 
     @Provides @IntoMap @ClassKey(DisconnectPacket.class)
@@ -1,53 +1,36 @@
 package gov.ismonnet.netty.server;
 
-import gov.ismonnet.event.EventListener;
-import gov.ismonnet.event.bus.BaseBus;
-import gov.ismonnet.event.bus.WeakBus;
-import gov.ismonnet.lifecycle.LifeCycle;
 import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.BaseNetService;
 import gov.ismonnet.netty.KeepAliveTimeout;
+import gov.ismonnet.netty.NetPipeline;
+import gov.ismonnet.netty.NetStats;
+import gov.ismonnet.netty.NetTransport;
+import gov.ismonnet.netty.PingInterval;
 import gov.ismonnet.netty.Port;
-import gov.ismonnet.netty.codecs.ByteStuffingDecoder;
-import gov.ismonnet.netty.codecs.ByteStuffingEncoder;
-import gov.ismonnet.netty.codecs.PacketDecoder;
-import gov.ismonnet.netty.codecs.PacketEncoder;
-import gov.ismonnet.netty.core.NetService;
-import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.ProtocolVersion;
 import gov.ismonnet.netty.core.PacketIdService;
-import gov.ismonnet.netty.exceptions.DelimiterDecoderException;
-import gov.ismonnet.netty.exceptions.NetworkException;
-import gov.ismonnet.netty.packets.DisconnectPacket;
 import gov.ismonnet.netty.packets.KickPacket;
-import gov.ismonnet.netty.packets.PingPacket;
-import gov.ismonnet.netty.packets.PongPacket;
+import gov.ismonnet.netty.packets.MatchFoundPacket;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.timeout.ReadTimeoutException;
-import io.netty.handler.timeout.ReadTimeoutHandler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.inject.Inject;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 
-public class ServerNetService implements NetService, LifeCycle {
+public class ServerNetService extends BaseNetService {
 
     private static final Logger LOGGER = LogManager.getLogger(ServerNetService.class);
 //    private final static int SHUTDOWN_TIMEOUT = 5000;
 
     private static CompletableFuture<Void> SHUT_DOWN_FUTURE = CompletableFuture.completedFuture(null);
 
-    private final LifeCycleService lifeCycleService;
-
+    private final PacketIdService packetIdService;
     private final ServerBootstrap bootstrap;
     private final int port;
 
-    private final BaseBus<Packet> delegateBus;
-
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
 
@@ -56,42 +39,32 @@ public class ServerNetService implements NetService, LifeCycle {
     private CompletableFuture<Channel> clientFuture;
     private Channel clientChannel;
 
-    private volatile boolean isStopped = false;
-
     @Inject ServerNetService(@Port int port,
                              @KeepAliveTimeout int keepAliveTimeout,
+                             @PingInterval int pingInterval,
+                             @ProtocolVersion int protocolVersion,
+                             NetStats stats,
+                             NetTransport transport,
                              PacketIdService packetIdService,
                              LifeCycleService lifeCycleService) {
+        super(keepAliveTimeout, pingInterval, protocolVersion, stats, transport, lifeCycleService);
         this.port = port;
-        this.lifeCycleService = lifeCycleService;
+        this.packetIdService = packetIdService;
 
-        this.delegateBus = new WeakBus<>();
         this.bootstrap = new ServerBootstrap()
-                .channel(NioServerSocketChannel.class)
-                .childOption(ChannelOption.TCP_NODELAY, true)
-                .childHandler(new ChannelInitializer<SocketChannel>() {
-                    @Override
-                    protected void initChannel(SocketChannel ch) {
-                        // Decoders
-
-                        ch.pipeline().addLast("timeout", new ReadTimeoutHandler(keepAliveTimeout, TimeUnit.MILLISECONDS));
-                        ch.pipeline().addLast("framer", new ByteStuffingDecoder());
-                        ch.pipeline().addLast("decoder", new PacketDecoder(packetIdService::getParserById));
-
-                        // Encoders
-
-                        ch.pipeline().addLast("frame_encoder", new ByteStuffingEncoder());
-                        ch.pipeline().addLast("encoder", new PacketEncoder(packetIdService::getPacketId));
-
-                        // Handlers
+                .channel(transport.serverChannel())
+                .childHandler(newInitializer())
+                .localAddress(transport.bindAddress(port));
+    }
 
-                        ch.pipeline().addLast("keep_alive_handler", new KeepAliveHandler());
-                        ch.pipeline().addLast("packet_handler", new PacketHandler());
-                    }
-                })
-                .localAddress(port);
+    @Override
+    protected void initCodecs(ChannelPipeline pipeline) {
+        NetPipeline.addStreamCodecs(pipeline, packetIdService);
+    }
 
-        lifeCycleService.register(this);
+    @Override
+    protected KeepAliveHandler newKeepAliveHandler() {
+        return new ClientKeepAliveHandler();
     }
 
     @Override
@@ -102,8 +75,8 @@ public class ServerNetService implements NetService, LifeCycle {
         SHUT_DOWN_FUTURE.get();
         LOGGER.trace("[Start] Binding new socket...");
 
-        bossGroup = new NioEventLoopGroup();
-        workerGroup = new NioEventLoopGroup();
+        bossGroup = transport.newEventLoopGroup();
+        workerGroup = transport.newEventLoopGroup();
 
         try {
             clientFuture = new CompletableFuture<>();
@@ -127,15 +100,13 @@ public class ServerNetService implements NetService, LifeCycle {
     }
 
     @Override
-    public void stop() throws Exception {
+    protected void shutdown() throws Exception {
         LOGGER.trace("[Stop] Waiting for previous socket to release...");
         SHUT_DOWN_FUTURE.get();
         LOGGER.trace("[Stop] Waiting for new socket to bind...");
         bindFuture.get();
         LOGGER.trace("[Stop] Stopping...");
 
-        isStopped = true;
-
         if(clientFuture != null)
             clientFuture.cancel(true);
 
@@ -154,49 +125,18 @@ public class ServerNetService implements NetService, LifeCycle {
     }
 
     @Override
-    public CompletableFuture<Void> sendPacket(Packet packet) {
-        LOGGER.trace("Sending packet {}", packet);
-
-        final CompletableFuture<Void> future = new CompletableFuture<>();
-        clientChannel.writeAndFlush(packet).addListener(channelFuture -> {
-            if(channelFuture.isSuccess())
-                future.complete(null);
-            else
-                future.completeExceptionally(channelFuture.cause());
-        });
-        return future;
+    protected Channel channel() {
+        return clientChannel;
     }
 
-    @ChannelHandler.Sharable
-    private final class KeepAliveHandler extends SimpleChannelInboundHandler<Packet> {
+    private final class ClientKeepAliveHandler extends KeepAliveHandler {
 
-        @Override
-        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-            super.channelRead(ctx, msg);
-            ctx.fireChannelRead(msg); // Make the packet go through the pipeline
-        }
+        // Only the served client is measured, the others are kicked
+        private boolean isServed;
 
         @Override
-        protected void channelRead0(ChannelHandlerContext ctx, Packet msg) {
-            if(msg instanceof PingPacket)
-                ctx.write(new PongPacket());
-        }
-
-        @Override
-        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
-            if(cause instanceof DelimiterDecoderException) {
-                LOGGER.error("Exception while framing packets (Sender: {})", ctx, cause);
-
-            } else if(cause instanceof NetworkException) {
-                LOGGER.error("Exception while decoding packets (Sender: {})", ctx, cause);
-
-            } else  {
-                if(cause instanceof ReadTimeoutException)
-                    LOGGER.error("Connection timed out (Ctx: {})", ctx, cause);
-                else
-                    LOGGER.error("Uncaught exception inside the Netty pipeline (Ctx: {}) {}", ctx, cause);
-                ctx.close();
-            }
+        protected boolean isMeasured() {
+            return isServed;
         }
 
         @Override
@@ -207,75 +147,13 @@ public class ServerNetService implements NetService, LifeCycle {
                 ctx.close();
             }
 
-            if(clientFuture != null)
+            if(clientFuture != null) {
+                // The host always serves
+                ctx.writeAndFlush(new MatchFoundPacket(false));
+                isServed = true;
                 clientFuture.complete(ctx.channel());
+            }
             super.channelActive(ctx);
         }
-
-        @Override
-        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-            LOGGER.trace("Channel inactive");
-            super.channelInactive(ctx);
-
-            if(!isStopped)
-                lifeCycleService.stop();
-        }
-    }
-
-    @ChannelHandler.Sharable
-    private final class PacketHandler extends SimpleChannelInboundHandler<Packet> {
-
-        @Override
-        protected void channelRead0(ChannelHandlerContext ctx, Packet msg) {
-
-            if(msg instanceof DisconnectPacket)
-                ctx.close();
-
-            LOGGER.trace("Handle packet {}", msg);
-            post(msg);
-        }
-
-        @Override
-        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
-            ctx.flush();
-            super.channelReadComplete(ctx);
-        }
-    }
-
-    // Delegate event bus
-
-    @Override
-    public void register(EventListener<? extends Packet> listener) {
-        delegateBus.register(listener);
-    }
-
-    @Override
-    public void registerObj(Object obj) {
-        delegateBus.registerObj(obj);
-    }
-
-    @Override
-    public void registerObj(Object obj, Class<? extends Packet>... events) {
-        delegateBus.registerObj(obj, events);
-    }
-
-    @Override
-    public void unregister(EventListener<? extends Packet> listener) {
-        delegateBus.unregister(listener);
-    }
-
-    @Override
-    public void unregisterObj(Object obj) {
-        delegateBus.unregisterObj(obj);
-    }
-
-    @Override
-    public void unregisterObj(Object obj, Class<? extends Packet>... events) {
-        delegateBus.unregisterObj(obj, events);
-    }
-
-    @Override
-    public Packet post(Packet event) {
-        return delegateBus.post(event);
     }
 }
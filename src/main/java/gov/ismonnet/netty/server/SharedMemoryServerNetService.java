@@ -0,0 +1,92 @@
+package gov.ismonnet.netty.server;
+
+import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.Port;
+import gov.ismonnet.netty.ProtocolVersion;
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketIdService;
+import gov.ismonnet.netty.packets.MatchFoundPacket;
+import gov.ismonnet.netty.packets.PingPacket;
+import gov.ismonnet.netty.packets.PongPacket;
+import gov.ismonnet.netty.shm.SharedMemoryFile;
+import gov.ismonnet.netty.shm.SharedMemoryNetService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.LockSupport;
+
+public class SharedMemoryServerNetService extends SharedMemoryNetService {
+
+    private static final Logger LOGGER = LogManager.getLogger(SharedMemoryServerNetService.class);
+    private static final long CONNECT_POLL_NANOS = 1_000_000;
+
+    private final Path path;
+    private final int protocolVersion;
+
+    @Inject SharedMemoryServerNetService(@Port int port,
+                                         @ProtocolVersion int protocolVersion,
+                                         PacketIdService packetIdService,
+                                         LifeCycleService lifeCycleService) {
+        super("server", packetIdService, lifeCycleService);
+
+        this.path = SharedMemoryFile.pathFor(port);
+        this.protocolVersion = protocolVersion;
+    }
+
+    @Override
+    protected SharedMemoryFile connect() throws Exception {
+        LOGGER.trace("[Start] Creating {}...", path);
+        final SharedMemoryFile file = SharedMemoryFile.create(path, protocolVersion, RING_CAPACITY);
+
+        try {
+            LOGGER.trace("[Start] Waiting for a client...");
+            while(!file.isPeerConnected()) {
+                // Otherwise a client would take the file for a stale one
+                file.beat();
+                if(isStopped())
+                    throw new CancellationException();
+                if(Thread.interrupted())
+                    throw new InterruptedException();
+                LockSupport.parkNanos(CONNECT_POLL_NANOS);
+            }
+        } catch (Exception ex) {
+            file.close();
+            file.release();
+            deleteFile();
+            throw ex;
+        }
+        return file;
+    }
+
+    @Override
+    public void start() throws Exception {
+        super.start();
+        // The host always serves
+        sendPacket(new MatchFoundPacket(false));
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        deleteFile();
+    }
+
+    private void deleteFile() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            LOGGER.error("Couldn't delete {}", path, ex);
+        }
+    }
+
+    @Override
+    protected void onPacket(Packet packet) {
+        if(packet instanceof PingPacket)
+            sendPacket(new PongPacket((PingPacket) packet));
+    }
+}
@@ -0,0 +1,132 @@
+package gov.ismonnet.netty.server;
+
+import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.BaseNetService;
+import gov.ismonnet.netty.HandshakeHandler;
+import gov.ismonnet.netty.KeepAliveTimeout;
+import gov.ismonnet.netty.NetStats;
+import gov.ismonnet.netty.NetTransport;
+import gov.ismonnet.netty.PingInterval;
+import gov.ismonnet.netty.Port;
+import gov.ismonnet.netty.ProtocolVersion;
+import gov.ismonnet.netty.ReliablePackets;
+import gov.ismonnet.netty.codecs.PacketDecoder;
+import gov.ismonnet.netty.codecs.PacketEncoder;
+import gov.ismonnet.netty.codecs.SequencedDatagramCodec;
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketIdService;
+import gov.ismonnet.netty.exceptions.NetworkException;
+import gov.ismonnet.netty.packets.MatchFoundPacket;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.*;
+
+import javax.inject.Inject;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+public class UdpServerNetService extends BaseNetService {
+
+    private final Set<Class<? extends Packet>> reliablePackets;
+    private final PacketIdService packetIdService;
+    private final Bootstrap bootstrap;
+
+    private EventLoopGroup group;
+    private Channel channel;
+
+    // Completed once a client completes the handshake
+    private CompletableFuture<Void> clientFuture;
+
+    @Inject UdpServerNetService(@Port int port,
+                                @KeepAliveTimeout int keepAliveTimeout,
+                                @PingInterval int pingInterval,
+                                @ProtocolVersion int protocolVersion,
+                                @ReliablePackets Set<Class<? extends Packet>> reliablePackets,
+                                NetStats stats,
+                                NetTransport transport,
+                                PacketIdService packetIdService,
+                                LifeCycleService lifeCycleService) {
+        super(keepAliveTimeout, pingInterval, protocolVersion, stats, transport, lifeCycleService);
+        this.reliablePackets = reliablePackets;
+        this.packetIdService = packetIdService;
+
+        this.bootstrap = new Bootstrap()
+                .channel(transport.datagramChannel())
+                .handler(newInitializer())
+                .localAddress(port);
+    }
+
+    @Override
+    protected void initCodecs(ChannelPipeline pipeline) {
+        // The first client to send a datagram becomes the peer
+        pipeline.addLast("codec", new SequencedDatagramCodec(
+                new PacketEncoder(packetIdService::getPacketId),
+                new PacketDecoder(packetIdService::getParserById),
+                reliablePackets,
+                null));
+    }
+
+    @Override
+    protected ChannelHandler newHandshakeHandler(int protocolVersion) {
+        // There is no connection, so the client starts
+        return new HandshakeHandler(protocolVersion, false);
+    }
+
+    @Override
+    protected KeepAliveHandler newKeepAliveHandler() {
+        return new ClientKeepAliveHandler();
+    }
+
+    @Override
+    public void start() throws Exception {
+        group = transport.newEventLoopGroup();
+
+        try {
+            clientFuture = new CompletableFuture<>();
+            channel = bootstrap.group(group)
+                    .bind()
+                    .sync()
+                    .channel();
+
+            clientFuture.get();
+        } finally {
+            clientFuture = null;
+        }
+    }
+
+    @Override
+    protected void shutdown() {
+        final CompletableFuture<Void> clientFuture = this.clientFuture;
+        if(clientFuture != null)
+            clientFuture.cancel(true);
+
+        if(group != null)
+            group.shutdownGracefully();
+    }
+
+    @Override
+    protected Channel channel() {
+        return channel;
+    }
+
+    private final class ClientKeepAliveHandler extends KeepAliveHandler {
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            final CompletableFuture<Void> clientFuture = UdpServerNetService.this.clientFuture;
+            if(evt == HandshakeHandler.HandshakeEvent.COMPLETED && clientFuture != null) {
+                // The host always serves
+                ctx.writeAndFlush(new MatchFoundPacket(false));
+                clientFuture.complete(null);
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            final CompletableFuture<Void> clientFuture = UdpServerNetService.this.clientFuture;
+            if(clientFuture != null)
+                clientFuture.completeExceptionally(new NetworkException("Channel closed before a client connected"));
+            super.channelInactive(ctx);
+        }
+    }
+}
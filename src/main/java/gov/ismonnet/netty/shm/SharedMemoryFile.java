@@ -0,0 +1,325 @@
+package gov.ismonnet.netty.shm;
+
+import gov.ismonnet.netty.exceptions.NetworkException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import static gov.ismonnet.netty.shm.UnsafeAccess.compareAndSwapInt;
+import static gov.ismonnet.netty.shm.UnsafeAccess.getInt;
+import static gov.ismonnet.netty.shm.UnsafeAccess.getIntVolatile;
+import static gov.ismonnet.netty.shm.UnsafeAccess.getLongVolatile;
+import static gov.ismonnet.netty.shm.UnsafeAccess.putInt;
+import static gov.ismonnet.netty.shm.UnsafeAccess.putIntVolatile;
+import static gov.ismonnet.netty.shm.UnsafeAccess.putOrderedLong;
+
+/**
+ * Memory mapped file shared by a server and a client running on the same machine
+ *
+ * The file starts with a header containing a magic number, the protocol version of the server,
+ * the capacity of the rings and the state and heartbeat of the two sides, followed by the ring written
+ * by the server and by the one written by the client.
+ *
+ * A side which crashes never gets to mark itself as closed, so each one periodically writes
+ * the current time in its heartbeat and the other one gives up on it once it's too old.
+ *
+ * @author Ferlo
+ *
+ * @see SharedMemoryRing
+ */
+public class SharedMemoryFile {
+
+    // Constants
+
+    /**
+     * Directory backed by memory on Linux, so that the file never hits the disk
+     */
+    private static final Path SHM_DIRECTORY = Paths.get("/dev/shm");
+
+    /**
+     * Number identifying the files created by servers
+     */
+    private static final int MAGIC = 0x49534D53;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int PROTOCOL_VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SERVER_STATE_OFFSET = 64;
+    private static final int CLIENT_STATE_OFFSET = 68;
+    private static final int SERVER_HEARTBEAT_OFFSET = 72;
+    private static final int CLIENT_HEARTBEAT_OFFSET = 80;
+    /**
+     * Bytes preceding the rings
+     */
+    private static final int HEADER_SIZE = 128;
+
+    /**
+     * State of a side which hasn't opened the file yet
+     */
+    private static final int STATE_NONE = 0;
+    /**
+     * State of a side which is reading and writing
+     */
+    private static final int STATE_OPEN = 1;
+    /**
+     * State of a side which is gone
+     */
+    private static final int STATE_CLOSED = 2;
+
+    /**
+     * Milliseconds between two heartbeats of the same side
+     */
+    private static final long HEARTBEAT_INTERVAL = 100;
+    /**
+     * Milliseconds after the last heartbeat after which a side is considered dead
+     */
+    private static final long HEARTBEAT_TIMEOUT = 3000;
+
+    // Attributes
+
+    /**
+     * Address of the first byte of the file
+     */
+    private final long address;
+
+    /**
+     * Keeps the mapping alive until it's released
+     */
+    private final MappedByteBuffer mappedBuffer;
+
+    private final SharedMemoryRing serverRing;
+    private final SharedMemoryRing clientRing;
+
+    private final boolean isServer;
+
+    /**
+     * Time of the last heartbeat written by this side
+     */
+    private long lastHeartbeat;
+
+    private SharedMemoryFile(MappedByteBuffer mappedBuffer, int capacity, boolean isServer) {
+        this.mappedBuffer = mappedBuffer;
+        this.address = PlatformDependent.directBufferAddress(mappedBuffer);
+        this.isServer = isServer;
+
+        final ByteBuf buffer = Unpooled.wrappedBuffer(mappedBuffer);
+        final int serverOffset = HEADER_SIZE;
+        final int clientOffset = serverOffset + SharedMemoryRing.HEADER_SIZE + capacity;
+
+        this.serverRing = new SharedMemoryRing(
+                address + serverOffset,
+                buffer.slice(serverOffset + SharedMemoryRing.HEADER_SIZE, capacity),
+                capacity,
+                isServer);
+        this.clientRing = new SharedMemoryRing(
+                address + clientOffset,
+                buffer.slice(clientOffset + SharedMemoryRing.HEADER_SIZE, capacity),
+                capacity,
+                !isServer);
+    }
+
+    /**
+     * Returns the file used by the server listening on the given port
+     *
+     * @param port port the server would have listened on
+     * @return path of the file
+     */
+    public static Path pathFor(int port) {
+        final Path directory = Files.isDirectory(SHM_DIRECTORY) && Files.isWritable(SHM_DIRECTORY) ?
+                SHM_DIRECTORY :
+                Paths.get(System.getProperty("java.io.tmpdir"));
+        return directory.resolve("ismonnet-" + port + ".shm");
+    }
+
+    /**
+     * Creates the file of a server, replacing any previous one
+     *
+     * @param path path of the file
+     * @param protocolVersion version of the protocol spoken by the server
+     * @param capacity size of each ring, has to be a power of 2
+     * @return the server side of the file
+     * @throws IOException if the file couldn't be created
+     */
+    public static SharedMemoryFile create(Path path, int protocolVersion, int capacity) throws IOException {
+        // Whoever still has the old one mapped keeps using it on its own
+        Files.deleteIfExists(path);
+
+        final MappedByteBuffer mappedBuffer;
+        try(FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            mappedBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+        }
+
+        final SharedMemoryFile file = new SharedMemoryFile(mappedBuffer, capacity, true);
+        putInt(file.address + MAGIC_OFFSET, MAGIC);
+        putInt(file.address + PROTOCOL_VERSION_OFFSET, protocolVersion);
+        putInt(file.address + CAPACITY_OFFSET, capacity);
+        file.heartbeat(System.currentTimeMillis());
+        // Publishes the header
+        file.setState(STATE_OPEN);
+        return file;
+    }
+
+    /**
+     * Opens the file of a server as its client
+     *
+     * @param path path of the file
+     * @param protocolVersion version of the protocol spoken by the client
+     * @return the client side of the file
+     * @throws ConnectException if there is no server, it crashed or it already has a client
+     * @throws NetworkException if the server speaks a different protocol version
+     * @throws IOException if the file couldn't be opened
+     */
+    public static SharedMemoryFile open(Path path, int protocolVersion) throws IOException {
+        final MappedByteBuffer mappedBuffer;
+        final int capacity;
+        try(FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+
+            if(channel.size() < HEADER_SIZE)
+                throw new ConnectException("No server is listening on " + path);
+
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            try {
+                final long headerAddress = PlatformDependent.directBufferAddress(header);
+                if(getIntVolatile(headerAddress + SERVER_STATE_OFFSET) != STATE_OPEN ||
+                        getInt(headerAddress + MAGIC_OFFSET) != MAGIC)
+                    throw new ConnectException("No server is listening on " + path);
+                // Left behind by a server which crashed
+                if(isExpired(getLongVolatile(headerAddress + SERVER_HEARTBEAT_OFFSET)))
+                    throw new ConnectException("No server is listening on " + path + " anymore");
+
+                final int remoteVersion = getInt(headerAddress + PROTOCOL_VERSION_OFFSET);
+                if(remoteVersion != protocolVersion)
+                    throw new NetworkException("Protocol version mismatch (local: " + protocolVersion + ", remote: " + remoteVersion + ')');
+
+                capacity = getInt(headerAddress + CAPACITY_OFFSET);
+            } finally {
+                PlatformDependent.freeDirectBuffer(header);
+            }
+
+            mappedBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+        } catch (NoSuchFileException ex) {
+            throw new ConnectException("No server is listening on " + path);
+        }
+
+        final SharedMemoryFile file = new SharedMemoryFile(mappedBuffer, capacity, false);
+        // Has to be there before the server can see the client
+        file.heartbeat(System.currentTimeMillis());
+        if(!compareAndSwapInt(file.address + CLIENT_STATE_OFFSET, STATE_NONE, STATE_OPEN)) {
+            file.release();
+            throw new ConnectException("A player is already connected");
+        }
+        return file;
+    }
+
+    private static long fileSize(int capacity) {
+        return HEADER_SIZE + 2L * (SharedMemoryRing.HEADER_SIZE + capacity);
+    }
+
+    /**
+     * Returns the ring written by this side
+     *
+     * @return outbound ring
+     */
+    public SharedMemoryRing outbound() {
+        return isServer ? serverRing : clientRing;
+    }
+
+    /**
+     * Returns the ring written by the other side
+     *
+     * @return inbound ring
+     */
+    public SharedMemoryRing inbound() {
+        return isServer ? clientRing : serverRing;
+    }
+
+    /**
+     * Returns true once the other side has opened the file
+     *
+     * @return true if the other side has connected
+     */
+    public boolean isPeerConnected() {
+        return getPeerState() != STATE_NONE;
+    }
+
+    /**
+     * Returns true once the other side has closed the file
+     *
+     * @return true if the other side is gone
+     */
+    public boolean isPeerClosed() {
+        return getPeerState() == STATE_CLOSED;
+    }
+
+    /**
+     * Returns false if the other side has connected but stopped beating,
+     * which means it crashed or it has been stuck for too long
+     *
+     * @return true if the other side can still be waited for
+     */
+    public boolean isPeerAlive() {
+        return !isPeerConnected() ||
+                !isExpired(getLongVolatile(address + (isServer ? CLIENT_HEARTBEAT_OFFSET : SERVER_HEARTBEAT_OFFSET)));
+    }
+
+    /**
+     * Tells the other side that this one is still alive
+     *
+     * Has to be called more often than the heartbeat timeout,
+     * it only writes to the file every once in a while.
+     */
+    public void beat() {
+        final long now = System.currentTimeMillis();
+        if(now - lastHeartbeat >= HEARTBEAT_INTERVAL)
+            heartbeat(now);
+    }
+
+    /**
+     * Tells the other side that this one is gone
+     */
+    public void close() {
+        setState(STATE_CLOSED);
+    }
+
+    /**
+     * Unmaps the file without waiting for the garbage collector
+     *
+     * Nothing, including the rings, can touch the file afterwards,
+     * so it has to be called once no other thread is using it.
+     */
+    public void release() {
+        PlatformDependent.freeDirectBuffer(mappedBuffer);
+    }
+
+    private void heartbeat(long now) {
+        lastHeartbeat = now;
+        putOrderedLong(address + (isServer ? SERVER_HEARTBEAT_OFFSET : CLIENT_HEARTBEAT_OFFSET), now);
+    }
+
+    private static boolean isExpired(long heartbeat) {
+        return System.currentTimeMillis() - heartbeat > HEARTBEAT_TIMEOUT;
+    }
+
+    private int getPeerState() {
+        return getIntVolatile(address + (isServer ? CLIENT_STATE_OFFSET : SERVER_STATE_OFFSET));
+    }
+
+    private void setState(int state) {
+        putIntVolatile(address + (isServer ? SERVER_STATE_OFFSET : CLIENT_STATE_OFFSET), state);
+    }
+}
@@ -0,0 +1,317 @@
+package gov.ismonnet.netty.shm;
+
+import gov.ismonnet.event.EventListener;
+import gov.ismonnet.event.bus.BaseBus;
+import gov.ismonnet.event.bus.WeakBus;
+import gov.ismonnet.lifecycle.LifeCycle;
+import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.codecs.PacketDecoder;
+import gov.ismonnet.netty.codecs.PacketEncoder;
+import gov.ismonnet.netty.core.NetService;
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketIdService;
+import gov.ismonnet.netty.exceptions.NetworkException;
+import gov.ismonnet.util.SneakyThrow;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Talks to a process on the same machine through a {@link SharedMemoryFile}
+ *
+ * Packets are encoded like the other net services do and sent as one frame per packet or per flush.
+ * Frames are read by a thread which spins for a while after each one, so that
+ * a frame sent while it's spinning is handed off without any system call.
+ */
+public abstract class SharedMemoryNetService implements NetService, LifeCycle {
+
+    private static final Logger LOGGER = LogManager.getLogger(SharedMemoryNetService.class);
+
+    // Size of each ring
+    protected static final int RING_CAPACITY = 1 << 20;
+
+    // Empty reads before starting to yield and then to park.
+    // Spinning on a single core only delays the other side
+    private static final int SPIN_TRIES = Runtime.getRuntime().availableProcessors() > 1 ? 100_000 : 0;
+    private static final int YIELD_TRIES = 1_000;
+    private static final long PARK_NANOS = 50_000;
+
+    // How long a full ring is waited on before giving up on the other side,
+    // shorter than the heartbeat timeout as the reader can be the one waiting
+    private static final long WRITE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final int INITIAL_FRAME_CAPACITY = 64;
+
+    private final LifeCycleService lifeCycleService;
+    private final String name;
+
+    private final PacketEncoder packetEncoder;
+    private final PacketDecoder packetDecoder;
+
+    private final BaseBus<Packet> delegateBus;
+
+    // Only touched by the thread which queues and flushes
+    private final List<Packet> queuedPackets;
+
+    // Guards the outbound ring, which has a single producer,
+    // and the mapping, which is released by the reader once it's done
+    private final Object writeLock;
+    private final ByteBuf writeBuffer;
+
+    // Null once released
+    private volatile SharedMemoryFile file;
+    private volatile boolean isStopped;
+    // Set when the other side stopped reading, the reader then ends the session
+    private volatile boolean isFailed;
+
+    protected SharedMemoryNetService(String name,
+                                     PacketIdService packetIdService,
+                                     LifeCycleService lifeCycleService) {
+        this.name = name;
+        this.lifeCycleService = lifeCycleService;
+
+        this.packetEncoder = new PacketEncoder(packetIdService::getPacketId);
+        this.packetDecoder = new PacketDecoder(packetIdService::getParserById);
+
+        this.delegateBus = new WeakBus<>();
+        this.queuedPackets = new ArrayList<>();
+        this.writeLock = new Object();
+        this.writeBuffer = Unpooled.buffer(INITIAL_FRAME_CAPACITY);
+
+        lifeCycleService.register(this);
+    }
+
+    /**
+     * Opens the file and waits until the other side is there
+     *
+     * @return the opened file
+     * @throws Exception if the other side couldn't be reached
+     */
+    protected abstract SharedMemoryFile connect() throws Exception;
+
+    /**
+     * Called on the reader thread for each received packet, before it's posted
+     *
+     * @param packet received packet
+     */
+    protected void onPacket(Packet packet) {
+    }
+
+    @Override
+    public void start() throws Exception {
+        file = connect();
+
+        final Thread reader = new Thread(this::readLoop, name + "-shm-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @Override
+    public void stop() {
+        isStopped = true;
+
+        synchronized (writeLock) {
+            final SharedMemoryFile file = this.file;
+            if(file != null)
+                file.close();
+            else
+                // Never connected or already released
+                releaseWriteBuffer();
+        }
+        // Otherwise the reader releases everything when it notices
+    }
+
+    protected boolean isStopped() {
+        return isStopped;
+    }
+
+    private void readLoop() {
+        final SharedMemoryFile file = this.file;
+        final SharedMemoryRing inbound = file.inbound();
+        final ByteBuf frame = Unpooled.buffer(INITIAL_FRAME_CAPACITY);
+
+        try {
+            int idleCount = 0;
+            while(!isStopped && !isFailed) {
+                file.beat();
+
+                frame.clear();
+                if(!inbound.read(frame)) {
+                    // Only closes once everything it sent has been read
+                    if(file.isPeerClosed())
+                        break;
+                    if(!file.isPeerAlive()) {
+                        LOGGER.error("The other side stopped responding");
+                        break;
+                    }
+                    idleCount = idle(idleCount);
+                    continue;
+                }
+
+                idleCount = 0;
+                try {
+                    while(frame.isReadable()) {
+                        final Packet packet = packetDecoder.decode(frame);
+
+                        LOGGER.trace("Handle packet {}", packet);
+                        onPacket(packet);
+                        post(packet);
+                    }
+                } catch (NetworkException ex) {
+                    LOGGER.error("Exception while decoding packets", ex);
+                }
+            }
+        } catch (Throwable t) {
+            LOGGER.error("Uncaught exception while reading packets", t);
+        } finally {
+            frame.release();
+
+            synchronized (writeLock) {
+                // Stopped before it had the chance of telling the other side
+                file.close();
+                this.file = null;
+                file.release();
+                releaseWriteBuffer();
+            }
+        }
+
+        LOGGER.trace("Shared memory closed");
+        if(!isStopped)
+            SneakyThrow.runUnchecked(lifeCycleService::stop);
+    }
+
+    // Has to hold the write lock
+    private void releaseWriteBuffer() {
+        if(writeBuffer.refCnt() != 0)
+            writeBuffer.release();
+    }
+
+    private static int idle(int idleCount) {
+        if(idleCount < SPIN_TRIES) {
+            // Busy spin
+        } else if(idleCount < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+            return idleCount;
+        }
+        return idleCount + 1;
+    }
+
+    @Override
+    public CompletableFuture<Void> sendPacket(Packet packet) {
+        LOGGER.trace("Sending packet {}", packet);
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        synchronized (writeLock) {
+            try {
+                final SharedMemoryFile file = openFile();
+                writeBuffer.clear();
+                packetEncoder.encode(packet, writeBuffer);
+                write(file);
+                future.complete(null);
+            } catch (NetworkException ex) {
+                future.completeExceptionally(ex);
+            }
+        }
+        return future;
+    }
+
+    @Override
+    public void queuePacket(Packet packet) {
+        queuedPackets.add(packet);
+    }
+
+    @Override
+    public void flushPackets() {
+        if(queuedPackets.isEmpty())
+            return;
+
+        LOGGER.trace("Sending packets {}", queuedPackets);
+        synchronized (writeLock) {
+            try {
+                final SharedMemoryFile file = openFile();
+                writeBuffer.clear();
+                for(Packet packet : queuedPackets)
+                    packetEncoder.encode(packet, writeBuffer);
+                write(file);
+            } catch (NetworkException ex) {
+                LOGGER.error("Exception while sending packets", ex);
+            } finally {
+                queuedPackets.clear();
+            }
+        }
+    }
+
+    // Has to hold the write lock
+    private SharedMemoryFile openFile() throws NetworkException {
+        final SharedMemoryFile file = this.file;
+        if(file == null || isStopped)
+            throw new NetworkException("Shared memory isn't open");
+        return file;
+    }
+
+    // Has to hold the write lock
+    private void write(SharedMemoryFile file) throws NetworkException {
+        // Wait for the other side to make room
+        final SharedMemoryRing outbound = file.outbound();
+        if(outbound.write(writeBuffer))
+            return;
+
+        final long deadline = System.nanoTime() + WRITE_TIMEOUT_NANOS;
+        int idleCount = 0;
+        while(!outbound.write(writeBuffer)) {
+            if(isStopped || isFailed || file.isPeerClosed())
+                throw new NetworkException("Shared memory has been closed");
+            if(!file.isPeerAlive() || System.nanoTime() - deadline > 0) {
+                isFailed = true;
+                throw new NetworkException("The other side stopped reading");
+            }
+            idleCount = idle(idleCount);
+        }
+    }
+
+    // Delegate event bus
+
+    @Override
+    public void register(EventListener<? extends Packet> listener) {
+        delegateBus.register(listener);
+    }
+
+    @Override
+    public void registerObj(Object obj) {
+        delegateBus.registerObj(obj);
+    }
+
+    @Override
+    public void registerObj(Object obj, Class<? extends Packet>... events) {
+        delegateBus.registerObj(obj, events);
+    }
+
+    @Override
+    public void unregister(EventListener<? extends Packet> listener) {
+        delegateBus.unregister(listener);
+    }
+
+    @Override
+    public void unregisterObj(Object obj) {
+        delegateBus.unregisterObj(obj);
+    }
+
+    @Override
+    public void unregisterObj(Object obj, Class<? extends Packet>... events) {
+        delegateBus.unregisterObj(obj, events);
+    }
+
+    @Override
+    public Packet post(Packet event) {
+        return delegateBus.post(event);
+    }
+}
@@ -0,0 +1,179 @@
+package gov.ismonnet.netty.shm;
+
+import gov.ismonnet.netty.exceptions.NetworkException;
+import io.netty.buffer.ByteBuf;
+
+import static gov.ismonnet.netty.shm.UnsafeAccess.getLongVolatile;
+import static gov.ismonnet.netty.shm.UnsafeAccess.putOrderedLong;
+
+/**
+ * Single producer, single consumer ring buffer of frames living in shared memory
+ *
+ * The ring starts with the positions of the two sides, each one in its own cache line
+ * so that they don't keep invalidating each other, followed by the data.
+ * Positions only grow, the index in the data is the position modulo the capacity.
+ *
+ * Each frame is written as its length followed by its bytes and never wraps around:
+ * if it doesn't fit before the end of the data, the rest is skipped with a padding marker.
+ * The producer publishes its position only after the frame has been written,
+ * and the consumer publishes its own only after the frame has been copied out.
+ *
+ * @author Ferlo
+ */
+public class SharedMemoryRing {
+
+    // Constants
+
+    /**
+     * Size of a cache line
+     */
+    private static final int CACHE_LINE = 64;
+
+    /**
+     * Offset of the position written by the producer
+     */
+    private static final int WRITE_POSITION_OFFSET = 0;
+    /**
+     * Offset of the position written by the consumer
+     */
+    private static final int READ_POSITION_OFFSET = CACHE_LINE;
+    /**
+     * Bytes preceding the data
+     */
+    static final int HEADER_SIZE = CACHE_LINE * 2;
+
+    /**
+     * Bytes used to write the length of a frame
+     */
+    private static final int LENGTH_SIZE = Integer.BYTES;
+    /**
+     * Frames start at multiples of this, so that a length never crosses the end of the data
+     */
+    private static final int ALIGNMENT = LENGTH_SIZE;
+    /**
+     * Length marking the space skipped to get back to the start of the data
+     */
+    private static final int PADDING = -1;
+
+    // Attributes
+
+    /**
+     * Address of the first byte of the ring
+     */
+    private final long address;
+    /**
+     * Size of the data, a power of 2
+     */
+    private final int capacity;
+    /**
+     * Buffer mapping the data
+     */
+    private final ByteBuf data;
+
+    /**
+     * Position of this side, only written by the producer or by the consumer
+     */
+    private long position;
+    /**
+     * Last seen position of the other side, so that the shared one isn't read for every frame
+     */
+    private long otherPosition;
+
+    /**
+     * Constructs a ring on the given memory
+     *
+     * @param address address of the first byte of the ring
+     * @param data buffer mapping the {@code capacity} bytes following the header
+     * @param capacity size of the data, has to be a power of 2
+     * @param isProducer true if this side writes in the ring, false if it reads from it
+     */
+    SharedMemoryRing(long address, ByteBuf data, int capacity, boolean isProducer) {
+        if(Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacity has to be a power of 2 (" + capacity + ')');
+
+        this.address = address;
+        this.data = data;
+        this.capacity = capacity;
+
+        final long writePosition = getLongVolatile(address + WRITE_POSITION_OFFSET);
+        final long readPosition = getLongVolatile(address + READ_POSITION_OFFSET);
+        this.position = isProducer ? writePosition : readPosition;
+        this.otherPosition = isProducer ? readPosition : writePosition;
+    }
+
+    /**
+     * Writes a frame containing the readable bytes of the given buffer
+     *
+     * Must only be called by the producer.
+     *
+     * @param frame bytes to write, its reader index is not modified
+     * @return true if the frame was written, false if there isn't enough space for it yet
+     * @throws NetworkException if the frame could never fit in the ring
+     */
+    public boolean write(ByteBuf frame) throws NetworkException {
+        final int length = frame.readableBytes();
+        final int frameSize = align(LENGTH_SIZE + length);
+        if(frameSize > capacity)
+            throw new NetworkException("Frame is bigger than the ring (length: " + length + ", capacity: " + capacity + ')');
+
+        int index = index(position);
+        final int padding = frameSize > capacity - index ? capacity - index : 0;
+
+        if(position + padding + frameSize - otherPosition > capacity) {
+            otherPosition = getLongVolatile(address + READ_POSITION_OFFSET);
+            if(position + padding + frameSize - otherPosition > capacity)
+                return false;
+        }
+
+        if(padding != 0) {
+            data.setInt(index, PADDING);
+            index = 0;
+        }
+
+        data.setInt(index, length);
+        data.setBytes(index + LENGTH_SIZE, frame, frame.readerIndex(), length);
+
+        position += padding + frameSize;
+        putOrderedLong(address + WRITE_POSITION_OFFSET, position);
+        return true;
+    }
+
+    /**
+     * Reads the next frame and appends its bytes to the given buffer
+     *
+     * Must only be called by the consumer.
+     *
+     * @param out buffer to write the frame into
+     * @return true if a frame was read, false if the ring is empty
+     */
+    public boolean read(ByteBuf out) {
+        if(position == otherPosition) {
+            otherPosition = getLongVolatile(address + WRITE_POSITION_OFFSET);
+            if(position == otherPosition)
+                return false;
+        }
+
+        int index = index(position);
+        int length = data.getInt(index);
+        // A frame is always published together with the padding before it
+        if(length == PADDING) {
+            position += capacity - index;
+            index = 0;
+            length = data.getInt(index);
+        }
+
+        out.writeBytes(data, index + LENGTH_SIZE, length);
+
+        position += align(LENGTH_SIZE + length);
+        putOrderedLong(address + READ_POSITION_OFFSET, position);
+        return true;
+    }
+
+    private int index(long position) {
+        return (int) (position & (capacity - 1));
+    }
+
+    private static int align(int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
@@ -0,0 +1,63 @@
+package gov.ismonnet.netty.shm;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+
+/**
+ * Reads and writes memory shared between processes
+ * with the ordering guarantees that plain buffer accesses don't have
+ *
+ * Netty's {@code PlatformDependent} only exposes plain accesses to raw addresses,
+ * and var handles need Java 9, so the volatile, ordered and atomic ones go straight to {@code sun.misc.Unsafe}.
+ * This is the only class using it: javac warns about the internal API on every use
+ * and the warning can't be suppressed, so it's kept to this file.
+ *
+ * @author Ferlo
+ */
+final class UnsafeAccess {
+
+    private UnsafeAccess() {} // Limit scope
+
+    // Constants
+
+    private static final Unsafe UNSAFE;
+
+    static {
+        try {
+            final Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe) field.get(null);
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static int getInt(long address) {
+        return UNSAFE.getInt(address);
+    }
+
+    static void putInt(long address, int value) {
+        UNSAFE.putInt(address, value);
+    }
+
+    static int getIntVolatile(long address) {
+        return UNSAFE.getIntVolatile(null, address);
+    }
+
+    static void putIntVolatile(long address, int value) {
+        UNSAFE.putIntVolatile(null, address, value);
+    }
+
+    static boolean compareAndSwapInt(long address, int expected, int value) {
+        return UNSAFE.compareAndSwapInt(null, address, expected, value);
+    }
+
+    static long getLongVolatile(long address) {
+        return UNSAFE.getLongVolatile(null, address);
+    }
+
+    static void putOrderedLong(long address, long value) {
+        UNSAFE.putOrderedLong(null, address, value);
+    }
+}
@@ -0,0 +1,125 @@
+package gov.ismonnet.rooms;
+
+import gov.ismonnet.game.headless.MatchBot;
+import gov.ismonnet.game.headless.Simulation;
+import gov.ismonnet.game.headless.SimulationListener;
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketBundle;
+import gov.ismonnet.netty.packets.GoalPacket;
+import gov.ismonnet.netty.packets.MatchFoundPacket;
+import gov.ismonnet.netty.packets.PuckStatePacket;
+import io.netty.channel.Channel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Match between a connected player and the side hosted by the server, played by a bot
+ *
+ * The hosted side is a headless simulation which is ticked, fed and flushed by the shard.
+ * The bot serves, so it's the left player for spectators.
+ */
+public class BotRoom extends Room {
+
+    private static final Logger LOGGER = LogManager.getLogger(BotRoom.class);
+
+    private final Channel channel;
+    private final MatchBot bot;
+
+    // Only touched by the shard
+    private final List<Packet> queuedPackets;
+    private final List<Packet> playerPackets;
+    private Simulation simulation;
+    private ScheduledFuture<?> tickFuture;
+
+    private volatile long ticks;
+
+    BotRoom(int id, Shard shard, SpectatorGroup spectators, Channel channel, MatchBot bot) {
+        super(id, shard, spectators);
+        this.channel = channel;
+        this.bot = bot;
+        this.queuedPackets = new ArrayList<>();
+        this.playerPackets = new ArrayList<>();
+    }
+
+    @Override
+    void open() {
+        simulation = Simulation.create(true, new SimulationListener() {
+            @Override
+            public void onGoal() {
+                BotRoom.this.queuedPackets.add(new GoalPacket());
+            }
+
+            @Override
+            public void onPuckHandoff(PuckStatePacket packet) {
+                BotRoom.this.queuedPackets.add(packet);
+            }
+
+            @Override
+            public void onPacket(Packet packet) {
+                BotRoom.this.queuedPackets.add(packet);
+            }
+        });
+
+        // The bot serves
+        channel.writeAndFlush(new MatchFoundPacket(false), channel.voidPromise());
+
+        final long period = TimeUnit.SECONDS.toNanos(1) / simulation.getTickRate();
+        tickFuture = getShard().scheduleAtFixedRate(this::tick, period, TimeUnit.NANOSECONDS);
+        LOGGER.trace("Opened room {} for {}", getId(), channel.remoteAddress());
+    }
+
+    private void tick() {
+        bot.control(simulation);
+        simulation.tick();
+        ticks = simulation.getTicks();
+
+        if(queuedPackets.isEmpty())
+            return;
+
+        final PacketBundle bundle = new PacketBundle(queuedPackets);
+        getSpectators().broadcast(true, queuedPackets);
+        queuedPackets.clear();
+        // Errors are fired through the pipeline
+        channel.writeAndFlush(bundle, channel.voidPromise());
+    }
+
+    @Override
+    void receive(Channel player, Packet packet) {
+        // Handled at the start of the next tick
+        simulation.receivePacket(packet);
+        // Even if no one is watching, spectators need every puck state to decode the next ones
+        playerPackets.add(packet);
+    }
+
+    @Override
+    void flush(Channel player) {
+        // What the bot sends is sent when ticking
+        getSpectators().broadcast(false, playerPackets);
+        playerPackets.clear();
+    }
+
+    @Override
+    void close() {
+        if(tickFuture != null)
+            tickFuture.cancel(false);
+        if(simulation != null)
+            simulation.close();
+        LOGGER.trace("Closed room {}", getId());
+    }
+
+    @Override
+    public List<SocketAddress> getPlayerAddresses() {
+        return Collections.singletonList(channel.remoteAddress());
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+}
@@ -0,0 +1,82 @@
+package gov.ismonnet.rooms;
+
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketBundle;
+import gov.ismonnet.netty.packets.KickPacket;
+import gov.ismonnet.netty.packets.MatchFoundPacket;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Match between two connected players
+ *
+ * Both players simulate the match themselves like they would when connected to each other,
+ * so the room just relays what one sends to the other.
+ */
+public class MatchRoom extends Room {
+
+    private static final Logger LOGGER = LogManager.getLogger(MatchRoom.class);
+
+    private final Channel left;
+    private final Channel right;
+
+    // Only touched by the shard
+    private final List<Packet> toLeft;
+    private final List<Packet> toRight;
+
+    MatchRoom(int id, Shard shard, SpectatorGroup spectators, Channel left, Channel right) {
+        super(id, shard, spectators);
+        this.left = left;
+        this.right = right;
+        this.toLeft = new ArrayList<>();
+        this.toRight = new ArrayList<>();
+    }
+
+    @Override
+    void open() {
+        // The one which waited longer serves
+        left.writeAndFlush(new MatchFoundPacket(true), left.voidPromise());
+        right.writeAndFlush(new MatchFoundPacket(false), right.voidPromise());
+        LOGGER.trace("Opened room {} for {} and {}", getId(), left.remoteAddress(), right.remoteAddress());
+    }
+
+    @Override
+    void receive(Channel player, Packet packet) {
+        (player == left ? toRight : toLeft).add(packet);
+    }
+
+    @Override
+    void flush(Channel player) {
+        final Channel opponent = player == left ? right : left;
+        final List<Packet> queuedPackets = player == left ? toRight : toLeft;
+        if(queuedPackets.isEmpty())
+            return;
+
+        final PacketBundle bundle = new PacketBundle(queuedPackets);
+        getSpectators().broadcast(player == left, queuedPackets);
+        queuedPackets.clear();
+        // Errors are fired through the pipeline
+        opponent.writeAndFlush(bundle, opponent.voidPromise());
+    }
+
+    @Override
+    void close() {
+        for(Channel player : Arrays.asList(left, right))
+            if(player.isActive())
+                player.writeAndFlush(new KickPacket("The opponent left"))
+                        .addListener(ChannelFutureListener.CLOSE);
+        LOGGER.trace("Closed room {}", getId());
+    }
+
+    @Override
+    public List<SocketAddress> getPlayerAddresses() {
+        return Arrays.asList(left.remoteAddress(), right.remoteAddress());
+    }
+}
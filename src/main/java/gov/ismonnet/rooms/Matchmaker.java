@@ -0,0 +1,161 @@
+package gov.ismonnet.rooms;
+
+import io.netty.channel.Channel;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Pairs the players waiting for an opponent in the order they arrived
+ *
+ * Players are added to a lock-free queue by the event loops of their channels.
+ * Whoever adds one then tries to drain the queue, but only one thread at a time does,
+ * so pairs are always made by a single consumer without ever blocking the others.
+ * A player left without an opponent for too long is handed off on its own.
+ */
+public class Matchmaker {
+
+    private final Queue<Ticket> queue;
+    private final AtomicBoolean isDraining;
+
+    private final long timeoutNanos;
+    private final BiConsumer<Channel, Channel> onMatch;
+    private final Consumer<Channel> onTimeout;
+
+    // Only touched while draining
+    private Ticket waiting;
+
+    private final AtomicInteger queuedCount;
+    private final LongAdder matchedCount;
+    private final LongAdder totalWaitNanos;
+    private final AtomicLong maxWaitNanos;
+
+    /**
+     * Constructs a matchmaker
+     *
+     * @param timeout time a player waits for an opponent before being handed to {@code onTimeout}
+     * @param unit unit of the timeout
+     * @param onMatch called with the two players of each match, the first one has been waiting longer
+     * @param onTimeout called with the players which waited too long
+     */
+    Matchmaker(long timeout, TimeUnit unit,
+               BiConsumer<Channel, Channel> onMatch,
+               Consumer<Channel> onTimeout) {
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.onMatch = onMatch;
+        this.onTimeout = onTimeout;
+
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.isDraining = new AtomicBoolean();
+
+        this.queuedCount = new AtomicInteger();
+        this.matchedCount = new LongAdder();
+        this.totalWaitNanos = new LongAdder();
+        this.maxWaitNanos = new AtomicLong();
+    }
+
+    void enqueue(Channel channel) {
+        queue.offer(new Ticket(channel, System.nanoTime()));
+        queuedCount.incrementAndGet();
+        drain();
+    }
+
+    /**
+     * Pairs the queued players and hands off the ones which waited too long
+     *
+     * Returns immediately if another thread is already doing it.
+     */
+    void drain() {
+        // If a player is queued after the drain ends but before the flag is reset,
+        // the one which queued it has failed to drain, so check again
+        do {
+            if(!isDraining.compareAndSet(false, true))
+                return;
+
+            try {
+                drain0();
+            } finally {
+                isDraining.set(false);
+            }
+        } while(!queue.isEmpty());
+    }
+
+    private void drain0() {
+        final long now = System.nanoTime();
+
+        Ticket ticket;
+        while((ticket = queue.poll()) != null) {
+            if(!ticket.channel.isActive()) {
+                queuedCount.decrementAndGet();
+                continue;
+            }
+
+            if(waiting == null || !waiting.channel.isActive()) {
+                if(waiting != null)
+                    queuedCount.decrementAndGet();
+                waiting = ticket;
+                continue;
+            }
+
+            final Ticket first = waiting;
+            waiting = null;
+            matched(first, now);
+            matched(ticket, now);
+            onMatch.accept(first.channel, ticket.channel);
+        }
+
+        if(waiting != null && !waiting.channel.isActive()) {
+            queuedCount.decrementAndGet();
+            waiting = null;
+        } else if(waiting != null && now - waiting.queuedAt >= timeoutNanos) {
+            final Ticket first = waiting;
+            waiting = null;
+            matched(first, now);
+            onTimeout.accept(first.channel);
+        }
+    }
+
+    private void matched(Ticket ticket, long now) {
+        final long wait = now - ticket.queuedAt;
+        queuedCount.decrementAndGet();
+        matchedCount.increment();
+        totalWaitNanos.add(wait);
+        maxWaitNanos.accumulateAndGet(wait, Math::max);
+    }
+
+    public int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    // Players which left the queue with an opponent or because of the timeout
+    public long getMatchedCount() {
+        return matchedCount.sum();
+    }
+
+    public long getAverageWaitNanos() {
+        final long matched = matchedCount.sum();
+        return matched == 0 ? 0 : totalWaitNanos.sum() / matched;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    private static final class Ticket {
+
+        private final Channel channel;
+        private final long queuedAt;
+
+        Ticket(Channel channel, long queuedAt) {
+            this.channel = channel;
+            this.queuedAt = queuedAt;
+        }
+    }
+}
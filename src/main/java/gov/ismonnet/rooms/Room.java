@@ -0,0 +1,64 @@
+package gov.ismonnet.rooms;
+
+import gov.ismonnet.netty.core.Packet;
+import io.netty.channel.Channel;
+
+import java.net.SocketAddress;
+import java.util.List;
+
+/**
+ * Match hosted by the server
+ *
+ * A room lives on a single {@link Shard}: everything it does runs on its event loop,
+ * and rooms on different shards never share anything. The channels of its players are
+ * moved onto that event loop before the room opens, so reading their packets, running the room
+ * and writing to them never cross threads. What the players send is also broadcast
+ * to the {@link SpectatorGroup} of the room, whose channels stay on their own event loops.
+ */
+public abstract class Room {
+
+    private final int id;
+    private final Shard shard;
+    private final SpectatorGroup spectators;
+
+    Room(int id, Shard shard, SpectatorGroup spectators) {
+        this.id = id;
+        this.shard = shard;
+        this.spectators = spectators;
+    }
+
+    // All of these have to be called by the shard
+
+    abstract void open();
+
+    abstract void receive(Channel player, Packet packet);
+
+    // Called after a batch of packets has been read from the player
+    abstract void flush(Channel player);
+
+    abstract void close();
+
+    public int getId() {
+        return id;
+    }
+
+    public Shard getShard() {
+        return shard;
+    }
+
+    public SpectatorGroup getSpectators() {
+        return spectators;
+    }
+
+    public abstract List<SocketAddress> getPlayerAddresses();
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "id=" + id +
+                ", shard=" + shard.getId() +
+                ", players=" + getPlayerAddresses() +
+                ", spectators=" + spectators.size() +
+                '}';
+    }
+}
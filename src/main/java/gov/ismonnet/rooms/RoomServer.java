@@ -0,0 +1,387 @@
+package gov.ismonnet.rooms;
+
+import gov.ismonnet.game.headless.MatchBot;
+import gov.ismonnet.lifecycle.LifeCycle;
+import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.HandshakeHandler;
+import gov.ismonnet.netty.KeepAliveTimeout;
+import gov.ismonnet.netty.NetPipeline;
+import gov.ismonnet.netty.NetSession;
+import gov.ismonnet.netty.NetTransport;
+import gov.ismonnet.netty.Port;
+import gov.ismonnet.netty.ProtocolVersion;
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketIdService;
+import gov.ismonnet.netty.packets.DisconnectPacket;
+import gov.ismonnet.netty.packets.KickPacket;
+import gov.ismonnet.netty.packets.PingPacket;
+import gov.ismonnet.netty.packets.PongPacket;
+import gov.ismonnet.netty.packets.SpectatePacket;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.*;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Server which stays bound to its port and finds a match for every player which connects
+ *
+ * Players are paired by a {@link Matchmaker} and each pair gets a {@link MatchRoom} on the least loaded {@link Shard},
+ * one of the event loops serving the connections, which the players are moved onto. A player which finds no opponent in time plays against a bot in a {@link BotRoom}.
+ * Rooms are opened and closed without touching the others or the listening socket.
+ *
+ * Spectators connect to a second port and ask to watch a room by its id.
+ */
+@NetSession
+public class RoomServer implements LifeCycle {
+
+    private static final Logger LOGGER = LogManager.getLogger(RoomServer.class);
+
+    private static final AttributeKey<Room> ROOM = AttributeKey.valueOf("room");
+
+    // Time a player waits for an opponent before getting a bot
+    private static final long MATCH_TIMEOUT_MILLIS = 10_000;
+    private static final long DRAIN_PERIOD_MILLIS = 100;
+    private static final long REPORT_PERIOD_MILLIS = 10_000;
+
+    private static final WriteBufferWaterMark SPECTATOR_WATER_MARK = new WriteBufferWaterMark(32 * 1024, 64 * 1024);
+
+    private final ServerBootstrap bootstrap;
+    private final ServerBootstrap spectatorBootstrap;
+    private final NetTransport transport;
+    private final PacketIdService packetIdService;
+    private final Provider<MatchBot> botProvider;
+
+    private final Matchmaker matchmaker;
+    private final ConcurrentMap<Integer, Room> rooms;
+    private final Collection<Room> unmodifiableRooms;
+    private final AtomicInteger nextRoomId;
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private Channel serverChannel;
+    private Channel spectatorChannel;
+
+    private volatile List<Shard> shards;
+
+    // Only touched by the boss event loop
+    private long lastReportNanos;
+    private long[] lastBusyNanos;
+
+    @Inject RoomServer(@Port int port,
+                       @SpectatorPort int spectatorPort,
+                       @KeepAliveTimeout int keepAliveTimeout,
+                       @ProtocolVersion int protocolVersion,
+                       NetTransport transport,
+                       PacketIdService packetIdService,
+                       Provider<MatchBot> botProvider,
+                       LifeCycleService lifeCycleService) {
+        this.transport = transport;
+        this.botProvider = botProvider;
+        this.packetIdService = packetIdService;
+
+        this.matchmaker = new Matchmaker(MATCH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS, this::openMatch, this::openBotRoom);
+        this.rooms = new ConcurrentHashMap<>();
+        this.unmodifiableRooms = Collections.unmodifiableCollection(rooms.values());
+        this.nextRoomId = new AtomicInteger();
+        this.shards = Collections.emptyList();
+
+        final RoomHandler roomHandler = new RoomHandler();
+        this.bootstrap = new ServerBootstrap()
+                .channel(transport.serverChannel())
+                .childHandler(newInitializer(keepAliveTimeout, protocolVersion, packetIdService, ch ->
+                        ch.pipeline().addLast("room_handler", roomHandler)))
+                .localAddress(transport.bindAddress(port));
+
+        final SpectatorHandler spectatorHandler = new SpectatorHandler();
+        this.spectatorBootstrap = new ServerBootstrap()
+                .channel(transport.serverChannel())
+                .childHandler(newInitializer(keepAliveTimeout, protocolVersion, packetIdService, ch -> {
+                    // Spectators skip frames when they have more than this queued
+                    ch.config().setWriteBufferWaterMark(SPECTATOR_WATER_MARK);
+                    ch.pipeline().addLast("spectator_handler", spectatorHandler);
+                }))
+                .localAddress(transport.bindAddress(spectatorPort));
+
+        lifeCycleService.register(this);
+    }
+
+    private ChannelInitializer<Channel> newInitializer(int keepAliveTimeout,
+                                                       int protocolVersion,
+                                                       PacketIdService packetIdService,
+                                                       Consumer<Channel> handlers) {
+        return new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                transport.configure(ch);
+
+                // Codecs
+
+                NetPipeline.addTimeout(ch.pipeline(), keepAliveTimeout);
+                NetPipeline.addStreamCodecs(ch.pipeline(), packetIdService);
+
+                // Handlers
+
+                ch.pipeline().addLast("handshake_handler", new HandshakeHandler(protocolVersion));
+                handlers.accept(ch);
+            }
+        };
+    }
+
+    @Override
+    public void start() throws Exception {
+        bossGroup = transport.newEventLoopGroup();
+        workerGroup = transport.newEventLoopGroup();
+
+        final List<Shard> shards = new ArrayList<>();
+        for(EventExecutor executor : workerGroup)
+            shards.add(new Shard(shards.size(), (EventLoop) executor));
+        this.shards = Collections.unmodifiableList(shards);
+
+        serverChannel = bootstrap.group(bossGroup, workerGroup)
+                .bind()
+                .sync()
+                .channel();
+        spectatorChannel = spectatorBootstrap.group(bossGroup, workerGroup)
+                .bind()
+                .sync()
+                .channel();
+        LOGGER.info("Hosting rooms on {} ({} shards), spectators on {}",
+                serverChannel.localAddress(), shards.size(), spectatorChannel.localAddress());
+
+        lastReportNanos = System.nanoTime();
+        lastBusyNanos = new long[shards.size()];
+        // Hands off the players which waited too long even if nobody else joins
+        serverChannel.eventLoop().scheduleAtFixedRate(matchmaker::drain,
+                DRAIN_PERIOD_MILLIS, DRAIN_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        serverChannel.eventLoop().scheduleAtFixedRate(this::report,
+                REPORT_PERIOD_MILLIS, REPORT_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        // Closing the channels closes their rooms
+        bossGroup.shutdownGracefully().sync();
+        workerGroup.shutdownGracefully().sync();
+    }
+
+    /**
+     * Returns a future completed once the server stops listening
+     *
+     * @return future completed when the server channel closes
+     */
+    public ChannelFuture closeFuture() {
+        return serverChannel.closeFuture();
+    }
+
+    // Called by the matchmaker
+
+    private void openMatch(Channel left, Channel right) {
+        open(new MatchRoom(nextRoomId.getAndIncrement(), leastLoadedShard(), new SpectatorGroup(packetIdService), left, right),
+                left, right);
+    }
+
+    private void openBotRoom(Channel player) {
+        open(new BotRoom(nextRoomId.getAndIncrement(), leastLoadedShard(), new SpectatorGroup(packetIdService), player, botProvider.get()),
+                player);
+    }
+
+    private Shard leastLoadedShard() {
+        Shard leastLoaded = null;
+        for(Shard shard : shards)
+            if(leastLoaded == null || shard.getRoomCount() < leastLoaded.getRoomCount())
+                leastLoaded = shard;
+        return leastLoaded;
+    }
+
+    private void open(Room room, Channel... players) {
+        final Shard shard = room.getShard();
+        rooms.put(room.getId(), room);
+        shard.addRoom();
+
+        // Run by the shard once each player has been moved onto it
+        final AtomicInteger pending = new AtomicInteger(players.length);
+        for(Channel player : players)
+            shard.adopt(player).addListener(future -> {
+                if(rooms.get(room.getId()) != room) {
+                    // The other player left while this one was being moved
+                    if(player.isActive())
+                        player.writeAndFlush(new KickPacket("The opponent left"))
+                                .addListener(ChannelFutureListener.CLOSE);
+                    return;
+                }
+
+                // A player which left in the meantime won't see the room
+                if(!future.isSuccess() || !player.isActive()) {
+                    close(room);
+                    return;
+                }
+
+                player.attr(ROOM).set(room);
+                if(pending.decrementAndGet() == 0)
+                    shard.run(room::open);
+            });
+    }
+
+    private void close(Room room) {
+        if(!rooms.remove(room.getId(), room))
+            return;
+        room.getShard().removeRoom();
+        room.getShard().execute(() -> {
+            room.close();
+            room.getSpectators().close();
+        });
+    }
+
+    private void report() {
+        final long now = System.nanoTime();
+        final long elapsed = now - lastReportNanos;
+        lastReportNanos = now;
+
+        int spectators = 0;
+        for(Room room : rooms.values())
+            spectators += room.getSpectators().size();
+
+        LOGGER.info("{} rooms, {} spectators, {} players queued, {} matched (wait avg: {}ms, max: {}ms)",
+                rooms.size(),
+                spectators,
+                matchmaker.getQueuedCount(),
+                matchmaker.getMatchedCount(),
+                TimeUnit.NANOSECONDS.toMillis(matchmaker.getAverageWaitNanos()),
+                TimeUnit.NANOSECONDS.toMillis(matchmaker.getMaxWaitNanos()));
+
+        for(Shard shard : shards) {
+            final long busy = shard.getBusyNanos();
+            final long busyDelta = busy - lastBusyNanos[shard.getId()];
+            lastBusyNanos[shard.getId()] = busy;
+
+            LOGGER.info("Shard {}: {} rooms, {}% busy",
+                    shard.getId(),
+                    shard.getRoomCount(),
+                    String.format("%.1f", busyDelta * 100D / elapsed));
+        }
+    }
+
+    public Collection<Room> getRooms() {
+        return unmodifiableRooms;
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public Matchmaker getMatchmaker() {
+        return matchmaker;
+    }
+
+    private abstract class ConnectionHandler extends SimpleChannelInboundHandler<Packet> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Packet msg) {
+
+            if(msg instanceof PingPacket) {
+                ctx.write(new PongPacket((PingPacket) msg));
+                return;
+            }
+
+            if(msg instanceof DisconnectPacket) {
+                ctx.close();
+                return;
+            }
+
+            handlePacket(ctx, msg);
+        }
+
+        protected abstract void handlePacket(ChannelHandlerContext ctx, Packet msg);
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+            ctx.flush();
+            super.channelReadComplete(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            if(cause instanceof ClosedChannelException)
+                // Writes which were still queued when the channel got closed, like the frames of a dropped spectator
+                LOGGER.trace("Write on closed channel (Ctx: {})", ctx);
+            else
+                NetPipeline.exceptionCaught(ctx, cause);
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private final class RoomHandler extends ConnectionHandler {
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if(evt == HandshakeHandler.HandshakeEvent.COMPLETED)
+                matchmaker.enqueue(ctx.channel());
+            super.userEventTriggered(ctx, evt);
+        }
+
+        @Override
+        protected void handlePacket(ChannelHandlerContext ctx, Packet msg) {
+            // Anything sent while still queued is dropped
+            final Room room = ctx.channel().attr(ROOM).get();
+            if(room != null)
+                room.getShard().run(() -> room.receive(ctx.channel(), msg));
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+            final Room room = ctx.channel().attr(ROOM).get();
+            if(room != null)
+                room.getShard().run(() -> room.flush(ctx.channel()));
+            super.channelReadComplete(ctx);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            final Room room = ctx.channel().attr(ROOM).get();
+            if(room != null)
+                close(room);
+            super.channelInactive(ctx);
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private final class SpectatorHandler extends ConnectionHandler {
+
+        @Override
+        protected void handlePacket(ChannelHandlerContext ctx, Packet msg) {
+            if(!(msg instanceof SpectatePacket))
+                return;
+
+            final int roomId = ((SpectatePacket) msg).getRoomId();
+            final Room room = rooms.get(roomId);
+            if(room == null) {
+                ctx.writeAndFlush(new KickPacket("There is no room " + roomId))
+                        .addListener(ChannelFutureListener.CLOSE);
+                return;
+            }
+
+            LOGGER.trace("{} is spectating room {}", ctx.channel().remoteAddress(), roomId);
+            final Channel spectator = ctx.channel();
+            room.getShard().execute(() -> room.getSpectators().add(spectator));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package gov.ismonnet.rooms;
+
+import dagger.BindsInstance;
+import dagger.Component;
+import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.NetSession;
+import gov.ismonnet.netty.NetTransport;
+import gov.ismonnet.netty.Port;
+
+@NetSession
+@Component(modules = RoomsModule.class)
+public interface RoomsComponent {
+
+    LifeCycleService lifeCycle();
+
+    RoomServer server();
+
+    @Component.Builder
+    interface Builder {
+
+        @BindsInstance
+        Builder injectPort(@Port int port);
+
+        @BindsInstance
+        Builder injectTransport(NetTransport transport);
+
+        RoomsComponent build();
+    }
+}
@@ -0,0 +1,50 @@
+package gov.ismonnet.rooms;
+
+import dagger.Module;
+import dagger.Provides;
+import dagger.multibindings.ClassKey;
+import dagger.multibindings.IntoMap;
+import gov.ismonnet.game.headless.ChasingBot;
+import gov.ismonnet.game.headless.MatchBot;
+import gov.ismonnet.lifecycle.LifeCycleManager;
+import gov.ismonnet.lifecycle.LifeCycleService;
+import gov.ismonnet.netty.NetSession;
+import gov.ismonnet.netty.Port;
+import gov.ismonnet.netty.SharedNetModule;
+import gov.ismonnet.netty.core.PacketParser;
+import gov.ismonnet.netty.packets.DisconnectPacket;
+import gov.ismonnet.netty.packets.SpectatePacket;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@Module(includes = SharedNetModule.class)
+abstract class RoomsModule {
+
+    private static final float BOT_MAX_SPEED = 12;
+
+    @Provides @NetSession
+    static LifeCycleService lifeCycleService() {
+        return new LifeCycleManager("rooms");
+    }
+
+    @Provides @SpectatorPort
+    static int spectatorPort(@Port int port) {
+        return port + 1;
+    }
+
+    // A new one for each room
+    @Provides
+    static MatchBot matchBot() {
+        return new ChasingBot(BOT_MAX_SPEED, ThreadLocalRandom.current().nextLong());
+    }
+
+    @Provides @IntoMap @ClassKey(DisconnectPacket.class)
+    static PacketParser disconnectParser() {
+        return DisconnectPacket.PARSER;
+    }
+
+    @Provides @IntoMap @ClassKey(SpectatePacket.class)
+    static PacketParser spectateParser() {
+        return SpectatePacket.PARSER;
+    }
+}
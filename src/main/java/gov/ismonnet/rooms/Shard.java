@@ -0,0 +1,122 @@
+package gov.ismonnet.rooms;
+
+import gov.ismonnet.netty.NetPipeline;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Event loop running the rooms assigned to it
+ *
+ * The channels of the players of its rooms are moved onto it, so that a room never crosses threads.
+ * It keeps track of how many rooms it's running and of how long it spent running them,
+ * so that new rooms can go to the least loaded one and its utilisation can be reported.
+ */
+public class Shard {
+
+    private final int id;
+    private final EventLoop eventLoop;
+
+    private final AtomicInteger roomCount;
+    // Only written by the event loop
+    private volatile long busyNanos;
+
+    Shard(int id, EventLoop eventLoop) {
+        this.id = id;
+        this.eventLoop = eventLoop;
+        this.roomCount = new AtomicInteger();
+    }
+
+    void execute(Runnable task) {
+        eventLoop.execute(() -> run(task));
+    }
+
+    ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period, TimeUnit unit) {
+        return eventLoop.scheduleAtFixedRate(() -> run(task), period, period, unit);
+    }
+
+    // Runs the task right away, has to be called by the event loop
+    void run(Runnable task) {
+        final long start = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            busyNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Moves the channel from the event loop it was accepted by to the one of the shard
+     *
+     * The channel stops reading while it's moved, what it already read has been handled by the old event loop.
+     * The timer of its timeout handler is started again on the new event loop.
+     *
+     * @param channel channel to move
+     * @return future completed by the event loop of the shard once the channel has been registered to it
+     */
+    Future<Void> adopt(Channel channel) {
+        final Promise<Void> promise = eventLoop.newPromise();
+        if(channel.eventLoop() == eventLoop)
+            return promise.setSuccess(null);
+
+        // Has to be deregistered by its own event loop before another one can register it
+        channel.deregister().addListener(deregistered -> {
+            if(!deregistered.isSuccess()) {
+                promise.setFailure(deregistered.cause());
+                return;
+            }
+
+            eventLoop.register(channel).addListener(registered -> {
+                if(!registered.isSuccess()) {
+                    promise.setFailure(registered.cause());
+                    return;
+                }
+
+                NetPipeline.restartTimeout(channel.pipeline());
+                promise.setSuccess(null);
+            });
+        });
+        return promise;
+    }
+
+    void addRoom() {
+        roomCount.incrementAndGet();
+    }
+
+    void removeRoom() {
+        roomCount.decrementAndGet();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getRoomCount() {
+        return roomCount.get();
+    }
+
+    /**
+     * Returns the time spent running rooms since the shard was created
+     *
+     * The utilisation over a period is the difference between two readings
+     * divided by the length of the period.
+     *
+     * @return busy time in nanoseconds
+     */
+    public long getBusyNanos() {
+        return busyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Shard{" +
+                "id=" + id +
+                ", rooms=" + roomCount +
+                '}';
+    }
+}
@@ -0,0 +1,119 @@
+package gov.ismonnet.rooms;
+
+import gov.ismonnet.event.EventListener;
+import gov.ismonnet.event.Listener;
+import gov.ismonnet.event.listeners.SyncListener;
+import gov.ismonnet.netty.core.NetService;
+import gov.ismonnet.netty.packets.GoalPacket;
+import gov.ismonnet.netty.packets.KickPacket;
+import gov.ismonnet.netty.packets.PuckStatePacket;
+import gov.ismonnet.netty.packets.SpectatePacket;
+import gov.ismonnet.netty.packets.SpectatedPlayerPacket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import static gov.ismonnet.netty.ByteBufHelper.fromFixedPoint;
+
+/**
+ * Watches a room of a {@link RoomServer} through its spectator port
+ *
+ * Every frame starts with a {@link SpectatedPlayerPacket} telling which player sent the packets
+ * following it. Puck states are relayed without a base, each one in the coordinates of the player
+ * which sent it, and goals are sent by the player which conceded.
+ *
+ * Packets are handled by the event loop of the net service,
+ * while what has been seen can be polled by any thread.
+ */
+public class Spectator {
+
+    private static final Logger LOGGER = LogManager.getLogger(Spectator.class);
+
+    private final NetService netService;
+
+    // Only touched by the event loop
+    private boolean isFromLeft;
+
+    private volatile int leftScore;
+    private volatile int rightScore;
+
+    private volatile PuckStatePacket leftPuckState;
+    private volatile PuckStatePacket rightPuckState;
+
+    public Spectator(NetService netService) {
+        this.netService = netService;
+        netService.registerObj(this);
+    }
+
+    /**
+     * Asks to watch the given room, the session has to be started already
+     *
+     * @param roomId id of the room
+     */
+    public void watch(int roomId) {
+        netService.sendPacket(new SpectatePacket(roomId));
+    }
+
+    @Listener
+    protected EventListener<SpectatedPlayerPacket> onSpectatedPlayer = new SyncListener<>(packet ->
+            Spectator.this.isFromLeft = packet.isLeft());
+
+    @Listener
+    protected EventListener<PuckStatePacket> onPuckState = new SyncListener<>(packet -> {
+        if(packet.hasBase()) {
+            LOGGER.warn("Received a delta encoded puck state {}", packet);
+            return;
+        }
+
+        if(Spectator.this.isFromLeft)
+            Spectator.this.leftPuckState = packet;
+        else
+            Spectator.this.rightPuckState = packet;
+
+        LOGGER.trace("{} player sent the puck at ({}, {}) with motion ({}, {}) at tick {}",
+                Spectator.this.isFromLeft ? "Left" : "Right",
+                fromFixedPoint(packet.getPosX()), fromFixedPoint(packet.getPosY()),
+                fromFixedPoint(packet.getMotionX()), fromFixedPoint(packet.getMotionY()),
+                packet.getTick());
+    });
+
+    @Listener
+    protected EventListener<GoalPacket> onGoal = new SyncListener<>(packet -> {
+        // Sent by the one which conceded
+        if(Spectator.this.isFromLeft)
+            Spectator.this.rightScore++;
+        else
+            Spectator.this.leftScore++;
+
+        LOGGER.info("Goal, {} - {}", Spectator.this.leftScore, Spectator.this.rightScore);
+    });
+
+    @Listener
+    protected EventListener<KickPacket> onKick = new SyncListener<>(packet ->
+            LOGGER.info("Stopped watching: {}", packet.getReason()));
+
+    public int getLeftScore() {
+        return leftScore;
+    }
+
+    public int getRightScore() {
+        return rightScore;
+    }
+
+    /**
+     * Returns the last puck state sent by the left player
+     *
+     * @return puck state without a base or null if none has been received yet
+     */
+    public PuckStatePacket getLeftPuckState() {
+        return leftPuckState;
+    }
+
+    /**
+     * Returns the last puck state sent by the right player
+     *
+     * @return puck state without a base or null if none has been received yet
+     */
+    public PuckStatePacket getRightPuckState() {
+        return rightPuckState;
+    }
+}
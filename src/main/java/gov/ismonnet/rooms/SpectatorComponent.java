@@ -0,0 +1,10 @@
+package gov.ismonnet.rooms;
+
+import dagger.Component;
+import gov.ismonnet.netty.client.ClientComponent;
+
+@Component(modules = SpectatorModule.class)
+public interface SpectatorComponent {
+
+    ClientComponent.Builder client();
+}
@@ -0,0 +1,178 @@
+package gov.ismonnet.rooms;
+
+import gov.ismonnet.game.physics.PuckStateDecoder;
+import gov.ismonnet.netty.codecs.ByteStuffingEncoder;
+import gov.ismonnet.netty.codecs.PacketEncoder;
+import gov.ismonnet.netty.core.Packet;
+import gov.ismonnet.netty.core.PacketBundle;
+import gov.ismonnet.netty.core.PacketIdService;
+import gov.ismonnet.netty.packets.KickPacket;
+import gov.ismonnet.netty.packets.PuckStatePacket;
+import gov.ismonnet.netty.packets.SpectatedPlayerPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Spectators watching a room
+ *
+ * Each batch of packets sent by a player is serialized and framed once into a single buffer,
+ * which the channel group hands to every spectator as a retained duplicate,
+ * so the cost of a frame doesn't depend on how many are watching.
+ *
+ * Puck states are delta encoded against bases only the opponent acknowledged,
+ * so the group decodes every one a player sends and relays it without a base.
+ * A spectator which just joined is sent the last state of both players straight away.
+ *
+ * Spectators whose channel is not writable skip frames until it is again,
+ * and the ones which keep skipping for too long are dropped.
+ */
+public class SpectatorGroup {
+
+    private static final Logger LOGGER = LogManager.getLogger(SpectatorGroup.class);
+
+    private static final AttributeKey<int[]> SKIPPED_FRAMES = AttributeKey.valueOf("skipped_frames");
+    // About 5 seconds of ticks
+    private static final int MAX_SKIPPED_FRAMES = 320;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ChannelGroup channels;
+
+    // Puck states sent by each player
+    private final PuckStateDecoder leftDecoder;
+    private final PuckStateDecoder rightDecoder;
+
+    private final PacketEncoder packetEncoder;
+    private final ByteStuffingEncoder frameEncoder;
+
+    // Only touched by the shard
+    private ByteBuf packetBuffer;
+
+    private volatile boolean isClosed;
+
+    SpectatorGroup(PacketIdService packetIdService) {
+        this.channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        this.leftDecoder = new PuckStateDecoder();
+        this.rightDecoder = new PuckStateDecoder();
+        this.packetEncoder = new PacketEncoder(packetIdService::getPacketId);
+        this.frameEncoder = new ByteStuffingEncoder();
+    }
+
+    // All of these have to be called by the shard
+
+    // Closed channels are removed by the group
+    void add(Channel spectator) {
+        spectator.attr(SKIPPED_FRAMES).set(new int[1]);
+
+        // The room may have been closed in the meantime
+        if(isClosed) {
+            kick(spectator);
+            return;
+        }
+
+        channels.add(spectator);
+        sendLastState(spectator, true, leftDecoder);
+        sendLastState(spectator, false, rightDecoder);
+    }
+
+    private static void sendLastState(Channel spectator, boolean fromLeft, PuckStateDecoder decoder) {
+        if(!decoder.hasDecoded())
+            return;
+        // Errors are fired through the pipeline
+        spectator.writeAndFlush(
+                new PacketBundle(Arrays.asList(new SpectatedPlayerPacket(fromLeft), decoder.toAbsolutePacket())),
+                spectator.voidPromise());
+    }
+
+    /**
+     * Sends the given packets to every spectator which can keep up
+     *
+     * @param fromLeft true if the packets were sent by the left player
+     * @param packets packets sent by the player
+     */
+    void broadcast(boolean fromLeft, Collection<Packet> packets) {
+        if(packets.isEmpty())
+            return;
+
+        // Decoded even if no one is watching, to have the bases of the next ones
+        final PuckStateDecoder decoder = fromLeft ? leftDecoder : rightDecoder;
+        final boolean isWatched = !channels.isEmpty();
+        if(isWatched) {
+            if(packetBuffer == null)
+                packetBuffer = Unpooled.buffer(INITIAL_CAPACITY);
+
+            packetBuffer.clear();
+            packetEncoder.encode(new SpectatedPlayerPacket(fromLeft), packetBuffer);
+        }
+
+        for(Packet packet : packets) {
+            if(packet instanceof PuckStatePacket) {
+                // The ones whose base got lost can't be relayed, the stale ones sent again aren't
+                if(!decoder.decode((PuckStatePacket) packet) || !decoder.isLatest() || !isWatched)
+                    continue;
+                packet = decoder.toAbsolutePacket();
+            }
+
+            if(isWatched)
+                packetEncoder.encode(packet, packetBuffer);
+        }
+
+        if(!isWatched)
+            return;
+
+        final ByteBuf frame = ByteBufAllocator.DEFAULT.ioBuffer(frameEncoder.getEncodedLength(packetBuffer));
+        frameEncoder.encode(packetBuffer, frame);
+        // The group writes a retained duplicate to each channel and releases the frame.
+        // Errors are fired through the pipelines
+        channels.writeAndFlush(frame, this::keepsUp, true);
+    }
+
+    private boolean keepsUp(Channel spectator) {
+        // Still in the group while it's being closed
+        if(!spectator.isActive())
+            return false;
+
+        final int[] skippedFrames = spectator.attr(SKIPPED_FRAMES).get();
+        if(spectator.isWritable()) {
+            skippedFrames[0] = 0;
+            return true;
+        }
+
+        if(++skippedFrames[0] > MAX_SKIPPED_FRAMES) {
+            LOGGER.trace("Dropping slow spectator {}", spectator);
+            spectator.close();
+        }
+        return false;
+    }
+
+    void close() {
+        isClosed = true;
+        if(packetBuffer != null) {
+            packetBuffer.release();
+            packetBuffer = null;
+        }
+
+        channels.forEach(SpectatorGroup::kick);
+    }
+
+    private static void kick(Channel spectator) {
+        spectator.writeAndFlush(new KickPacket("The match is over"))
+                .addListener(ChannelFutureListener.CLOSE);
+    }
+
+    public int size() {
+        return channels.size();
+    }
+}
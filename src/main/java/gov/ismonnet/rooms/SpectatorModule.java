@@ -0,0 +1,8 @@
+package gov.ismonnet.rooms;
+
+import dagger.Module;
+import gov.ismonnet.netty.client.ClientComponent;
+
+@Module(subcomponents = ClientComponent.class)
+abstract class SpectatorModule {
+}
@@ -0,0 +1,127 @@
+package gov.ismonnet.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed timestep scheduler based on a monotonic nanoseconds accumulator
+ *
+ * Time is accumulated in units of nanoseconds multiplied by the tick rate
+ * so that a tick always costs exactly one second worth of units and the
+ * remainder is never lost, which makes the long-run tick rate exact
+ * even when a tick length isn't a whole number of nanoseconds.
+ *
+ * Only a single thread should call {@link #advance()}, while
+ * {@link #getAlpha()} can be called by any thread.
+ *
+ * @author Ferlo
+ */
+public class TickScheduler {
+
+    // Constants
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // Attributes
+
+    /**
+     * Number of ticks per second
+     */
+    private final int tickRate;
+    /**
+     * Max number of ticks returned by a single {@link #advance()} call.
+     * Time exceeding it is discarded, so that after a long stall
+     * the simulation doesn't try to catch up all at once.
+     */
+    private final int maxCatchUpTicks;
+
+    /**
+     * Time (in nanoseconds) of the last {@link #advance()} call
+     */
+    private long lastNanos;
+    /**
+     * Time not yet consumed by ticks (in nanoseconds multiplied by the tick rate)
+     */
+    private long accumulator;
+    /**
+     * Time (in nanoseconds) at which the last consumed tick would have ideally started.
+     * Used by other threads to calculate the interpolation alpha.
+     */
+    private volatile long tickStartNanos;
+
+    /**
+     * Constructs a new scheduler
+     *
+     * @param tickRate number of ticks per second
+     * @param maxCatchUpTicks max number of ticks to return in a single {@link #advance()} call
+     */
+    public TickScheduler(int tickRate, int maxCatchUpTicks) {
+        if(tickRate <= 0)
+            throw new IllegalArgumentException("Tick rate must be positive (" + tickRate + ")");
+        if(maxCatchUpTicks <= 0)
+            throw new IllegalArgumentException("Max catch up ticks must be positive (" + maxCatchUpTicks + ")");
+
+        this.tickRate = tickRate;
+        this.maxCatchUpTicks = maxCatchUpTicks;
+
+        reset();
+    }
+
+    /**
+     * Discards all the accumulated time
+     */
+    public void reset() {
+        lastNanos = tickStartNanos = System.nanoTime();
+        accumulator = 0;
+    }
+
+    /**
+     * Accumulates the time passed since the last call and
+     * consumes it in whole ticks, carrying over the remainder
+     *
+     * @return the number of ticks that should be run now
+     */
+    public int advance() {
+        final long now = System.nanoTime();
+        accumulator += (now - lastNanos) * tickRate;
+        lastNanos = now;
+
+        long ticks = accumulator / NANOS_PER_SECOND;
+        accumulator -= ticks * NANOS_PER_SECOND;
+
+        if(ticks > maxCatchUpTicks)
+            ticks = maxCatchUpTicks;
+
+        tickStartNanos = now - accumulator / tickRate;
+        return (int) ticks;
+    }
+
+    /**
+     * Returns how long the caller should wait before calling {@link #advance()} again
+     *
+     * @return nanoseconds until the next tick is due
+     */
+    public long getNanosUntilNextTick() {
+        final long elapsedUnits = accumulator + (System.nanoTime() - lastNanos) * tickRate;
+        return Math.max(0, (NANOS_PER_SECOND - elapsedUnits) / tickRate);
+    }
+
+    /**
+     * Returns how far we are between the last tick and the next one,
+     * which can be used to interpolate the rendered state.
+     *
+     * @return a value between 0 (last tick just happened) and 1 (next tick is due)
+     */
+    public float getAlpha() {
+        final float alpha = (System.nanoTime() - tickStartNanos) * (float) tickRate / NANOS_PER_SECOND;
+        return Math.max(0, Math.min(1, alpha));
+    }
+
+    /**
+     * Returns the number of ticks per second
+     *
+     * @return the number of ticks per second
+     */
+    public int getTickRate() {
+        return tickRate;
+    }
+}
@@ -1,26 +0,0 @@
-package gov.ismonnet.util;
-
-public class Timer {
-
-    private long lastMillis;
-
-    public Timer() {
-        reset();
-    }
-
-    public void reset() {
-        lastMillis = getCurrentMillis();
-    }
-
-    public boolean hasTimePassed(long millis) {
-        return getTimePassed() >= millis;
-    }
-
-    public long getTimePassed() {
-        return getCurrentMillis() - lastMillis;
-    }
-
-    public long getCurrentMillis() {
-        return System.currentTimeMillis();
-    }
-}
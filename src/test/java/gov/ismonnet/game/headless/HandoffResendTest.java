@@ -0,0 +1,109 @@
+package gov.ismonnet.game.headless;
+
+import gov.ismonnet.netty.packets.PuckStateAckPacket;
+import gov.ismonnet.netty.packets.PuckStatePacket;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static gov.ismonnet.netty.ByteBufHelper.toFixedPoint;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Lets the puck cross the middle line while the opponent doesn't acknowledge anything,
+ * as if every packet got lost
+ */
+public class HandoffResendTest {
+
+    private static final int MAX_TICKS = 1000;
+    private static final int PARKED_TICKS = 64;
+    private static final float SPEED = 20;
+
+    private Simulation simulation;
+    private List<Long> handoffTicks;
+
+    @Before
+    public void setUp() {
+        handoffTicks = new ArrayList<>();
+        simulation = Simulation.create(true, new SimulationListener() {
+            @Override
+            public void onPuckHandoff(PuckStatePacket packet) {
+                assertFalse(packet.hasBase());
+                handoffTicks.add(packet.getTick());
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        simulation.close();
+    }
+
+    @Test
+    public void lastHandoffIsResentUntilAcknowledged() {
+        final long lastHandoff = park();
+
+        simulation.tick(PARKED_TICKS);
+        final int resends = count(lastHandoff) - 1;
+        assertTrue("The last handoff has to be sent again, it was sent " + resends + " more times", resends > 1);
+        // Only the last one, the ones of the puck crossing are just refinements
+        assertEquals(lastHandoff, (long) handoffTicks.get(handoffTicks.size() - 1));
+
+        simulation.receivePacket(new PuckStateAckPacket(lastHandoff));
+        simulation.tick();
+        final int sent = handoffTicks.size();
+
+        simulation.tick(PARKED_TICKS);
+        assertEquals("Nothing has to be sent once acknowledged", sent, handoffTicks.size());
+    }
+
+    @Test
+    public void staleResendIsIgnored() {
+        final float width = simulation.getTable().getWidth();
+        final float height = simulation.getTable().getHeight();
+        simulation.tick(PARKED_TICKS);
+
+        simulation.receivePacket(handoff(PARKED_TICKS, width / 2, height / 2));
+        simulation.tick();
+        assertEquals(height / 2, simulation.getPuck().getPosY(), 1);
+
+        // The opponent sent it again as it didn't get the acknowledgement, but a newer one has already arrived
+        simulation.receivePacket(handoff(PARKED_TICKS - 1, width / 2, height / 4));
+        simulation.tick();
+        assertEquals(height / 2, simulation.getPuck().getPosY(), 1);
+    }
+
+    private static PuckStatePacket handoff(long remoteTick, float posX, float posY) {
+        return new PuckStatePacket(
+                PuckStatePacket.NO_BASE, remoteTick, PuckStatePacket.UNKNOWN_DELAY,
+                toFixedPoint(posX), toFixedPoint(posY),
+                0, 0);
+    }
+
+    // Ticks until the puck is parked on the other side, returns the tick of the last handoff
+    private long park() {
+        final float width = simulation.getTable().getWidth();
+        // Fast enough to get there before stopping
+        simulation.getPuck().setMotionX(SPEED);
+        for(int i = 0; i < MAX_TICKS; i++) {
+            simulation.tick();
+            // Parked pucks are stopped, while a crossing one is still moving towards the opponent
+            if(simulation.getPuck().getPosX() > width && simulation.getPuck().getMotionX() == 0)
+                return handoffTicks.get(handoffTicks.size() - 1);
+        }
+        throw new AssertionError("The puck never crossed the middle line");
+    }
+
+    private int count(long tick) {
+        int count = 0;
+        for(long handoffTick : handoffTicks)
+            if(handoffTick == tick)
+                count++;
+        return count;
+    }
+}
@@ -0,0 +1,86 @@
+package gov.ismonnet.game.headless;
+
+import gov.ismonnet.netty.packets.PuckStatePacket;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static gov.ismonnet.netty.ByteBufHelper.toFixedPoint;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Hands the puck to a simulation late, so that it has to roll back
+ * and re-simulate ticks in which it bounces back over the middle line
+ */
+public class RollbackHandoffTest {
+
+    private static final int PARKED_TICKS = 100;
+    // How far back the opponent's packet is
+    private static final int LAG = 20;
+
+    private Simulation simulation;
+    private List<Long> handoffTicks;
+
+    @Before
+    public void setUp() {
+        handoffTicks = new ArrayList<>();
+        simulation = Simulation.create(false, new SimulationListener() {
+            @Override
+            public void onPuckHandoff(PuckStatePacket packet) {
+                // Nothing has been acknowledged, so every packet carries the absolute tick
+                assertFalse(packet.hasBase());
+                handoffTicks.add(packet.getTick());
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        simulation.close();
+    }
+
+    @Test
+    public void rollbackSendsHandoffsTheOriginalRunDidntHave() {
+        simulation.tick(PARKED_TICKS);
+        // The puck was parked on the other side the whole time
+        assertTrue(handoffTicks.isEmpty());
+
+        final long present = simulation.getTicks();
+        simulation.receivePacket(bouncingBackPacket(present - LAG));
+        simulation.tick();
+
+        assertFalse("The corrected run has to hand the puck back", handoffTicks.isEmpty());
+        assertTrue("The first handoff has to come from a re-simulated tick", handoffTicks.get(0) <= present);
+    }
+
+    @Test
+    public void rollbackDoesntSendTheSameHandoffTwice() {
+        simulation.tick(PARKED_TICKS);
+
+        final long present = simulation.getTicks();
+        // Both are handled in the same tick, so the second re-simulates exactly what the first did
+        simulation.receivePacket(bouncingBackPacket(present - LAG));
+        simulation.receivePacket(bouncingBackPacket(present - LAG));
+        simulation.tick();
+
+        assertFalse(handoffTicks.isEmpty());
+        assertEquals(handoffTicks.size(), new HashSet<>(handoffTicks).size());
+    }
+
+    // The puck as the opponent handed it over, right before the middle line and heading back to it
+    private PuckStatePacket bouncingBackPacket(long remoteTick) {
+        final float width = simulation.getTable().getWidth();
+        final float height = simulation.getTable().getHeight();
+        // Delays equal on both sides, so the remote tick is the same local one
+        return new PuckStatePacket(
+                PuckStatePacket.NO_BASE, remoteTick, LAG,
+                toFixedPoint(width - 100), toFixedPoint(height / 2),
+                toFixedPoint(20), 0);
+    }
+}
@@ -0,0 +1,46 @@
+package gov.ismonnet.game.headless;
+
+import gov.ismonnet.game.physics.entity.PuckEntity;
+import gov.ismonnet.util.AllocationMeter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Ticks the physics service and the entities of a headless simulation
+ */
+public class SimulationAllocationTest {
+
+    private static final int WARMUP = 100_000;
+    private static final int RUNS = 100_000;
+
+    private static final float MOTION = 25;
+
+    private Simulation simulation;
+    private PuckEntity puck;
+
+    @Before
+    public void setUp() {
+        simulation = Simulation.create(true, new SimulationListener() {});
+        puck = simulation.getPuck();
+        puck.setMotionX(0);
+    }
+
+    @After
+    public void tearDown() {
+        simulation.close();
+    }
+
+    @Test
+    public void ticksDontAllocate() {
+        assertEquals(0, AllocationMeter.bytesPerRun(WARMUP, RUNS, () -> {
+            // Keeps bouncing between the long sides without ever crossing the middle line,
+            // as handing the puck off or scoring sends a packet
+            puck.setMotionY(puck.getMotionY() < 0 ? -MOTION : MOTION);
+            simulation.tick();
+        }), 0);
+        assertEquals(0, puck.getMotionX(), 0);
+    }
+}
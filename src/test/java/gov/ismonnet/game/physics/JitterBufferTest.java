@@ -0,0 +1,116 @@
+package gov.ismonnet.game.physics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Plays back samples whose x is ten times their remote tick, so that the played tick can be read from it
+ */
+public class JitterBufferTest {
+
+    private static final int CAPACITY = 8;
+    private static final int DELAY = 2;
+    private static final int MAX_EXTRAPOLATION = 4;
+
+    // Between the remote and the local tick
+    private static final int LATENCY = 5;
+
+    private JitterBuffer buffer;
+
+    @Before
+    public void setUp() {
+        buffer = new JitterBuffer(CAPACITY, DELAY, MAX_EXTRAPOLATION);
+    }
+
+    @Test
+    public void samplesArePlayedInOrder() {
+        add(0, 0);
+        add(2, 2);
+        // Overtaken by the next one
+        add(1, 2);
+        add(3, 3);
+
+        for(int tick = 0; tick <= 3; tick++)
+            assertPlayed(tick, tick + LATENCY + DELAY);
+    }
+
+    @Test
+    public void playbackIsDelayed() {
+        add(0, 0);
+        add(1, 1);
+
+        // Held on the first sample until its time comes
+        assertPlayed(0, 1);
+        assertPlayed(0, LATENCY + DELAY);
+        assertPlayed(1, 1 + LATENCY + DELAY);
+    }
+
+    @Test
+    public void lateSamplesDontRewind() {
+        for(int tick = 0; tick <= 3; tick++)
+            add(tick, tick);
+        assertPlayed(2, 2 + LATENCY + DELAY);
+
+        // Its time has already passed
+        add(1, 3);
+        assertPlayed(2, 2 + LATENCY + DELAY);
+        assertEquals(LATENCY, buffer.getBaseDelay(), 0);
+    }
+
+    @Test
+    public void samplesOlderThanAFullBufferAreDropped() {
+        for(int tick = 10; tick < 10 + CAPACITY; tick++)
+            add(tick, tick);
+
+        add(0, 10 + CAPACITY);
+        assertPlayed(10, LATENCY + DELAY);
+    }
+
+    @Test
+    public void sameTickReplacesTheSample() {
+        add(0, 0);
+        buffer.add(0, LATENCY, 42, 0);
+
+        assertTrue(buffer.sample(LATENCY + DELAY));
+        assertEquals(42, buffer.getPosX(), 0);
+    }
+
+    @Test
+    public void underflowExtrapolatesThenHolds() {
+        assertFalse("Nothing to play yet", buffer.sample(0));
+
+        add(0, 0);
+        add(1, 1);
+        assertPlayed(1, 1 + LATENCY + DELAY);
+
+        // Keeps going the same way for a few ticks
+        assertPlayed(3, 3 + LATENCY + DELAY);
+        assertPlayed(1 + MAX_EXTRAPOLATION, 100 + LATENCY + DELAY);
+    }
+
+    @Test
+    public void clearForgetsSamplesAndDelay() {
+        add(0, 0);
+        add(1, 1);
+        buffer.clear();
+        assertFalse(buffer.sample(1 + LATENCY + DELAY));
+
+        // Restarts from whatever comes next, with its own delay
+        buffer.add(50, 60, 500, 0);
+        assertPlayed(50, 60);
+        assertEquals(10, buffer.getBaseDelay(), 0);
+    }
+
+    private void add(int remoteTick, int receivedAfter) {
+        buffer.add(remoteTick, receivedAfter + LATENCY, remoteTick * 10, 0);
+    }
+
+    private void assertPlayed(int remoteTick, long localTick) {
+        assertTrue(buffer.sample(localTick));
+        assertEquals(remoteTick * 10, buffer.getPosX(), 0.001);
+    }
+}
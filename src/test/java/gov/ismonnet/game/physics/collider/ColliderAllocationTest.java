@@ -0,0 +1,54 @@
+package gov.ismonnet.game.physics.collider;
+
+import gov.ismonnet.util.AllocationMeter;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ColliderAllocationTest {
+
+    private static final int WARMUP = 100_000;
+    private static final int RUNS = 100_000;
+
+    private final QuadCollider wall = new QuadCollider(100, 0, 1, 100);
+    private final CircleCollider paddle = new CircleCollider(150, 50, 20);
+    private final CircleCollider puck = new CircleCollider(50, 50, 10);
+    private final CompositeCollider table = new CompositeCollider(Arrays.asList(wall, paddle));
+
+    private final Collision collision = new Collision();
+    private final SweptCollision sweep = new SweptCollision();
+
+    private int step;
+
+    @Test
+    public void queriesHit() {
+        puck.setPos(95, 50);
+        assertTrue(wall.sweepCircle(50, 50, 10, 200, 0, sweep));
+        assertTrue(puck.getCollision(wall, collision));
+        assertTrue(table.collidesWith(puck));
+        assertTrue(paddle.sweepCircle(50, 50, 10, 200, 0, sweep));
+    }
+
+    @Test
+    public void sweepQueriesDontAllocate() {
+        assertEquals(0, AllocationMeter.bytesPerRun(WARMUP, RUNS, () -> {
+            final float motionX = 150 + step++ % 100;
+            wall.sweepCircle(50, 50, 10, motionX, 0, sweep);
+            paddle.sweepCircle(50, 50, 10, motionX, 10, sweep);
+            table.sweepCircle(50, 50, 10, motionX, -10, sweep);
+        }), 0);
+    }
+
+    @Test
+    public void collisionQueriesDontAllocate() {
+        assertEquals(0, AllocationMeter.bytesPerRun(WARMUP, RUNS, () -> {
+            puck.setPos(85 + step++ % 20, 50);
+            puck.getCollision(wall, collision);
+            wall.collidesWith(puck);
+            table.getCollision(puck, collision);
+        }), 0);
+    }
+}
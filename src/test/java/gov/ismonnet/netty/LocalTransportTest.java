@@ -0,0 +1,124 @@
+package gov.ismonnet.netty;
+
+import gov.ismonnet.event.EventListener;
+import gov.ismonnet.event.listeners.SyncListener;
+import gov.ismonnet.netty.client.ClientComponent;
+import gov.ismonnet.netty.packets.GoalPacket;
+import gov.ismonnet.netty.packets.MatchFoundPacket;
+import gov.ismonnet.netty.server.ServerComponent;
+import gov.ismonnet.util.SneakyThrow;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Runs a server and a client session in this JVM over the in-VM transport
+ */
+public class LocalTransportTest {
+
+    private static final int PORT = 3123;
+    private static final int CONNECT_ATTEMPTS = 50;
+    private static final int CONNECT_RETRY_DELAY = 100;
+    private static final int TIMEOUT = 5000;
+
+    private NetTestComponent component;
+    private ServerComponent server;
+    private ClientComponent client;
+
+    private final CompletableFuture<GoalPacket> serverReceived = new CompletableFuture<>();
+    private final CompletableFuture<MatchFoundPacket> matchFound = new CompletableFuture<>();
+    private final CompletableFuture<GoalPacket> clientReceived = new CompletableFuture<>();
+
+    // The net services only keep weak references to their listeners
+    private final EventListener<GoalPacket> onServerGoal = new SyncListener<>(packet -> serverReceived.complete(packet));
+    private final EventListener<MatchFoundPacket> onMatchFound = new SyncListener<>(packet -> matchFound.complete(packet));
+    private final EventListener<GoalPacket> onClientGoal = new SyncListener<>(packet -> clientReceived.complete(packet));
+
+    @Before
+    public void setUp() {
+        component = DaggerNetTestComponent.create();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if(client != null)
+            client.lifeCycle().stop();
+        if(server != null)
+            server.lifeCycle().stop();
+    }
+
+    @Test
+    public void packetsGoBothWays() throws Exception {
+        server = component.server()
+                .injectPort(PORT)
+                .injectProtocol(NetProtocol.TCP)
+                .injectTransport(NetTransport.LOCAL)
+                .build();
+        // Build the graph first, so that everything registers in the lifecycle
+        server.netService();
+
+        server.netService().register(onServerGoal);
+        // Blocks until a client connects
+        final CompletableFuture<Void> serverStarted = CompletableFuture.runAsync(() ->
+                SneakyThrow.runUnchecked(server.lifeCycle()::start));
+
+        client = connect(serverStarted, c -> {
+            c.netService().register(onMatchFound);
+            c.netService().register(onClientGoal);
+        });
+        serverStarted.get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+        // The host always serves
+        assertFalse(matchFound.get(TIMEOUT, TimeUnit.MILLISECONDS).isSpawnPuck());
+
+        client.netService().sendPacket(new GoalPacket());
+        serverReceived.get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+        server.netService().sendPacket(new GoalPacket());
+        clientReceived.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void datagramsAreRefused() {
+        component.client()
+                .injectAddress(new InetSocketAddress("localhost", PORT))
+                .injectProtocol(NetProtocol.UDP)
+                .injectTransport(NetTransport.LOCAL)
+                .build()
+                .netService();
+    }
+
+    private ClientComponent connect(CompletableFuture<Void> serverStarted,
+                                    Consumer<ClientComponent> beforeStart) throws Exception {
+        // The server may still be binding
+        for(int attempt = 1; ; attempt++) {
+            final ClientComponent client = component.client()
+                    .injectAddress(new InetSocketAddress("localhost", PORT))
+                    .injectProtocol(NetProtocol.TCP)
+                    .injectTransport(NetTransport.LOCAL)
+                    .build();
+            beforeStart.accept(client);
+
+            try {
+                client.lifeCycle().start();
+                return client;
+            } catch (Exception ex) {
+                client.lifeCycle().stop();
+                // Rethrow the reason why the server failed, if any
+                if(serverStarted.isCompletedExceptionally())
+                    serverStarted.get();
+                if(attempt == CONNECT_ATTEMPTS)
+                    throw ex;
+            }
+
+            Thread.sleep(CONNECT_RETRY_DELAY);
+        }
+    }
+}
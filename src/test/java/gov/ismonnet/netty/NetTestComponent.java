@@ -0,0 +1,13 @@
+package gov.ismonnet.netty;
+
+import dagger.Component;
+import gov.ismonnet.netty.client.ClientComponent;
+import gov.ismonnet.netty.server.ServerComponent;
+
+@Component(modules = NetTestModule.class)
+public interface NetTestComponent {
+
+    ServerComponent.Builder server();
+
+    ClientComponent.Builder client();
+}
@@ -0,0 +1,12 @@
+package gov.ismonnet.netty;
+
+import dagger.Module;
+import gov.ismonnet.netty.client.ClientComponent;
+import gov.ismonnet.netty.server.ServerComponent;
+
+@Module(subcomponents = {
+        ServerComponent.class,
+        ClientComponent.class
+})
+abstract class NetTestModule {
+}
@@ -0,0 +1,60 @@
+package gov.ismonnet.netty.benchmark;
+
+import gov.ismonnet.netty.exceptions.DelimiterDecoderException;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.util.List;
+
+/**
+ * Byte stuffing decoder reading one byte at a time and copying every frame in a new buffer,
+ * as the {@link gov.ismonnet.netty.codecs.ByteStuffingDecoder} used to do
+ *
+ * Only used as the baseline of the {@link ByteStuffingBenchmark}.
+ */
+class ByteByByteDecoder extends ByteToMessageDecoder {
+
+    private static final byte ESCAPE = 10;
+    private static final byte START = 2;
+    private static final byte END = 3;
+
+    private boolean isEscaped;
+    private ByteBuf frame;
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        while(in.isReadable()) {
+            final byte b = in.readByte();
+
+            if(!isEscaped) {
+                if(b == ESCAPE)
+                    isEscaped = true;
+                else if(frame != null)
+                    frame.writeByte(b);
+                continue;
+            }
+
+            isEscaped = false;
+            if(b == START && frame == null) {
+                frame = ctx.alloc().buffer();
+            } else if(b == ESCAPE && frame != null) {
+                frame.writeByte(b);
+            } else if(b == END && frame != null) {
+                out.add(frame);
+                frame = null;
+            } else {
+                if(frame != null)
+                    frame.release();
+                frame = null;
+                throw new DelimiterDecoderException("Unexpected byte after an escape (" + b + ')');
+            }
+        }
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) {
+        if(frame != null)
+            frame.release();
+    }
+}
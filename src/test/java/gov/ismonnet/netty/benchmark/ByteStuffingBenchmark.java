@@ -0,0 +1,155 @@
+package gov.ismonnet.netty.benchmark;
+
+import gov.ismonnet.netty.codecs.ByteStuffingDecoder;
+import gov.ismonnet.netty.codecs.ByteStuffingEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares the throughput of the {@link ByteStuffingDecoder} with the one of a decoder
+ * reading a byte at a time, on random frames sized like the game packets
+ *
+ * The stream is fed in random chunks, as a socket would, so frames keep being split across reads.
+ */
+public class ByteStuffingBenchmark {
+
+    private static final Logger LOGGER = LogManager.getLogger(ByteStuffingBenchmark.class);
+
+    private static final byte ESCAPE = 10;
+
+    private static final int FRAMES = 200_000;
+    private static final int MIN_FRAME_LENGTH = 4;
+    private static final int MAX_FRAME_LENGTH = 33;
+    private static final int MAX_CHUNK_LENGTH = 1500;
+    private static final int CHUNKS = 1024;
+    private static final int RUNS = 40;
+
+    private final List<byte[]> frames;
+    private final ByteBuf stream;
+    private final int[] chunkLengths;
+
+    /**
+     * Generates the stream to decode
+     *
+     * @param escapeProbability fraction of the bytes of the frames which are escapes
+     * @param seed seed of the generated data
+     */
+    public ByteStuffingBenchmark(double escapeProbability, long seed) {
+        final Random random = new Random(seed);
+
+        this.frames = new ArrayList<>();
+        for(int i = 0; i < FRAMES; i++) {
+            final byte[] frame = new byte[MIN_FRAME_LENGTH + random.nextInt(MAX_FRAME_LENGTH - MIN_FRAME_LENGTH + 1)];
+            for(int j = 0; j < frame.length; j++)
+                // Past the escape and the markers
+                frame[j] = random.nextDouble() < escapeProbability ? ESCAPE : (byte) (ESCAPE + 1 + random.nextInt(200));
+            frames.add(frame);
+        }
+
+        final ByteStuffingEncoder encoder = new ByteStuffingEncoder();
+        this.stream = Unpooled.buffer();
+        for(byte[] frame : frames)
+            encoder.encode(Unpooled.wrappedBuffer(frame), stream);
+
+        this.chunkLengths = new int[CHUNKS];
+        for(int i = 0; i < chunkLengths.length; i++)
+            chunkLengths[i] = 1 + random.nextInt(MAX_CHUNK_LENGTH);
+    }
+
+    /**
+     * Decodes the stream with each of the given decoders, checking the frames the first time
+     *
+     * The runs of the decoders are interleaved, so that they are all measured in the same conditions.
+     *
+     * @param decoderFactories create the decoders to measure
+     * @return decoded megabytes per second of each decoder, the best of all its runs
+     */
+    public double[] run(List<Supplier<ChannelHandler>> decoderFactories) {
+        final long[] best = new long[decoderFactories.size()];
+        Arrays.fill(best, Long.MAX_VALUE);
+
+        for(Supplier<ChannelHandler> decoderFactory : decoderFactories)
+            decode(decoderFactory.get(), true);
+        for(int i = 0; i < RUNS; i++)
+            for(int j = 0; j < best.length; j++)
+                best[j] = Math.min(best[j], decode(decoderFactories.get(j).get(), false));
+
+        return Arrays.stream(best)
+                .mapToDouble(nanos -> stream.readableBytes() / (nanos / 1e3))
+                .toArray();
+    }
+
+    private long decode(ChannelHandler decoder, boolean check) {
+        final FrameSink sink = new FrameSink(check);
+        final EmbeddedChannel channel = new EmbeddedChannel(decoder, sink);
+
+        final long start = System.nanoTime();
+        int index = 0;
+        for(int chunk = 0; index < stream.writerIndex(); chunk++) {
+            final int length = Math.min(chunkLengths[chunk % chunkLengths.length], stream.writerIndex() - index);
+            channel.pipeline().fireChannelRead(stream.retainedSlice(index, length));
+            index += length;
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        channel.finishAndReleaseAll();
+        if(check && sink.count != frames.size())
+            throw new AssertionError("Decoded " + sink.count + " frames out of " + frames.size());
+        return elapsed;
+    }
+
+    private final class FrameSink extends ChannelInboundHandlerAdapter {
+
+        private final boolean check;
+        private int count;
+
+        FrameSink(boolean check) {
+            this.check = check;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            final ByteBuf frame = (ByteBuf) msg;
+            try {
+                if(check && !Arrays.equals(frames.get(count), ByteBufUtil.getBytes(frame)))
+                    throw new AssertionError("Frame " + count + " was decoded wrong");
+                count++;
+            } finally {
+                frame.release();
+            }
+        }
+    }
+
+    /**
+     * Compares the decoders for each of the fractions of escape bytes passed as arguments
+     * (0, 0.004, 0.01 and 0.1 by default)
+     *
+     * @param args fractions of escape bytes
+     */
+    public static void main(String[] args) {
+        final double[] escapeProbabilities = args.length == 0 ?
+                new double[] { 0, 0.004, 0.01, 0.1 } :
+                Arrays.stream(args).mapToDouble(Double::parseDouble).toArray();
+
+        for(double escapeProbability : escapeProbabilities) {
+            final ByteStuffingBenchmark benchmark = new ByteStuffingBenchmark(escapeProbability, 1);
+            final double[] throughputs = benchmark.run(Arrays.asList(ByteByByteDecoder::new, ByteStuffingDecoder::new));
+
+            LOGGER.info(String.format("escapes=%.1f%% byte-by-byte=%.0f MB/s bulk=%.0f MB/s (%.2fx)",
+                    escapeProbability * 100, throughputs[0], throughputs[1], throughputs[1] / throughputs[0]));
+        }
+    }
+}
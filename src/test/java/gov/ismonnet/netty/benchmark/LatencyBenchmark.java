@@ -0,0 +1,188 @@
+package gov.ismonnet.netty.benchmark;
+
+import gov.ismonnet.event.EventListener;
+import gov.ismonnet.event.Listener;
+import gov.ismonnet.event.listeners.SyncListener;
+import gov.ismonnet.netty.DaggerNetTestComponent;
+import gov.ismonnet.netty.NetProtocol;
+import gov.ismonnet.netty.NetTestComponent;
+import gov.ismonnet.netty.NetTransport;
+import gov.ismonnet.netty.client.ClientComponent;
+import gov.ismonnet.netty.core.NetService;
+import gov.ismonnet.netty.packets.PingPacket;
+import gov.ismonnet.netty.packets.PongPacket;
+import gov.ismonnet.netty.server.ServerComponent;
+import gov.ismonnet.util.SneakyThrow;
+import io.netty.channel.epoll.Epoll;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the round trip of a ping between a server and a client session running in this JVM
+ *
+ * A ping is only sent once the pong of the previous one arrives,
+ * so the results are the time spent in the pipelines and in the transport.
+ */
+public class LatencyBenchmark {
+
+    private static final Logger LOGGER = LogManager.getLogger(LatencyBenchmark.class);
+
+    private static final int CONNECT_ATTEMPTS = 50;
+    private static final int CONNECT_RETRY_DELAY = 100;
+    private static final int STOP_TIMEOUT = 5000;
+
+    private final NetProtocol protocol;
+    private final int port;
+
+    public LatencyBenchmark(NetProtocol protocol, int port) {
+        this.protocol = protocol;
+        this.port = port;
+    }
+
+    /**
+     * Connects a client to a server using the given transport and pings it
+     *
+     * @param transport transport used by both sides
+     * @param warmup pings sent before starting to measure
+     * @param samples pings measured
+     * @return measured round trips
+     * @throws Exception if the sessions couldn't be started
+     */
+    public LatencyResult run(NetTransport transport, int warmup, int samples) throws Exception {
+        final NetTestComponent component = DaggerNetTestComponent.create();
+
+        final ServerComponent server = component.server()
+                .injectPort(port)
+                .injectProtocol(protocol)
+                .injectTransport(transport)
+                .build();
+        // Build the graph first, so that everything registers in the lifecycle
+        server.netService();
+
+        // The server stops by itself once the client disconnects
+        final CountDownLatch serverStopped = new CountDownLatch(1);
+        server.lifeCycle().afterStop(serverStopped::countDown);
+        // Blocks until a client connects
+        final CompletableFuture<Void> serverStarted = CompletableFuture.runAsync(() ->
+                SneakyThrow.runUnchecked(server.lifeCycle()::start));
+
+        final ClientComponent client = connect(component, transport, serverStarted);
+        try {
+            serverStarted.get();
+
+            final PingPong pingPong = new PingPong(client.netService(), warmup, samples);
+            client.netService().registerObj(pingPong);
+            pingPong.ping();
+
+            return new LatencyResult(transport, protocol, pingPong.future.get());
+        } finally {
+            client.lifeCycle().stop();
+            if(!serverStopped.await(STOP_TIMEOUT, TimeUnit.MILLISECONDS))
+                server.lifeCycle().stop();
+        }
+    }
+
+    private ClientComponent connect(NetTestComponent component,
+                                    NetTransport transport,
+                                    CompletableFuture<Void> serverStarted) throws Exception {
+        // The server may still be binding
+        for(int attempt = 1; ; attempt++) {
+            final ClientComponent client = component.client()
+                    .injectAddress(new InetSocketAddress("localhost", port))
+                    .injectProtocol(protocol)
+                    .injectTransport(transport)
+                    .build();
+            client.netService();
+
+            try {
+                client.lifeCycle().start();
+                return client;
+            } catch (Exception ex) {
+                client.lifeCycle().stop();
+                // Rethrow the reason why the server failed, if any
+                if(serverStarted.isCompletedExceptionally())
+                    serverStarted.get();
+                if(attempt == CONNECT_ATTEMPTS)
+                    throw ex;
+            }
+
+            Thread.sleep(CONNECT_RETRY_DELAY);
+        }
+    }
+
+    private static final class PingPong {
+
+        private final NetService netService;
+        private final int warmup;
+
+        private final long[] roundTrips;
+        private final CompletableFuture<long[]> future;
+
+        // Only touched by the thread receiving the pongs, after the first ping
+        private int sent;
+        private long sentAt;
+
+        PingPong(NetService netService, int warmup, int samples) {
+            this.netService = netService;
+            this.warmup = warmup;
+            this.roundTrips = new long[samples];
+            this.future = new CompletableFuture<>();
+        }
+
+        void ping() {
+            sent++;
+            sentAt = System.nanoTime();
+            netService.sendPacket(new PingPacket(sent, sentAt));
+        }
+
+        @Listener
+        protected EventListener<PongPacket> onPong = new SyncListener<>(packet -> {
+            // The net service measures the link with its own pings
+            if(packet.getTimestamp() != PingPong.this.sentAt)
+                return;
+
+            final long roundTrip = System.nanoTime() - PingPong.this.sentAt;
+
+            final int sample = PingPong.this.sent - PingPong.this.warmup - 1;
+            if(sample >= 0)
+                PingPong.this.roundTrips[sample] = roundTrip;
+
+            if(sample == PingPong.this.roundTrips.length - 1)
+                PingPong.this.future.complete(PingPong.this.roundTrips);
+            else
+                PingPong.this.ping();
+        });
+    }
+
+    /**
+     * Compares the transports passed as arguments (NIO and EPOLL, if available, by default)
+     * over the protocol passed with -Dnet.protocol
+     *
+     * @param args names of the transports
+     * @throws Exception if the sessions couldn't be started
+     */
+    public static void main(String[] args) throws Exception {
+        final NetProtocol protocol = NetProtocol.valueOf(System.getProperty("net.protocol", NetProtocol.TCP.name()).toUpperCase());
+
+        final List<NetTransport> transports = new ArrayList<>();
+        for(String arg : args)
+            transports.add(NetTransport.valueOf(arg.toUpperCase()));
+        if(transports.isEmpty()) {
+            transports.add(NetTransport.NIO);
+            if(Epoll.isAvailable())
+                transports.add(NetTransport.EPOLL);
+        }
+
+        final LatencyBenchmark benchmark = new LatencyBenchmark(protocol, 3122);
+        for(NetTransport transport : transports)
+            LOGGER.info("{}", benchmark.run(transport, 10_000, 50_000));
+        System.exit(0);
+    }
+}
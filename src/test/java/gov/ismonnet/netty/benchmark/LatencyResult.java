@@ -0,0 +1,73 @@
+package gov.ismonnet.netty.benchmark;
+
+import gov.ismonnet.netty.NetProtocol;
+import gov.ismonnet.netty.NetTransport;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip times measured by a {@link LatencyBenchmark}
+ */
+public class LatencyResult {
+
+    private final NetTransport transport;
+    private final NetProtocol protocol;
+
+    // Sorted, in nanoseconds
+    private final long[] roundTrips;
+
+    LatencyResult(NetTransport transport, NetProtocol protocol, long[] roundTrips) {
+        this.transport = transport;
+        this.protocol = protocol;
+        this.roundTrips = roundTrips.clone();
+        Arrays.sort(this.roundTrips);
+    }
+
+    public NetTransport getTransport() {
+        return transport;
+    }
+
+    public NetProtocol getProtocol() {
+        return protocol;
+    }
+
+    public int getSamples() {
+        return roundTrips.length;
+    }
+
+    /**
+     * Returns the round trip time below which the given fraction of the samples is
+     *
+     * @param percentile fraction between 0 and 1
+     * @param unit unit of the returned time
+     * @return round trip time
+     */
+    public double getPercentile(double percentile, TimeUnit unit) {
+        final int index = (int) Math.min(roundTrips.length - 1, Math.round(percentile * (roundTrips.length - 1)));
+        return toUnit(roundTrips[index], unit);
+    }
+
+    public double getAverage(TimeUnit unit) {
+        return toUnit((long) Arrays.stream(roundTrips).average().orElse(0), unit);
+    }
+
+    public double getMax(TimeUnit unit) {
+        return toUnit(roundTrips[roundTrips.length - 1], unit);
+    }
+
+    private static double toUnit(long nanos, TimeUnit unit) {
+        return (double) nanos / TimeUnit.NANOSECONDS.convert(1, unit);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s/%s: samples=%d avg=%.1fus p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                transport, protocol, getSamples(),
+                getAverage(TimeUnit.MICROSECONDS),
+                getPercentile(0.5, TimeUnit.MICROSECONDS),
+                getPercentile(0.99, TimeUnit.MICROSECONDS),
+                getPercentile(0.999, TimeUnit.MICROSECONDS),
+                getMax(TimeUnit.MICROSECONDS));
+    }
+}
@@ -0,0 +1,136 @@
+package gov.ismonnet.netty.codecs;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Feeds frames encoded by a {@link ByteStuffingEncoder} to the decoder, whole or split across reads
+ */
+public class ByteStuffingDecoderTest {
+
+    private static final byte ESCAPE = 10;
+
+    private static final byte[] CLEAN = { 1, 2, 3, 4, 5, 6, 7, 8 };
+    private static final byte[] STUFFED = { 1, ESCAPE, 2, ESCAPE, ESCAPE, 3, ESCAPE };
+
+    private EmbeddedChannel channel;
+
+    @Before
+    public void setUp() {
+        channel = new EmbeddedChannel(new ByteStuffingDecoder());
+    }
+
+    @After
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void cleanFrameIsRetainedSlice() {
+        final ByteBuf in = encode(CLEAN);
+        channel.writeInbound(in);
+
+        final ByteBuf frame = channel.readInbound();
+        assertArrayEquals(CLEAN, ByteBufUtil.getBytes(frame));
+        // Read in one go, so the decoder never had to copy it in its own buffer
+        assertSame(in, frame.unwrap());
+        // Consumed by the decoder, only kept alive by the frame
+        assertEquals(1, in.refCnt());
+
+        frame.release();
+        assertEquals(0, in.refCnt());
+    }
+
+    @Test
+    public void stuffedFrameIsCopied() {
+        final ByteBuf in = encode(STUFFED);
+        channel.writeInbound(in);
+
+        final ByteBuf frame = channel.readInbound();
+        assertArrayEquals(STUFFED, ByteBufUtil.getBytes(frame));
+        assertNotSame(in, frame.unwrap());
+        assertEquals(0, in.refCnt());
+        frame.release();
+    }
+
+    @Test
+    public void framesInTheSameRead() {
+        final ByteBuf in = Unpooled.buffer();
+        in.writeBytes(encode(CLEAN));
+        in.writeBytes(encode(STUFFED));
+        in.writeBytes(encode(CLEAN));
+        channel.writeInbound(in);
+
+        assertNextFrame(CLEAN);
+        assertNextFrame(STUFFED);
+        assertNextFrame(CLEAN);
+        assertNull(channel.readInbound());
+    }
+
+    @Test
+    public void frameSplitAcrossReads() {
+        for(byte[] expected : new byte[][] { CLEAN, STUFFED }) {
+            final ByteBuf encoded = encode(expected);
+            for(int split = 1; split < encoded.readableBytes(); split++) {
+                channel.writeInbound(encoded.retainedSlice(0, split));
+                assertNull("Decoded before the end at " + split, channel.readInbound());
+
+                channel.writeInbound(encoded.retainedSlice(split, encoded.readableBytes() - split));
+                assertNextFrame(expected);
+            }
+            encoded.release();
+        }
+    }
+
+    @Test
+    public void escapeAtBufferBoundary() {
+        final ByteBuf encoded = encode(STUFFED);
+        // Every escape, either part of a marker or duplicated, ends up as the last byte of a read
+        for(int split = 1; split < encoded.readableBytes(); split++) {
+            if(encoded.getByte(split - 1) != ESCAPE)
+                continue;
+
+            channel.writeInbound(encoded.retainedSlice(0, split));
+            channel.writeInbound(encoded.retainedSlice(split, encoded.readableBytes() - split));
+            assertNextFrame(STUFFED);
+        }
+        encoded.release();
+    }
+
+    @Test
+    public void frameSplitInSingleBytes() {
+        final ByteBuf encoded = encode(STUFFED);
+        for(int i = 0; i < encoded.readableBytes(); i++)
+            channel.writeInbound(encoded.retainedSlice(i, 1));
+        encoded.release();
+
+        assertNextFrame(STUFFED);
+        assertNull(channel.readInbound());
+    }
+
+    private void assertNextFrame(byte[] expected) {
+        final ByteBuf frame = channel.readInbound();
+        try {
+            assertArrayEquals(expected, ByteBufUtil.getBytes(frame));
+        } finally {
+            frame.release();
+        }
+    }
+
+    private static ByteBuf encode(byte[] frame) {
+        final ByteBuf out = Unpooled.buffer();
+        new ByteStuffingEncoder().encode(Unpooled.wrappedBuffer(frame), out);
+        return out;
+    }
+}
@@ -0,0 +1,109 @@
+package gov.ismonnet.rooms;
+
+import gov.ismonnet.netty.NetPipeline;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Moves a silent channel onto a shard, stops the event loop which accepted it and waits for it to time out
+ */
+public class ShardTest {
+
+    private static final int KEEP_ALIVE_TIMEOUT = 200;
+    private static final int WAIT_SECONDS = 5;
+
+    private EventLoopGroup acceptGroup;
+    private EventLoopGroup clientGroup;
+    private EventLoopGroup shardGroup;
+
+    private Shard shard;
+    private Channel server;
+    private Channel client;
+
+    private CompletableFuture<Channel> accepted;
+    private CompletableFuture<Void> timedOut;
+
+    @Before
+    public void setUp() throws Exception {
+        acceptGroup = new NioEventLoopGroup(1);
+        clientGroup = new NioEventLoopGroup(1);
+        shardGroup = new NioEventLoopGroup(1);
+        shard = new Shard(0, shardGroup.next());
+
+        accepted = new CompletableFuture<>();
+        timedOut = new CompletableFuture<>();
+
+        server = new ServerBootstrap()
+                .group(acceptGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        NetPipeline.addTimeout(ch.pipeline(), KEEP_ALIVE_TIMEOUT);
+                        ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelActive(ChannelHandlerContext ctx) {
+                                accepted.complete(ctx.channel());
+                            }
+
+                            @Override
+                            public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                                if(cause instanceof ReadTimeoutException)
+                                    timedOut.complete(null);
+                                ctx.close();
+                            }
+                        });
+                    }
+                })
+                .bind(InetAddress.getLoopbackAddress(), 0)
+                .sync()
+                .channel();
+
+        client = new Bootstrap()
+                .group(clientGroup)
+                .channel(NioSocketChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect((InetSocketAddress) server.localAddress())
+                .sync()
+                .channel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close().sync();
+        acceptGroup.shutdownGracefully().sync();
+        clientGroup.shutdownGracefully().sync();
+        shardGroup.shutdownGracefully().sync();
+    }
+
+    @Test
+    public void adoptedChannelTimesOutOnTheShard() throws Exception {
+        final Channel player = accepted.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        assertTrue(shard.adopt(player).await(WAIT_SECONDS, TimeUnit.SECONDS));
+        // Takes down any timer which was left behind
+        server.close().sync();
+        acceptGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+
+        timedOut.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        assertTrue(player.closeFuture().await(WAIT_SECONDS, TimeUnit.SECONDS));
+    }
+}
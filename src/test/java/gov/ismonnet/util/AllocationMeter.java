@@ -0,0 +1,61 @@
+package gov.ismonnet.util;
+
+import org.junit.Assume;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the heap allocated by the calling thread
+ *
+ * Only works on JVMs exposing {@link com.sun.management.ThreadMXBean},
+ * tests using it are skipped on the others.
+ */
+public final class AllocationMeter {
+
+    private static final int ROUNDS = 5;
+
+    private AllocationMeter() {}
+
+    /**
+     * Returns the bytes allocated on average by each run of the given task,
+     * after running it a number of times to let the JIT compile it
+     *
+     * The runs are measured a few times and the lowest average is returned,
+     * as the JIT may still be swapping in compiled code during the first rounds.
+     * Something allocated every run, or every few of them, shows up in all of the rounds.
+     *
+     * @param warmup runs before measuring
+     * @param runs runs measured in each round
+     * @param task task to measure
+     * @return allocated bytes per run
+     */
+    public static double bytesPerRun(int warmup, int runs, Runnable task) {
+        final com.sun.management.ThreadMXBean bean = threadMXBean();
+        final long threadId = Thread.currentThread().getId();
+
+        for(int i = 0; i < warmup; i++)
+            task.run();
+
+        double min = Double.POSITIVE_INFINITY;
+        for(int round = 0; round < ROUNDS && min > 0; round++) {
+            final long before = bean.getThreadAllocatedBytes(threadId);
+            for(int i = 0; i < runs; i++)
+                task.run();
+            final long after = bean.getThreadAllocatedBytes(threadId);
+
+            min = Math.min(min, (after - before) / (double) runs);
+        }
+        return min;
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("Thread allocation can't be measured on this JVM",
+                bean instanceof com.sun.management.ThreadMXBean &&
+                ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported());
+
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+        return allocationBean;
+    }
+}